@@ -0,0 +1,60 @@
+package apiClients;
+
+import benchmarks.RecordedGitHubServer;
+import dataModels.FileDetails;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end client calls over HTTP against a local server replaying recorded GitHub payloads.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ApiClientBenchmark {
+    private static final int REPOSITORY_PAGES = 5;
+
+    private RecordedGitHubServer server;
+    private GitHubApiClient client;
+    private List<FileDetails> files;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new RecordedGitHubServer(REPOSITORY_PAGES);
+        client = new GitHubApiClient("benchmark_token", server.getBaseUrl());
+
+        files = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            files.add(new FileDetails("file" + i + ".txt", "content " + i));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearReadCache() {
+        client.getReadCache().clear(); // Measure the reads of a fresh run, not cache hits
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Benchmark
+    public void listRepositories(Blackhole blackhole) throws IOException {
+        client.listRepositories(blackhole::consume);
+    }
+
+    @Benchmark
+    public String resolveUniqueBranchName() throws IOException {
+        return client.resolveUniqueBranchName("octo-org/service-0001", "add-hello-file");
+    }
+
+    @Benchmark
+    public boolean commitFiles() throws IOException {
+        return client.commitFiles("octo-org/service-0001", "add-hello-file-20", files, "Add files");
+    }
+}
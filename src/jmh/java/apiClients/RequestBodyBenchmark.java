@@ -0,0 +1,36 @@
+package apiClients;
+
+import dataModels.FileDetails;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the git trees request body for changesets of different sizes.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RequestBodyBenchmark {
+    @Param({"1", "50", "300"})
+    public int fileCount;
+
+    private List<FileDetails> files;
+
+    @Setup
+    public void setUp() {
+        files = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            files.add(new FileDetails("src/main/resources/generated/file" + i + ".txt",
+                    "Generated content for file " + i + "\n".repeat(20)));
+        }
+    }
+
+    @Benchmark
+    public String treeRequestBody() {
+        return GitHubApiClient.treeRequestBody("9fb037999f264ba9a7fc6274d15fa3ae2ab98312", files,
+                Collections.emptyMap());
+    }
+}
@@ -0,0 +1,64 @@
+package apiClients;
+
+import benchmarks.RecordedGitHubServer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import dataModels.Repository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a full Gson tree from the body String with the streaming decoders,
+ * on a recorded 100-repository /user/repos page and a git ref.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseParsingBenchmark {
+    private byte[] repositoriesPage;
+    private byte[] ref;
+
+    @Setup
+    public void setUp() {
+        repositoriesPage = RecordedGitHubServer.payload("user-repos.json").getBytes(StandardCharsets.UTF_8);
+        ref = RecordedGitHubServer.payload("git-ref.json").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void repositoriesJsonTree(Blackhole blackhole) {
+        String body = new String(repositoriesPage, StandardCharsets.UTF_8);
+        for (JsonElement repository : JsonParser.parseString(body).getAsJsonArray()) {
+            blackhole.consume(repository.getAsJsonObject().get("full_name").getAsString());
+        }
+    }
+
+    @Benchmark
+    public List<Repository> repositoriesStreaming() throws IOException {
+        return JsonDecoders.REPOSITORIES.decode(reader(repositoriesPage));
+    }
+
+    @Benchmark
+    public String refShaJsonTree() {
+        return JsonParser.parseString(new String(ref, StandardCharsets.UTF_8))
+                .getAsJsonObject()
+                .getAsJsonObject("object")
+                .get("sha")
+                .getAsString();
+    }
+
+    @Benchmark
+    public String refShaStreaming() throws IOException {
+        return JsonDecoders.OBJECT_SHA.decode(reader(ref));
+    }
+
+    private static JsonReader reader(byte[] body) {
+        return new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+    }
+}
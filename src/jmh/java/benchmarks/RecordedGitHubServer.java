@@ -0,0 +1,106 @@
+package benchmarks;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Local HTTP server answering the GitHub REST endpoints used by the clients with recorded payloads
+ * from src/jmh/resources/payloads. Repository listing is served as a fixed number of identical pages.
+ */
+public class RecordedGitHubServer implements AutoCloseable {
+    private final MockWebServer server = new MockWebServer();
+    private final int repositoryPages;
+
+    private final String repositories = payload("user-repos.json");
+    private final String ref = payload("git-ref.json");
+    private final String commit = payload("git-commit.json");
+    private final String tree = payload("git-tree.json");
+    private final String matchingRefs = payload("matching-refs.json");
+    private final String pull = payload("pull.json");
+
+    public RecordedGitHubServer(int repositoryPages) throws IOException {
+        this.repositoryPages = repositoryPages;
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * @return Base URL to pass to the clients, without trailing slash.
+     */
+    public String getBaseUrl() {
+        return server.url("").toString().replaceAll("/$", "");
+    }
+
+    /**
+     * Reads a recorded payload from the classpath.
+     * @param name File name inside the payloads directory.
+     * @return Payload content.
+     */
+    public static String payload(String name) {
+        try (InputStream in = RecordedGitHubServer.class.getResourceAsStream("/payloads/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown payload: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        MockResponse response = route(request);
+        // HEAD gets the status of the matching GET, without a body
+        return "HEAD".equals(request.getMethod()) ? new MockResponse().setStatus(response.getStatus()) : response;
+    }
+
+    private MockResponse route(RecordedRequest request) {
+        String path = request.getRequestUrl().encodedPath();
+        String method = request.getMethod();
+
+        if (path.equals("/user/repos")) {
+            MockResponse response = json(repositories);
+            if ("1".equals(request.getRequestUrl().queryParameter("page")) && repositoryPages > 1) {
+                String last = server.url("/user/repos?per_page=100&page=" + repositoryPages).toString();
+                response.setHeader("Link", "<" + last + ">; rel=\"last\"");
+            }
+            return response;
+        }
+        if (path.contains("/git/matching-refs/")) {
+            return json(matchingRefs);
+        }
+        if (path.contains("/git/ref/") || (path.contains("/git/refs") && !"GET".equals(method))) {
+            return json(ref).setResponseCode("POST".equals(method) ? 201 : 200);
+        }
+        if (path.contains("/git/commits")) {
+            return json(commit).setResponseCode("POST".equals(method) ? 201 : 200);
+        }
+        if (path.endsWith("/git/trees") || path.endsWith("/git/blobs")) {
+            return json(tree).setResponseCode(201);
+        }
+        if (path.endsWith("/pulls")) {
+            return json(pull).setResponseCode(201);
+        }
+        return new MockResponse().setResponseCode(404).setBody("{\"message\":\"Not Found\"}");
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json; charset=utf-8").setBody(body);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching a new JVM until the assistant prints its first line, with and without the AppCDS archive.
+ * Each operation starts the packaged application with --startup-only, which goes through the normal startup
+ * without prompting or contacting the API, and stops it as soon as the welcome message arrives.
+ * The sample-time percentiles are the time to first output; the tear-down that stops the process is not measured.
+ * Needs the jar, its classpath file and the archive from {@code mvn -Pappcds package}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+    private static final Path TARGET = Paths.get("target");
+    private static final Path JAR = TARGET.resolve("MergeRequestAssistant-1.0-SNAPSHOT.jar");
+    private static final Path CLASSPATH_FILE = TARGET.resolve("classpath.txt");
+    private static final Path ARCHIVE = TARGET.resolve("app-cds.jsa");
+
+    @Param({"none", "appcds"})
+    public String archive;
+
+    private List<String> command;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (!Files.exists(JAR) || !Files.exists(CLASSPATH_FILE) || !Files.exists(ARCHIVE)) {
+            throw new IllegalStateException("Run mvn -Pappcds package first to build the jar and the AppCDS archive");
+        }
+
+        String classpath = JAR + File.pathSeparator + Files.readString(CLASSPATH_FILE).trim();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+        command = new ArrayList<>();
+        command.add(java);
+        if (archive.equals("appcds")) {
+            command.add("-XX:SharedArchiveFile=" + ARCHIVE);
+            command.add("-Xshare:on"); // Fail instead of silently measuring a start without the archive
+        }
+        command.add("-Xlog:cds=off");
+        command.add("-classpath");
+        command.add(classpath);
+        command.add("GitHubMergeRequestAssistant");
+        command.add("--startup-only");
+    }
+
+    @Benchmark
+    public String timeToFirstOutput() throws IOException {
+        process = new ProcessBuilder(command)
+                .redirectInput(ProcessBuilder.Redirect.PIPE)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        return output.readLine();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopProcess() throws InterruptedException {
+        process.destroyForcibly();
+        process.waitFor();
+    }
+}
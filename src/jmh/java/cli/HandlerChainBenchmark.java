@@ -0,0 +1,63 @@
+package cli;
+
+import apiClients.GitHubApiClient;
+import benchmarks.RecordedGitHubServer;
+import dataModels.FileDetails;
+import dataModels.MergeRequestParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the ListRepositoriesHandler -> CreateMergeRequestHandler chain end to end against
+ * a local server replaying recorded GitHub payloads.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HandlerChainBenchmark {
+    private static final int REPOSITORY_PAGES = 2;
+
+    private RecordedGitHubServer server;
+    private GitHubApiClient client;
+    private CommandHandler chain;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new RecordedGitHubServer(REPOSITORY_PAGES);
+        client = new GitHubApiClient("benchmark_token", server.getBaseUrl());
+
+        MergeRequestParameters parameters = new MergeRequestParameters("add-hello-file",
+                Collections.singletonList(new FileDetails("Hello.txt", "Hello world")),
+                "Add Hello.txt", "Adds a single Hello.txt file with 'Hello world' content.");
+
+        chain = new ListRepositoriesHandler();
+        chain.setNext(new CreateMergeRequestHandler(parameters, repoMap -> repoMap.get(1)));
+
+        // The handlers print every repository; keep the console out of the measurement
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearReadCache() {
+        client.getReadCache().clear(); // Measure the reads of a fresh run, not cache hits
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        server.close();
+    }
+
+    @Benchmark
+    public CommandContext listAndCreateMergeRequest() {
+        CommandContext context = new CommandContext(client);
+        chain.handle(context);
+        return context;
+    }
+}
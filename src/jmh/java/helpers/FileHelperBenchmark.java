@@ -0,0 +1,51 @@
+package helpers;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Base64 encoding of in-memory content against streaming a file of the same size.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileHelperBenchmark {
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private String content;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('a' + (bytes[i] & 0x0F)); // Printable, so the String round-trips unchanged
+        }
+
+        content = new String(bytes);
+        file = Files.createTempFile("benchmark", ".txt");
+        Files.write(file, bytes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String encodeContent() {
+        return FileHelper.encodeContent(content);
+    }
+
+    @Benchmark
+    public void encodeToStream() throws IOException {
+        FileHelper.encodeTo(file, OutputStream.nullOutputStream());
+    }
+}
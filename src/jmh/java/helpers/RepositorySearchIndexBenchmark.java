@@ -0,0 +1,47 @@
+package helpers;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures per-keystroke search latency and glob selection over a large repository list.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositorySearchIndexBenchmark {
+    private static final String[] WORDS = {"api", "web", "service", "payments", "billing", "infra", "docs", "mobile"};
+
+    @Param({"1000", "100000"})
+    public int repositories;
+
+    @Param({"pay", "payments-ser", "paymnets-servce"})
+    public String query;
+
+    private RepositorySearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Map<Integer, String> repoMap = new HashMap<>();
+        for (int i = 1; i <= repositories; i++) {
+            repoMap.put(i, "org" + random.nextInt(200) + "/" + WORDS[random.nextInt(WORDS.length)]
+                    + "-" + WORDS[random.nextInt(WORDS.length)] + "-" + i);
+        }
+        index = new RepositorySearchIndex(repoMap);
+    }
+
+    @Benchmark
+    public List<Integer> search() {
+        return index.search(query, 10);
+    }
+
+    @Benchmark
+    public List<Integer> matchGlob() {
+        return index.matchGlob("org1*/payments-*");
+    }
+}
@@ -1,19 +1,37 @@
 import apiClients.ApiClient;
+import apiClients.BlobUploader;
 import apiClients.GitHubApiClient;
+import apiClients.GitHubGraphQlApiClient;
+import apiClients.HttpTransport;
 import cli.CommandHandler;
 import cli.CreateMergeRequestHandler;
+import cli.FanOutMergeRequestHandler;
 import cli.ListRepositoriesHandler;
+import cli.MergeRequestDaemon;
 import cli.CommandContext;
 import dataModels.FileDetails;
 import dataModels.MergeRequestParameters;
 import helpers.ConfigHelper;
-import helpers.InputHelper;
+import helpers.MergeRequestJournal;
+import helpers.RepositorySearchSelector;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.function.Predicate;
+import java.util.regex.PatternSyntaxException;
 
 public class GitHubMergeRequestAssistant {
     private final ApiClient apiClient;
-    private final CommandHandler cliHandler;
+    private final boolean fanOut;
+    private final int fanOutConcurrency;
+    private final Predicate<String> selection;
+    private final int pipelineQueueCapacity;
+    // Created after the welcome message, so the first output does not wait for them
+    private MergeRequestJournal journal;
+    private CommandHandler cliHandler;
 
     // Constants for branch name, file details, and pull request information
     private static final String BRANCH_NAME = "add-hello-file";
@@ -22,12 +40,51 @@ public class GitHubMergeRequestAssistant {
     private static final String PULL_REQUEST_TITLE = "Add Hello.txt";
     private static final String PULL_REQUEST_BODY = "Adds a single Hello.txt file with 'Hello world' content.";
     private static final String CONFIG_FILE = "config.properties";
+    private static final Path RESPONSE_CACHE_FILE = Paths.get(".cache", "http-cache.json");
+    private static final Path REPOSITORY_INDEX_FILE = Paths.get(".cache", "repositories.idx");
+    private static final Path JOURNAL_FILE = Paths.get(".cache", "merge-requests.journal");
     private static final String TOKEN_ERROR_MESSAGE = "GitHub token not found in configuration file.";
     private static final String WELCOME_MESSAGE = "Welcome to GitHub Merge Request Assistant!";
+    private static final String FAN_OUT_FLAG = "--fan-out";
+    private static final String SELECT_OPTION = "--select=";
+    private static final String PIPELINE_FLAG = "--pipeline";
+    private static final String DAEMON_FLAG = "--daemon";
+    private static final String STARTUP_ONLY_FLAG = "--startup-only";
+    private static final String DAEMON_PORT_KEY = "DAEMON_PORT";
+    private static final int DEFAULT_DAEMON_PORT = 8765;
+    private static final String DAEMON_SECRET_FILE_KEY = "DAEMON_SECRET_FILE";
+    private static final String DEFAULT_DAEMON_SECRET_FILE = ".cache/daemon.secret";
+    private static final String DAEMON_SOURCE_DIR_KEY = "DAEMON_SOURCE_DIR";
+    private static final long DAEMON_SHUTDOWN_TIMEOUT_SECONDS = 60;
+    private static final String API_KEY = "GITHUB_API";
+    private static final String GRAPHQL_API = "graphql";
+    private static final String FAN_OUT_CONCURRENCY_KEY = "FAN_OUT_CONCURRENCY";
+    private static final String METRICS_FILE_KEY = "METRICS_FILE";
+    private static final String DEFAULT_METRICS_FILE = ".cache/metrics.prom";
+    private static final int DEFAULT_FAN_OUT_CONCURRENCY = 16;
+    private static final String PIPELINE_QUEUE_CAPACITY_KEY = "PIPELINE_QUEUE_CAPACITY";
+    private static final int DEFAULT_PIPELINE_QUEUE_CAPACITY = 100;
 
     public GitHubMergeRequestAssistant(ApiClient apiClient) {
+        this(apiClient, false, DEFAULT_FAN_OUT_CONCURRENCY);
+    }
+
+    public GitHubMergeRequestAssistant(ApiClient apiClient, boolean fanOut, int fanOutConcurrency) {
+        this(apiClient, fanOut, fanOutConcurrency, null, 0);
+    }
+
+    /**
+     * @param selection             Repositories for the fan-out mode, decided by name without asking, or null to ask.
+     * @param pipelineQueueCapacity Runs the handlers as a pipeline with this many repositories buffered between
+     *                              them, or 0 to run them one after another.
+     */
+    public GitHubMergeRequestAssistant(ApiClient apiClient, boolean fanOut, int fanOutConcurrency,
+                                       Predicate<String> selection, int pipelineQueueCapacity) {
         this.apiClient = apiClient;
-        this.cliHandler = initializeCommandHandlers();
+        this.fanOut = fanOut;
+        this.fanOutConcurrency = fanOutConcurrency;
+        this.selection = selection;
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
     }
 
     public static void main(String[] args) {
@@ -39,21 +96,145 @@ public class GitHubMergeRequestAssistant {
         }
 
         // Use GitHubApiClient (can be swapped for GitLabApiClient, etc.)
-        ApiClient apiClient = new GitHubApiClient(token);
-        GitHubMergeRequestAssistant assistant = new GitHubMergeRequestAssistant(apiClient);
+        // GITHUB_API=graphql selects the GraphQL client, which needs far fewer requests per merge request
+        // Connection pool, dispatcher limits and HTTP/2 come from the HTTP_* settings,
+        // limits for uploading the blobs of large changesets from the BLOB_UPLOAD_* settings
+        HttpTransport transport = HttpTransport.fromConfig(CONFIG_FILE);
+        ApiClient apiClient = GRAPHQL_API.equalsIgnoreCase(ConfigHelper.getProperty(CONFIG_FILE, API_KEY, "rest"))
+                ? new GitHubGraphQlApiClient(token, transport)
+                : new GitHubApiClient(token, transport, BlobUploader.fromConfig(CONFIG_FILE));
+
+        // --startup-only runs startup and exits, e.g. to record the AppCDS archive
+        boolean startupOnly = Arrays.asList(args).contains(STARTUP_ONLY_FLAG);
+
+        // TLS handshake and HTTP class loading run in the background while the rest of startup continues
+        if (!startupOnly) {
+            apiClient.warmUp();
+        }
+
+        // --fan-out rolls the merge request out to several repositories at once
+        boolean fanOut = Arrays.asList(args).contains(FAN_OUT_FLAG);
+        int fanOutConcurrency = ConfigHelper.getIntProperty(CONFIG_FILE, FAN_OUT_CONCURRENCY_KEY,
+                DEFAULT_FAN_OUT_CONCURRENCY);
+
+        // --select=<globs|/regex/|all> picks the fan-out repositories by name instead of asking
+        Predicate<String> selection = null;
+        for (String arg : args) {
+            if (arg.startsWith(SELECT_OPTION)) {
+                try {
+                    selection = RepositorySearchSelector.namePredicate(arg.substring(SELECT_OPTION.length()));
+                } catch (PatternSyntaxException e) {
+                    System.err.println("Invalid selection: " + e.getDescription());
+                    return;
+                }
+            }
+        }
+
+        // --pipeline starts on the first selected repositories while the rest are still being listed
+        int pipelineQueueCapacity = Arrays.asList(args).contains(PIPELINE_FLAG)
+                ? ConfigHelper.getIntProperty(CONFIG_FILE, PIPELINE_QUEUE_CAPACITY_KEY, DEFAULT_PIPELINE_QUEUE_CAPACITY)
+                : 0;
+
+        GitHubMergeRequestAssistant assistant = new GitHubMergeRequestAssistant(apiClient, fanOut || selection != null,
+                fanOutConcurrency, selection, pipelineQueueCapacity);
+
+        if (startupOnly) {
+            assistant.runStartupOnly();
+            return;
+        }
+
+        // --daemon keeps the process, its connections and the repository list warm and takes jobs over HTTP
+        if (Arrays.asList(args).contains(DAEMON_FLAG)) {
+            assistant.runDaemon(ConfigHelper.getIntProperty(CONFIG_FILE, DAEMON_PORT_KEY, DEFAULT_DAEMON_PORT));
+            return;
+        }
 
         assistant.run();
     }
 
     public void run() {
         System.out.println(WELCOME_MESSAGE);
+        journal = openJournal();
+        cliHandler = initializeCommandHandlers();
+
+        // Reuse validators from earlier runs so unchanged reads come back as 304
+        apiClient.getResponseCache().load(RESPONSE_CACHE_FILE);
 
         // Start CLI interaction
-        cliHandler.handle(new CommandContext(apiClient));
+        if (pipelineQueueCapacity > 0) {
+            cliHandler.handlePipelined(new CommandContext(apiClient), pipelineQueueCapacity);
+        } else {
+            cliHandler.handle(new CommandContext(apiClient));
+        }
+
+        saveState();
+    }
+
+    /**
+     * Serves merge request jobs on a local port until the process is stopped, e.g. with Ctrl+C or SIGTERM.
+     * Running jobs are finished and caches saved before the process exits.
+     * @param port Local port for the job endpoint.
+     */
+    public void runDaemon(int port) {
+        System.out.println(WELCOME_MESSAGE);
+        journal = openJournal();
+        apiClient.getResponseCache().load(RESPONSE_CACHE_FILE);
+
+        // Clients authenticate with the secret from this file; "source" files are only read from DAEMON_SOURCE_DIR
+        Path secretFile = Paths.get(ConfigHelper.getProperty(CONFIG_FILE, DAEMON_SECRET_FILE_KEY,
+                DEFAULT_DAEMON_SECRET_FILE));
+        String sourceDirectory = ConfigHelper.getProperty(CONFIG_FILE, DAEMON_SOURCE_DIR_KEY, null);
+        try {
+            MergeRequestDaemon daemon = new MergeRequestDaemon(apiClient,
+                    new ListRepositoriesHandler(REPOSITORY_INDEX_FILE), journal, fanOutConcurrency,
+                    MergeRequestDaemon.loadOrCreateSecret(secretFile),
+                    sourceDirectory != null ? Paths.get(sourceDirectory) : null);
+            daemon.start(port);
+            System.out.println("Bearer secret for requests: " + secretFile.toAbsolutePath());
+
+            // The HTTP server keeps the JVM alive; the hook runs on Ctrl+C or SIGTERM
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                daemon.stop(DAEMON_SHUTDOWN_TIMEOUT_SECONDS);
+                saveState();
+            }, "daemon-shutdown"));
+        } catch (IOException e) {
+            System.err.println("Error starting daemon: " + e.getMessage());
+            saveState();
+        }
+    }
+
+    /**
+     * Goes through startup (configuration, caches, handler chain and the HTTP client) without prompting, contacting
+     * the API or touching the journal, then returns. Used as the training run for the AppCDS archive,
+     * which then holds the classes a normal start loads.
+     */
+    public void runStartupOnly() {
+        System.out.println(WELCOME_MESSAGE);
+        cliHandler = initializeCommandHandlers();
+        apiClient.getResponseCache().load(RESPONSE_CACHE_FILE);
+        apiClient.buildClient();
+    }
+
+    private void saveState() {
+        closeJournal();
+
+        try {
+            apiClient.getResponseCache().save(RESPONSE_CACHE_FILE);
+        } catch (IOException e) {
+            System.err.println("Error saving response cache: " + e.getMessage());
+        }
+
+        // Per-endpoint latency, traffic and connection reuse of this run; a .json file name selects JSON
+        Path metricsFile = Paths.get(ConfigHelper.getProperty(CONFIG_FILE, METRICS_FILE_KEY, DEFAULT_METRICS_FILE));
+        try {
+            apiClient.getMetrics().export(metricsFile);
+        } catch (IOException e) {
+            System.err.println("Error exporting metrics: " + e.getMessage());
+        }
     }
 
     private CommandHandler initializeCommandHandlers() {
-        CommandHandler listReposHandler = new ListRepositoriesHandler();
+        CommandHandler listReposHandler = new ListRepositoriesHandler(REPOSITORY_INDEX_FILE);
         CommandHandler createMRHandler = createMergeRequestHandler();
 
         listReposHandler.setNext(createMRHandler);
@@ -71,6 +252,32 @@ public class GitHubMergeRequestAssistant {
                 PULL_REQUEST_BODY // Pull request body
         );
 
-        return new CreateMergeRequestHandler(parameters, InputHelper::matchRepositoryIndexToName);
+        RepositorySearchSelector repositorySelector = new RepositorySearchSelector();
+        CreateMergeRequestHandler handler = new CreateMergeRequestHandler(parameters, repositorySelector, journal);
+
+        if (fanOut) {
+            return new FanOutMergeRequestHandler(handler, repositorySelector, fanOutConcurrency, selection);
+        }
+        return handler;
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing merge request journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private static MergeRequestJournal openJournal() {
+        // Completed steps of earlier runs, so an interrupted rollout resumes instead of starting over
+        try {
+            return MergeRequestJournal.open(JOURNAL_FILE);
+        } catch (IOException e) {
+            System.err.println("Error opening merge request journal, interrupted runs cannot be resumed: " + e.getMessage());
+            return null;
+        }
     }
 }
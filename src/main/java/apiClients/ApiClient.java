@@ -1,20 +1,117 @@
 package apiClients;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import dataModels.ApiResponse;
+import dataModels.FileDetails;
+import dataModels.Repository;
+import dataModels.TypedApiResponse;
+import helpers.FileHelper;
+import interfaces.ResponseDecoder;
 import okhttp3.*;
+import okio.Okio;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public abstract class ApiClient {
-    protected final OkHttpClient client;
+    private final HttpTransport transport;
+    private volatile OkHttpClient client;
     protected final String token;
+    protected final ResponseCache responseCache;
+    protected final RateLimitScheduler rateLimitScheduler;
+    protected final RequestMetrics metrics;
 
     public ApiClient(String token) {
-        this.client = new OkHttpClient();
+        this(token, HttpTransport.defaultTransport());
+    }
+
+    /**
+     * Creates a client on a shared transport, so its connections and dispatcher limits are shared with other clients.
+     * @param token Access token.
+     * @param transport Transport providing the connection pool, dispatcher and protocols.
+     */
+    public ApiClient(String token, HttpTransport transport) {
+        this.transport = transport;
+        this.rateLimitScheduler = new RateLimitScheduler();
+        this.metrics = new RequestMetrics();
         this.token = token;
+        this.responseCache = new ResponseCache();
+    }
+
+    /**
+     * Gives access to the conditional-request cache, e.g. to persist it between runs.
+     * @return Response cache used by {@link #get(String)}.
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Gives access to the per-endpoint latency and traffic metrics, e.g. to export them at the end of a run.
+     * @return Metrics collected for every request of this client.
+     */
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Builds the HTTP client on first use, so short runs that fail early never load OkHttp.
+     * @return Client for every request of this API client.
+     */
+    protected OkHttpClient client() {
+        OkHttpClient built = client;
+        if (built == null) {
+            synchronized (this) {
+                built = client;
+                if (built == null) {
+                    // Every call made through this client is paced and retried by the scheduler and timed by the
+                    // metrics; newBuilder() keeps the transport's pool and dispatcher
+                    built = transport.client().newBuilder()
+                            .addInterceptor(rateLimitScheduler)
+                            .eventListenerFactory(metrics)
+                            .build();
+                    client = built;
+                }
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Builds the HTTP client without contacting the API, which loads its classes, e.g. during a training run.
+     */
+    public void buildClient() {
+        client();
+    }
+
+    /**
+     * Builds the HTTP client and opens a connection to the API in the background, so class loading and the TLS
+     * handshake overlap with the rest of startup instead of delaying the first real request.
+     * The connection is opened with an unauthenticated HEAD on the bare transport: it spends no request of the
+     * token's rate limit and does not show up in the metrics.
+     * @return Future completed once the connection is ready or the attempt failed; failures are left to
+     *         the first real request to report.
+     */
+    public CompletableFuture<Void> warmUp() {
+        return CompletableFuture.runAsync(() -> {
+            buildClient();
+            Request request = new Request.Builder().url(getBaseUrl() + "/").head().build();
+            try {
+                // Only the connection is wanted; the shared pool keeps it for the next request
+                transport.client().newCall(request).execute().close();
+            } catch (IOException e) {
+                // Offline or unreachable: the first real request reports it
+            }
+        });
     }
 
     /**
@@ -33,28 +130,53 @@ public abstract class ApiClient {
 
     /**
      * Sends a GET request to the specified URL.
+     * Cached responses are revalidated with If-None-Match / If-Modified-Since and reused on 304.
      * @param url The endpoint URL.
      * @return Parsed JSON response.
      * @throws IOException If the request fails.
      */
     protected ApiResponse get(String url) throws IOException {
-        Request request = new Request.Builder()
-                .url(getBaseUrl() + url)
-                .header("Authorization", getAuthorizationHeader())
-                .build();
+        return toApiResponse(get(url, ResponseDecoder.JSON_TREE));
+    }
 
-        try (Response response = client.newCall(request).execute()) {
-            int statusCode = response.code();
+    /**
+     * Sends a GET request and decodes a successful body while it streams in.
+     * @param url The endpoint URL.
+     * @param decoder Decoder for the response body; {@link ResponseDecoder#STATUS_ONLY} sends a HEAD request instead.
+     * @return Decoded response; the value is null for error responses.
+     * @throws IOException If the request fails.
+     */
+    protected <T> TypedApiResponse<T> get(String url, ResponseDecoder<T> decoder) throws IOException {
+        Request.Builder builder = newGetRequest(url, decoder);
+        TypedApiResponse<T> cached = responseCache.addValidators(url, decoder, builder);
 
-            if (response.isSuccessful()) {
-                JsonElement jsonElement = JsonParser.parseString(response.body().string());
-                return new ApiResponse(jsonElement, statusCode);
-            } else {
-                return new ApiResponse(null, statusCode); // Return status code for error handling
-            }
+        try (Response response = client().newCall(builder.build()).execute()) {
+            return readGetResponse(url, decoder, cached, response);
         }
     }
 
+    /**
+     * Sends a GET request without blocking the calling thread.
+     * @param url The endpoint URL.
+     * @return Future completed with the parsed JSON response, or exceptionally with an IOException.
+     */
+    protected CompletableFuture<ApiResponse> getAsync(String url) {
+        return getAsync(url, ResponseDecoder.JSON_TREE).thenApply(ApiClient::toApiResponse);
+    }
+
+    /**
+     * Sends a GET request without blocking the calling thread and decodes the body as it streams in.
+     * @param url The endpoint URL.
+     * @param decoder Decoder for the response body; {@link ResponseDecoder#STATUS_ONLY} sends a HEAD request instead.
+     * @return Future completed with the decoded response, or exceptionally with an IOException.
+     */
+    protected <T> CompletableFuture<TypedApiResponse<T>> getAsync(String url, ResponseDecoder<T> decoder) {
+        Request.Builder builder = newGetRequest(url, decoder);
+        TypedApiResponse<T> cached = responseCache.addValidators(url, decoder, builder);
+
+        return enqueue(builder.build(), response -> readGetResponse(url, decoder, cached, response));
+    }
+
     /**
      * Sends a POST request to the specified URL.
      * @param url The endpoint URL.
@@ -63,13 +185,30 @@ public abstract class ApiClient {
      * @throws IOException If the request fails.
      */
     protected ApiResponse post(String url, String body) throws IOException {
-        Request request = new Request.Builder()
-                .url(getBaseUrl() + url)
-                .header("Authorization", getAuthorizationHeader())
-                .post(RequestBody.create(body, MediaType.parse("application/json")))
-                .build();
+        return toApiResponse(executeRequest(newRequest(url).post(jsonBody(body)).build(), ResponseDecoder.JSON_TREE));
+    }
 
-        return executeRequest(request);
+    /**
+     * Sends a POST request without blocking the calling thread.
+     * @param url The endpoint URL.
+     * @param body The JSON body as a String.
+     * @param decoder Decoder for the response body.
+     * @return Future completed with the decoded response, or exceptionally with an IOException.
+     */
+    protected <T> CompletableFuture<TypedApiResponse<T>> postAsync(String url, String body, ResponseDecoder<T> decoder) {
+        return enqueue(newRequest(url).post(jsonBody(body)).build(), response -> readResponse(response, decoder));
+    }
+
+    /**
+     * Sends a POST request with a prepared body, e.g. one that streams its content, without blocking.
+     * @param url The endpoint URL.
+     * @param body The request body.
+     * @param decoder Decoder for the response body.
+     * @return Future completed with the decoded response, or exceptionally with an IOException.
+     */
+    protected <T> CompletableFuture<TypedApiResponse<T>> postAsync(String url, RequestBody body,
+                                                                  ResponseDecoder<T> decoder) {
+        return enqueue(newRequest(url).post(body).build(), response -> readResponse(response, decoder));
     }
 
     /**
@@ -80,22 +219,133 @@ public abstract class ApiClient {
      * @throws IOException If the request fails.
      */
     protected ApiResponse put(String url, String body) throws IOException {
-        Request request = new Request.Builder()
-                .url(getBaseUrl() + url)
-                .header("Authorization", getAuthorizationHeader())
-                .put(RequestBody.create(body, MediaType.parse("application/json")))
-                .build();
+        return toApiResponse(put(url, body, ResponseDecoder.JSON_TREE));
+    }
+
+    /**
+     * Sends a PUT request to the specified URL and decodes only what the caller needs from the response.
+     * @param url The endpoint URL.
+     * @param body The JSON body as a String.
+     * @param decoder Decoder for the response body, e.g. {@link ResponseDecoder#STATUS_ONLY}.
+     * @return Decoded response.
+     * @throws IOException If the request fails.
+     */
+    protected <T> TypedApiResponse<T> put(String url, String body, ResponseDecoder<T> decoder) throws IOException {
+        return executeRequest(newRequest(url).put(jsonBody(body)).build(), decoder);
+    }
+
+    /**
+     * Sends a PATCH request to the specified URL.
+     * @param url The endpoint URL.
+     * @param body The JSON body as a String.
+     * @return ApiResponse.
+     * @throws IOException If the request fails.
+     */
+    protected ApiResponse patch(String url, String body) throws IOException {
+        return toApiResponse(executeRequest(newRequest(url).patch(jsonBody(body)).build(), ResponseDecoder.JSON_TREE));
+    }
+
+    /**
+     * Sends a PATCH request without blocking the calling thread.
+     * @param url The endpoint URL.
+     * @param body The JSON body as a String.
+     * @param decoder Decoder for the response body.
+     * @return Future completed with the decoded response, or exceptionally with an IOException.
+     */
+    protected <T> CompletableFuture<TypedApiResponse<T>> patchAsync(String url, String body, ResponseDecoder<T> decoder) {
+        return enqueue(newRequest(url).patch(jsonBody(body)).build(), response -> readResponse(response, decoder));
+    }
+
+    /**
+     * Waits for an asynchronous result and rethrows its failure as the original IOException.
+     * @param future The future to wait for.
+     * @return The result of the future.
+     * @throws IOException If the future completed with an IOException.
+     */
+    protected static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
 
-        return executeRequest(request);
+    /**
+     * Wraps an error message so it can be thrown from a future stage and unwrapped by {@link #await}.
+     * @param message Error message.
+     * @return Exception to throw inside a completion stage.
+     */
+    protected static CompletionException failure(String message) {
+        return new CompletionException(new IOException(message));
+    }
+
+    /**
+     * Wraps an error response so it can be thrown from a future stage, keeping its status for the caller.
+     * @param message Description of the failed operation.
+     * @param response The error response.
+     * @return Exception to throw; the future completes exceptionally with a {@link HttpStatusException}.
+     */
+    protected static CompletionException failure(String message, TypedApiResponse<?> response) {
+        return new CompletionException(new HttpStatusException(message, response));
+    }
+
+    /**
+     * Computes the git blob SHA a file will have once committed, from memory or by streaming its source file.
+     * @param file The file to hash.
+     * @return Hex blob SHA, comparable with the SHAs GitHub reports.
+     * @throws IOException If the source file cannot be read.
+     */
+    protected static String gitBlobSha(FileDetails file) throws IOException {
+        return FileHelper.gitBlobSha(file);
     }
 
     /**
      * Fetches a list of repositories accessible by the authenticated user.
      *
-     * @return A JsonArray containing repository information.
+     * @return A list containing repository information.
      * @throws IOException If the request fails or returns an error response.
      */
-    public abstract JsonArray listRepositories() throws IOException;
+    public abstract List<Repository> listRepositories() throws IOException;
+
+    /**
+     * Streams every repository accessible by the authenticated user, following pagination.
+     * Repositories are delivered in listing order on the calling thread as soon as their page arrives.
+     *
+     * @param consumer Callback receiving each repository.
+     * @throws IOException If any page request fails or returns an error response.
+     */
+    public abstract void listRepositories(Consumer<Repository> consumer) throws IOException;
+
+    /**
+     * Streams the repositories updated after a point in time, most recently updated first.
+     * Stops paging as soon as an older repository is reached, so a refresh with few changes costs one request.
+     *
+     * @param since    Only repositories with a later updated_at are delivered.
+     * @param consumer Callback receiving each repository.
+     * @throws IOException If any page request fails or returns an error response.
+     */
+    public abstract void listRepositoriesUpdatedSince(Instant since, Consumer<Repository> consumer) throws IOException;
+
+    /**
+     * Tells whether a repository was updated after a point in time; an unknown updated_at counts as updated.
+     * @param repository Repository to check.
+     * @param since Point in time.
+     * @return true if the repository is newer, or its updated_at is missing or unparseable.
+     */
+    protected static boolean isUpdatedAfter(Repository repository, Instant since) {
+        try {
+            return repository.getUpdatedAt() == null || Instant.parse(repository.getUpdatedAt()).isAfter(since);
+        } catch (DateTimeParseException e) {
+            return true;
+        }
+    }
 
     /**
      * Creates a new branch in the specified repository.
@@ -120,6 +370,32 @@ public abstract class ApiClient {
     public abstract boolean commitFile(String repo, String branchName, String filePath, String content)
             throws IOException;
 
+    /**
+     * Commits a set of files to the specified branch as a single commit.
+     * The number of requests does not depend on the number of files.
+     *
+     * @param repo       The repository name in the format "owner/repo".
+     * @param branchName The name of the branch to commit to.
+     * @param files      The files to add or update.
+     * @param message    The commit message.
+     * @return true if the changeset was committed successfully, false otherwise.
+     * @throws IOException If the request fails or returns an error response.
+     */
+    public abstract boolean commitFiles(String repo, String branchName, List<FileDetails> files, String message)
+            throws IOException;
+
+    /**
+     * Compares files with their current version on a branch by git blob SHA, without downloading content.
+     *
+     * @param repo       The repository name in the format "owner/repo".
+     * @param branchName The branch to compare against.
+     * @param files      The files to check.
+     * @return The files that are missing on the branch or differ from it, in their original order.
+     * @throws IOException If the request fails or returns an error response.
+     */
+    public abstract List<FileDetails> filterChangedFiles(String repo, String branchName, List<FileDetails> files)
+            throws IOException;
+
     /**
      * Creates a pull request in the specified repository.
      *
@@ -133,6 +409,17 @@ public abstract class ApiClient {
     public abstract boolean createPullRequest(String repo, String branchName, String title, String body)
             throws IOException;
 
+    /**
+     * Checks whether an open pull request from the given branch already exists.
+     * Lets a run that was interrupted right after opening the pull request finish without opening it again.
+     *
+     * @param repo       The repository name in the format "owner/repo".
+     * @param branchName The branch containing the changes to merge.
+     * @return true if an open pull request from that branch exists, false otherwise.
+     * @throws IOException If the request fails or returns an error response.
+     */
+    public abstract boolean pullRequestExists(String repo, String branchName) throws IOException;
+
     /**
      * Checks if a branch with given name already exists in current repository.
      *
@@ -143,16 +430,110 @@ public abstract class ApiClient {
      */
     public abstract boolean branchExists(String repo, String branchName) throws IOException;
 
-    private ApiResponse executeRequest(Request request) throws IOException {
-        try (Response response = client.newCall(request).execute()) {
-            int statusCode = response.code();
-            JsonElement jsonElement = null;
+    /**
+     * Finds a branch name that is not taken yet: the base name, or the base name with the first free "-N" suffix.
+     * Resolved with a single prefix lookup, regardless of how many suffixed branches exist.
+     *
+     * @param repo           The repository name in the format "owner/repo".
+     * @param baseBranchName The preferred branch name.
+     * @return A branch name that does not exist in the repository.
+     * @throws IOException If the request fails or returns an error response.
+     */
+    public abstract String resolveUniqueBranchName(String repo, String baseBranchName) throws IOException;
 
-            if (response.body() != null) {
-                jsonElement = JsonParser.parseString(response.body().string());
-            }
+    private Request.Builder newRequest(String url) {
+        return new Request.Builder()
+                .url(getBaseUrl() + url)
+                .header("Authorization", getAuthorizationHeader());
+    }
+
+    private <T> Request.Builder newGetRequest(String url, ResponseDecoder<T> decoder) {
+        Request.Builder builder = newRequest(url);
+        // GitHub answers HEAD on every GET endpoint with the same status and headers, without the body
+        return decoder == ResponseDecoder.STATUS_ONLY ? builder.head() : builder;
+    }
+
+    private static RequestBody jsonBody(String body) {
+        return RequestBody.create(body, MediaType.parse("application/json"));
+    }
+
+    private <T> TypedApiResponse<T> readGetResponse(String url, ResponseDecoder<T> decoder,
+                                                    TypedApiResponse<T> cached, Response response) throws IOException {
+        int statusCode = response.code();
+
+        if (statusCode == 304 && cached != null) {
+            return cached; // Not modified, body was not sent again
+        }
+
+        if (response.isSuccessful()) {
+            TypedApiResponse<T> decoded = new TypedApiResponse<>(decodeBody(response, decoder), statusCode,
+                    response.headers());
+            responseCache.put(url, decoder, decoded);
+            return decoded;
+        } else {
+            return new TypedApiResponse<>(null, statusCode, response.headers()); // Return status code for error handling
+        }
+    }
+
+    private <T> TypedApiResponse<T> executeRequest(Request request, ResponseDecoder<T> decoder) throws IOException {
+        try (Response response = client().newCall(request).execute()) {
+            return readResponse(response, decoder);
+        }
+    }
+
+    private <T> TypedApiResponse<T> readResponse(Response response, ResponseDecoder<T> decoder) throws IOException {
+        return new TypedApiResponse<>(decodeBody(response, decoder), response.code(), response.headers());
+    }
 
-            return new ApiResponse(jsonElement, statusCode); // Return ApiResponse
+    private static <T> T decodeBody(Response response, ResponseDecoder<T> decoder) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null || body.source().exhausted()) {
+            return null;
         }
+
+        if (decoder == ResponseDecoder.STATUS_ONLY) {
+            // Read to the end without keeping anything, so the connection can be reused
+            body.source().readAll(Okio.blackhole());
+            return null;
+        }
+
+        // Decode straight from the byte stream instead of buffering the whole body as a String
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body.byteStream(), StandardCharsets.UTF_8))) {
+            return decoder.decode(reader);
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed response body", e);
+        }
+    }
+
+    private static ApiResponse toApiResponse(TypedApiResponse<JsonElement> response) {
+        return new ApiResponse(response.getValue(), response.getStatusCode(), response.getHeaders());
+    }
+
+    private <T> CompletableFuture<TypedApiResponse<T>> enqueue(Request request, ResponseReader<T> reader) {
+        CompletableFuture<TypedApiResponse<T>> future = new CompletableFuture<>();
+
+        // OkHttp's dispatcher runs the call; no thread is blocked while the request is in flight
+        client().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    future.complete(reader.read(response));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        TypedApiResponse<T> read(Response response) throws IOException;
     }
 }
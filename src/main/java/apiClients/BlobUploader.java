@@ -0,0 +1,229 @@
+package apiClients;
+
+import dataModels.FileDetails;
+import helpers.ConfigHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Uploads the blobs of a changeset concurrently, bounded by the number of uploads and the number of bytes in flight.
+ * <p>
+ * With a few uploads always running, a changeset with many files costs roughly its total size divided by the
+ * bandwidth instead of one round trip per file, while the byte budget keeps a handful of large files from
+ * saturating the connection. A failed upload is retried on its own after a short delay; the other files are
+ * not resent. Blobs are content-addressed, so retrying an upload that actually reached the server is harmless.
+ * Only network errors, server errors and rate limits are retried; a rejected request (401, 403, 404, 422, ...)
+ * fails the file right away.
+ */
+public class BlobUploader {
+    static final String MAX_IN_FLIGHT_KEY = "BLOB_UPLOAD_MAX_IN_FLIGHT";
+    static final String MAX_IN_FLIGHT_MB_KEY = "BLOB_UPLOAD_MAX_IN_FLIGHT_MB";
+    static final String MAX_ATTEMPTS_KEY = "BLOB_UPLOAD_MAX_ATTEMPTS";
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 8;
+    private static final int DEFAULT_MAX_IN_FLIGHT_MB = 32;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 1000;
+
+    private final int maxInFlight;
+    private final long maxInFlightBytes;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+
+    public BlobUploader() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT_MB * 1024L * 1024L, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public BlobUploader(int maxInFlight, long maxInFlightBytes, int maxAttempts) {
+        this(maxInFlight, maxInFlightBytes, maxAttempts, DEFAULT_RETRY_DELAY_MILLIS);
+    }
+
+    /**
+     * @param maxInFlight Maximum number of uploads running at the same time.
+     * @param maxInFlightBytes Maximum size of the files being uploaded at the same time;
+     *                         a larger file is uploaded once nothing else is in flight.
+     * @param maxAttempts Attempts per file before the upload fails.
+     * @param retryDelayMillis Delay before the first retry of a file, doubled for every further one.
+     */
+    public BlobUploader(int maxInFlight, long maxInFlightBytes, int maxAttempts, long retryDelayMillis) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Creates an uploader from the BLOB_UPLOAD_* settings in a properties file, using defaults for missing keys.
+     * @param configFile Path to the properties file.
+     * @return New uploader.
+     */
+    public static BlobUploader fromConfig(String configFile) {
+        return new BlobUploader(
+                ConfigHelper.getIntProperty(configFile, MAX_IN_FLIGHT_KEY, DEFAULT_MAX_IN_FLIGHT),
+                ConfigHelper.getIntProperty(configFile, MAX_IN_FLIGHT_MB_KEY, DEFAULT_MAX_IN_FLIGHT_MB) * 1024L * 1024L,
+                ConfigHelper.getIntProperty(configFile, MAX_ATTEMPTS_KEY, DEFAULT_MAX_ATTEMPTS));
+    }
+
+    /**
+     * Uploads every file and collects the resulting blob SHAs.
+     * The limits apply per call, so concurrent changesets (e.g. in fan-out mode) each get their own budget
+     * and share the transport's dispatcher limits.
+     * @param files Files to upload.
+     * @param uploadBlob Starts the upload of one file and completes with its blob SHA.
+     * @return Future completed with the blob SHA of every file by path, or exceptionally with an IOException
+     *         naming every file that still failed after its last attempt.
+     */
+    public CompletableFuture<Map<String, String>> upload(List<FileDetails> files,
+                                                         Function<FileDetails, CompletableFuture<String>> uploadBlob) {
+        return new Upload(files, uploadBlob).start();
+    }
+
+    private static long sizeOf(FileDetails file) {
+        if (!file.isBackedByPath()) {
+            return file.getFileContent().getBytes(StandardCharsets.UTF_8).length;
+        }
+        try {
+            return Files.size(file.getSourcePath());
+        } catch (IOException e) {
+            return 0; // The upload itself reports the unreadable file
+        }
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof HttpStatusException) {
+            return ((HttpStatusException) error).isTransient();
+        }
+        return error instanceof IOException; // Connection reset, timeout, ...
+    }
+
+    private static final class PendingBlob {
+        private final FileDetails file;
+        private final long size;
+        private int attempts;
+
+        private PendingBlob(FileDetails file) {
+            this.file = file;
+            this.size = sizeOf(file);
+        }
+    }
+
+    private final class Upload {
+        private final Function<FileDetails, CompletableFuture<String>> uploadBlob;
+        private final CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+        private final Deque<PendingBlob> pending = new ArrayDeque<>();
+        private final Map<String, String> blobShas = new LinkedHashMap<>();
+        private final Map<String, Throwable> failures = new LinkedHashMap<>();
+        private int remaining;
+        private int inFlight;
+        private long bytesInFlight;
+
+        private Upload(List<FileDetails> files, Function<FileDetails, CompletableFuture<String>> uploadBlob) {
+            this.uploadBlob = uploadBlob;
+            for (FileDetails file : files) {
+                pending.add(new PendingBlob(file));
+            }
+            this.remaining = pending.size();
+        }
+
+        private CompletableFuture<Map<String, String>> start() {
+            if (remaining == 0) {
+                result.complete(blobShas);
+            } else {
+                startAvailable();
+            }
+            return result;
+        }
+
+        private void startAvailable() {
+            List<PendingBlob> started = new ArrayList<>();
+            synchronized (this) {
+                Iterator<PendingBlob> iterator = pending.iterator();
+                while (iterator.hasNext() && inFlight < maxInFlight) {
+                    PendingBlob blob = iterator.next();
+                    // Smaller files further back may still fit the budget; a file larger than the whole
+                    // budget waits until it can go alone
+                    if (inFlight > 0 && bytesInFlight + blob.size > maxInFlightBytes) {
+                        continue;
+                    }
+                    iterator.remove();
+                    inFlight++;
+                    bytesInFlight += blob.size;
+                    started.add(blob);
+                }
+            }
+
+            // Started outside the lock: a future that is already complete calls back into finished() right away
+            for (PendingBlob blob : started) {
+                blob.attempts++;
+                CompletableFuture<String> upload;
+                try {
+                    upload = uploadBlob.apply(blob.file);
+                } catch (RuntimeException e) {
+                    upload = CompletableFuture.failedFuture(e);
+                }
+                upload.whenComplete((sha, error) -> finished(blob, sha, error));
+            }
+        }
+
+        private void finished(PendingBlob blob, String sha, Throwable error) {
+            boolean retry = false;
+            boolean done;
+            synchronized (this) {
+                inFlight--;
+                bytesInFlight -= blob.size;
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (error == null) {
+                    blobShas.put(blob.file.getFilePath(), sha);
+                } else if (blob.attempts < maxAttempts && isRetryable(cause)) {
+                    retry = true;
+                } else {
+                    failures.put(blob.file.getFilePath(), cause);
+                }
+                if (!retry) {
+                    remaining--;
+                }
+                done = remaining == 0;
+            }
+
+            if (done) {
+                complete();
+                return;
+            }
+            if (retry) {
+                long delay = retryDelayMillis << (blob.attempts - 1);
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+                    synchronized (this) {
+                        pending.addFirst(blob);
+                    }
+                    startAvailable();
+                });
+            }
+            startAvailable(); // The freed slot goes to the next file right away
+        }
+
+        private void complete() {
+            if (failures.isEmpty()) {
+                result.complete(blobShas);
+                return;
+            }
+
+            StringBuilder message = new StringBuilder("Failed to upload " + failures.size() + " file(s):");
+            failures.forEach((path, error) -> message.append(' ').append(path).append(" (")
+                    .append(error.getMessage()).append(')'));
+            result.completeExceptionally(new IOException(message.toString()));
+        }
+    }
+}
@@ -2,48 +2,164 @@ package apiClients;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import dataModels.ApiResponse;
+import dataModels.FileDetails;
+import dataModels.Repository;
+import dataModels.TypedApiResponse;
+import helpers.BranchNameHelper;
 import helpers.FileHelper;
+import helpers.LinkHeaderHelper;
+import interfaces.AsyncApiClient;
+import interfaces.ResponseDecoder;
 
 import java.io.IOException;
-
-public class GitHubApiClient extends ApiClient {
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+public class GitHubApiClient extends ApiClient implements AsyncApiClient {
+    private static final String DEFAULT_BASE_URL = "https://api.github.com";
+    private static final int REPOSITORIES_PER_PAGE = 100;
+    static final int REPOSITORY_PAGES_IN_FLIGHT = 4;
+
+    private final String baseUrl;
+    private final BlobUploader blobUploader;
+    // Branch heads, matching refs and directory listings are read several times per merge request
+    private final ReadCache readCache = new ReadCache();
 
     public GitHubApiClient(String token) {
-        super(token);
+        this(token, DEFAULT_BASE_URL);
+    }
+
+    public GitHubApiClient(String token, HttpTransport transport) {
+        this(token, DEFAULT_BASE_URL, transport);
+    }
+
+    /**
+     * Creates a client for a GitHub-compatible API at a different address, e.g. GitHub Enterprise or a local stub.
+     * @param token Personal access token.
+     * @param baseUrl Base URL without trailing slash.
+     */
+    public GitHubApiClient(String token, String baseUrl) {
+        this(token, baseUrl, HttpTransport.defaultTransport());
+    }
+
+    /**
+     * Creates a client sharing connections and dispatcher limits with other clients on the same transport.
+     * @param token Personal access token.
+     * @param baseUrl Base URL without trailing slash.
+     * @param transport Shared HTTP transport.
+     */
+    public GitHubApiClient(String token, String baseUrl, HttpTransport transport) {
+        this(token, baseUrl, transport, new BlobUploader());
+    }
+
+    public GitHubApiClient(String token, HttpTransport transport, BlobUploader blobUploader) {
+        this(token, DEFAULT_BASE_URL, transport, blobUploader);
+    }
+
+    /**
+     * Creates a client with explicit limits for the blob uploads of large changesets.
+     * @param token Personal access token.
+     * @param baseUrl Base URL without trailing slash.
+     * @param transport Shared HTTP transport.
+     * @param blobUploader Uploads the blobs of path-backed files before they are committed.
+     */
+    public GitHubApiClient(String token, String baseUrl, HttpTransport transport, BlobUploader blobUploader) {
+        super(token, transport);
+        this.baseUrl = baseUrl;
+        this.blobUploader = blobUploader;
+    }
+
+    /**
+     * Gives access to the cache of repeated reads, e.g. to start over as if in a new run.
+     * @return Read cache used for branch heads, matching refs and directory listings.
+     */
+    public ReadCache getReadCache() {
+        return readCache;
     }
 
     @Override
     protected String getBaseUrl() {
-        return "https://api.github.com";
+        return baseUrl;
     }
 
     @Override
-    public JsonArray listRepositories() throws IOException {
-        ApiResponse response = get("/user/repos");
+    public List<Repository> listRepositories() throws IOException {
+        List<Repository> repositories = new ArrayList<>();
+        listRepositories(repositories::add);
+        return repositories;
+    }
 
-        if (response.getStatusCode() >= 400) {
-            throw new IOException("Failed to list repositories. HTTP status: " + response.getStatusCode());
+    @Override
+    public void listRepositories(Consumer<Repository> consumer) throws IOException {
+        TypedApiResponse<List<Repository>> firstPage = getRepositoriesPage(repositoriesPageUrl(1));
+        emitRepositories(firstPage, consumer);
+
+        Map<String, String> links = LinkHeaderHelper.parse(firstPage.getHeader("Link"));
+        int lastPage = LinkHeaderHelper.pageNumber(links.get("last"));
+
+        if (lastPage > 1) {
+            // Every page URL is known up front, so fetch the next few concurrently and emit them in order
+            fetchRemainingPages(lastPage, consumer);
+        } else {
+            // No "last" relation: fall back to walking the "next" links one by one
+            String next = links.get("next");
+            while (next != null) {
+                TypedApiResponse<List<Repository>> page = getRepositoriesPage(relativeUrl(next));
+                emitRepositories(page, consumer);
+                next = LinkHeaderHelper.parse(page.getHeader("Link")).get("next");
+            }
         }
+    }
 
-        return response.getJsonElement().getAsJsonArray();
+    @Override
+    public void listRepositoriesUpdatedSince(Instant since, Consumer<Repository> consumer) throws IOException {
+        // Newest first, so paging can stop at the first repository that is not newer
+        String next = String.format("/user/repos?per_page=%d&sort=updated&direction=desc", REPOSITORIES_PER_PAGE);
+        while (next != null) {
+            TypedApiResponse<List<Repository>> page = getRepositoriesPage(next);
+            for (Repository repository : page.getValue()) {
+                if (!isUpdatedAfter(repository, since)) {
+                    return;
+                }
+                consumer.accept(repository);
+            }
+
+            String nextLink = LinkHeaderHelper.parse(page.getHeader("Link")).get("next");
+            next = nextLink == null ? null : relativeUrl(nextLink);
+        }
     }
 
     @Override
     public boolean createBranch(String repo, String branchName) throws IOException {
+        return await(createBranchAsync(repo, branchName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> createBranchAsync(String repo, String branchName) {
         String url = String.format("/repos/%s/git/refs", repo);
-        String mainBranchSha = getBranchSha(repo, "main");
-        if (mainBranchSha == null) return false;
 
-        JsonObject body = new JsonObject();
-        body.addProperty("ref", "refs/heads/" + branchName);
-        body.addProperty("sha", mainBranchSha);
+        return getBranchShaAsync(repo, "main").thenCompose(mainBranchSha -> {
+            JsonObject body = new JsonObject();
+            body.addProperty("ref", "refs/heads/" + branchName);
+            body.addProperty("sha", mainBranchSha);
 
-        ApiResponse response = post(url, body.toString());
-        if(!response.isSuccessful()){
-            throw new IOException("Failed to create a branch. HTTP status: " + response.getStatusCode());
-        }
-        return true;
+            return postAsync(url, body.toString(), ResponseDecoder.STATUS_ONLY);
+        }).thenApply(response -> {
+            invalidateBranch(repo, branchName); // Also when rejected: the branch may exist after all
+            if (!response.isSuccessful()) {
+                throw failure("Failed to create a branch. HTTP status: " + response.getStatusCode());
+            }
+            return true;
+        });
     }
 
     @Override
@@ -59,10 +175,14 @@ public class GitHubApiClient extends ApiClient {
         // Check if the file already exists
         String sha = getFileSha(repo, filePath, branchName);
         if (sha != null) {
+            if (sha.equals(FileHelper.gitBlobSha(content))) {
+                return true; // Same content is already committed, a write would only add an empty commit
+            }
             body.addProperty("sha", sha); // Add the SHA to update the file
         }
 
-        ApiResponse response = put(url, body.toString());
+        TypedApiResponse<Void> response = put(url, body.toString(), ResponseDecoder.STATUS_ONLY);
+        invalidateBranch(repo, branchName);
         if(!response.isSuccessful()){
             throw new IOException("Failed to commit a file. HTTP status: " + response.getStatusCode());
         }
@@ -70,8 +190,84 @@ public class GitHubApiClient extends ApiClient {
         return true;
     }
 
+    @Override
+    public boolean commitFiles(String repo, String branchName, List<FileDetails> files, String message)
+            throws IOException {
+        return await(commitFilesAsync(repo, branchName, files, message));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> commitFilesAsync(String repo, String branchName, List<FileDetails> files,
+                                                       String message) {
+        // Files backed by a local path are streamed up as blobs first, a few at a time and retried per file;
+        // text files go inline into the tree
+        List<FileDetails> blobFiles = files.stream().filter(FileDetails::isBackedByPath).collect(Collectors.toList());
+        CompletableFuture<Map<String, String>> uploads = blobUploader.upload(blobFiles, file -> createBlobAsync(repo, file));
+
+        // Git Data API: one tree with every file, one commit on top of the branch head, one ref update
+        return getBranchShaAsync(repo, branchName).thenCompose(headSha ->
+                getCommitTreeShaAsync(repo, headSha)
+                        .thenCompose(baseTreeSha -> uploads.thenCompose(blobShas ->
+                                createTreeAsync(repo, baseTreeSha, files, blobShas)))
+                        .thenCompose(treeSha -> createCommitAsync(repo, treeSha, headSha, message))
+                        .thenCompose(commitSha -> updateBranchAsync(repo, branchName, commitSha)));
+    }
+
+    @Override
+    public CompletableFuture<String> createBlobAsync(String repo, FileDetails file) {
+        String url = String.format("/repos/%s/git/blobs", repo);
+
+        CompletableFuture<TypedApiResponse<String>> upload;
+        if (file.isBackedByPath()) {
+            try {
+                upload = postAsync(url, new Base64FileRequestBody(file.getSourcePath()), JsonDecoders.SHA);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        } else {
+            JsonObject body = new JsonObject();
+            body.addProperty("content", FileHelper.encodeContent(file.getFileContent()));
+            body.addProperty("encoding", "base64");
+            upload = postAsync(url, body.toString(), JsonDecoders.SHA);
+        }
+
+        return upload.thenApply(response -> {
+            if (!response.isSuccessful()) {
+                throw failure("Failed to create a blob for " + file.getFilePath() + ". HTTP status: "
+                        + response.getStatusCode(), response);
+            }
+            return response.getValue();
+        });
+    }
+
+    @Override
+    public List<FileDetails> filterChangedFiles(String repo, String branchName, List<FileDetails> files)
+            throws IOException {
+        // One listing per parent directory carries the blob SHA of every file in it, without any content
+        Map<String, CompletableFuture<Map<String, String>>> listings = new HashMap<>();
+        for (FileDetails file : files) {
+            listings.computeIfAbsent(parentDirectory(file.getFilePath()),
+                    directory -> getFileShasAsync(repo, branchName, directory));
+        }
+
+        List<FileDetails> changedFiles = new ArrayList<>();
+        for (FileDetails file : files) {
+            Map<String, String> fileShas = await(listings.get(parentDirectory(file.getFilePath())));
+            if (!gitBlobSha(file).equals(fileShas.get(fileName(file.getFilePath())))) {
+                changedFiles.add(file);
+            }
+        }
+        return changedFiles;
+    }
+
     @Override
     public boolean createPullRequest(String repo, String branchName, String title, String body) throws IOException {
+        return await(createPullRequestAsync(repo, branchName, title, body));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> createPullRequestAsync(String repo, String branchName, String title,
+                                                             String body) {
         String url = String.format("/repos/%s/pulls", repo);
 
         JsonObject requestBody = new JsonObject();
@@ -80,55 +276,243 @@ public class GitHubApiClient extends ApiClient {
         requestBody.addProperty("head", branchName);
         requestBody.addProperty("base", "main");
 
-        ApiResponse response = post(url, requestBody.toString());
-        if(!response.isSuccessful()){
-            throw new IOException("Failed to create a pull request. HTTP status: " + response.getStatusCode());
-        }
+        return postAsync(url, requestBody.toString(), ResponseDecoder.STATUS_ONLY).thenApply(response -> {
+            if (!response.isSuccessful()) {
+                throw failure("Failed to create a pull request. HTTP status: " + response.getStatusCode());
+            }
+            return true;
+        });
+    }
 
-        return true;
+    @Override
+    public boolean pullRequestExists(String repo, String branchName) throws IOException {
+        String owner = repo.substring(0, repo.indexOf('/'));
+        String url = String.format("/repos/%s/pulls?state=open&head=%s:%s&per_page=1", repo, owner, branchName);
+        TypedApiResponse<Boolean> response = get(url, JsonDecoders.NOT_EMPTY);
+
+        if (!response.isSuccessful()) {
+            throw new IOException("Failed to list pull requests. HTTP status: " + response.getStatusCode());
+        }
+        return response.getValue();
     }
 
     @Override
     public boolean branchExists(String repo, String branchName) throws IOException {
+        return await(branchExistsAsync(repo, branchName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> branchExistsAsync(String repo, String branchName) {
         String url = String.format("/repos/%s/git/ref/heads/%s", repo, branchName);
 
-        ApiResponse response = get(url); // Call the updated `get` method
+        // Only the status code matters, so the ref is requested with HEAD
+        return cachedGetAsync(url, ResponseDecoder.STATUS_ONLY).thenApply(response -> {
+            if (response.getStatusCode() == 404) {
+                return false; // Branch does not exist
+            }
 
-        if (response.getStatusCode() == 404) {
-            return false; // Branch does not exist
-        }
+            if (response.getStatusCode() >= 400) {
+                throw failure("Failed to check branch existence. HTTP status: " + response.getStatusCode());
+            }
+
+            return true; // Branch exists
+        });
+    }
+
+    @Override
+    public String resolveUniqueBranchName(String repo, String baseBranchName) throws IOException {
+        // matching-refs returns every branch starting with the base name, including all "-N" variants
+        String url = String.format("/repos/%s/git/matching-refs/heads/%s", repo, baseBranchName);
+        TypedApiResponse<List<String>> response = await(cachedGetAsync(url, JsonDecoders.BRANCH_NAMES));
 
         if (response.getStatusCode() >= 400) {
-            throw new IOException("Failed to check branch existence. HTTP status: " + response.getStatusCode());
+            throw new IOException("Failed to list matching branches. HTTP status: " + response.getStatusCode());
         }
 
-        return true; // Branch exists
+        return BranchNameHelper.nextFreeBranchName(baseBranchName, response.getValue());
     }
 
-    private String getBranchSha(String repo, String branch) throws IOException {
+    @Override
+    public CompletableFuture<String> getBranchShaAsync(String repo, String branch) {
         String url = String.format("/repos/%s/git/ref/heads/%s", repo, branch);
-        ApiResponse response = get(url);
 
-        if (response.getStatusCode() == 404) {
-            throw new IOException("Branch not found: " + branch);
+        return cachedGetAsync(url, JsonDecoders.OBJECT_SHA).thenApply(response -> {
+            if (response.getStatusCode() == 404) {
+                throw failure("Branch not found: " + branch);
+            }
+
+            if (response.getStatusCode() >= 400) {
+                throw failure("Failed to retrieve branch SHA. HTTP status: " + response.getStatusCode());
+            }
+
+            return response.getValue();
+        });
+    }
+
+    private void fetchRemainingPages(int lastPage, Consumer<Repository> consumer) throws IOException {
+        // A few pages are fetched ahead, and the next one is only requested once the oldest has been emitted:
+        // a consumer that blocks, e.g. on a full pipeline, also stops the listing, and memory stays bounded
+        Deque<CompletableFuture<TypedApiResponse<List<Repository>>>> pages = new ArrayDeque<>();
+        int nextPage = 2;
+        try {
+            while (nextPage <= lastPage || !pages.isEmpty()) {
+                while (nextPage <= lastPage && pages.size() < REPOSITORY_PAGES_IN_FLIGHT) {
+                    pages.add(getAsync(repositoriesPageUrl(nextPage++), JsonDecoders.REPOSITORIES));
+                }
+                emitRepositories(checkRepositoriesPage(await(pages.poll())), consumer);
+            }
+        } finally {
+            pages.forEach(page -> page.cancel(false));
         }
+    }
 
+    private TypedApiResponse<List<Repository>> getRepositoriesPage(String url) throws IOException {
+        return checkRepositoriesPage(get(url, JsonDecoders.REPOSITORIES));
+    }
+
+    private TypedApiResponse<List<Repository>> checkRepositoriesPage(TypedApiResponse<List<Repository>> response)
+            throws IOException {
         if (response.getStatusCode() >= 400) {
-            throw new IOException("Failed to retrieve branch SHA. HTTP status: " + response.getStatusCode());
+            throw new IOException("Failed to list repositories. HTTP status: " + response.getStatusCode());
         }
 
-        return response.getJsonElement()
-                .getAsJsonObject()
-                .getAsJsonObject("object")
-                .get("sha")
-                .getAsString();
+        return response;
+    }
+
+    private void emitRepositories(TypedApiResponse<List<Repository>> page, Consumer<Repository> consumer) {
+        page.getValue().forEach(consumer);
+    }
+
+    private String repositoriesPageUrl(int page) {
+        return String.format("/user/repos?per_page=%d&page=%d", REPOSITORIES_PER_PAGE, page);
+    }
+
+    private String relativeUrl(String absoluteUrl) {
+        return absoluteUrl.startsWith(getBaseUrl()) ? absoluteUrl.substring(getBaseUrl().length()) : absoluteUrl;
+    }
+
+    private CompletableFuture<String> getCommitTreeShaAsync(String repo, String commitSha) {
+        String url = String.format("/repos/%s/git/commits/%s", repo, commitSha);
+
+        return cachedGetAsync(url, JsonDecoders.TREE_SHA).thenApply(response -> { // Commits never change
+            if (response.getStatusCode() >= 400) {
+                throw failure("Failed to retrieve commit. HTTP status: " + response.getStatusCode());
+            }
+
+            return response.getValue();
+        });
+    }
+
+    private CompletableFuture<String> createTreeAsync(String repo, String baseTreeSha, List<FileDetails> files,
+                                                      Map<String, String> blobShas) {
+        String url = String.format("/repos/%s/git/trees", repo);
+        return postAsync(url, treeRequestBody(baseTreeSha, files, blobShas), JsonDecoders.SHA).thenApply(response -> {
+            if (!response.isSuccessful()) {
+                throw failure("Failed to create a tree. HTTP status: " + response.getStatusCode());
+            }
+            return response.getValue();
+        });
+    }
+
+    static String treeRequestBody(String baseTreeSha, List<FileDetails> files, Map<String, String> blobShas) {
+        JsonArray treeEntries = new JsonArray();
+        for (FileDetails file : files) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("path", file.getFilePath());
+            entry.addProperty("mode", "100644");
+            entry.addProperty("type", "blob");
+            if (blobShas.containsKey(file.getFilePath())) {
+                entry.addProperty("sha", blobShas.get(file.getFilePath())); // Uploaded beforehand
+            } else {
+                entry.addProperty("content", file.getFileContent()); // GitHub creates the blob for inline content
+            }
+            treeEntries.add(entry);
+        }
+
+        JsonObject body = new JsonObject();
+        body.addProperty("base_tree", baseTreeSha);
+        body.add("tree", treeEntries);
+        return body.toString();
+    }
+
+    private CompletableFuture<String> createCommitAsync(String repo, String treeSha, String parentSha, String message) {
+        JsonArray parents = new JsonArray();
+        parents.add(parentSha);
+
+        JsonObject body = new JsonObject();
+        body.addProperty("message", message);
+        body.addProperty("tree", treeSha);
+        body.add("parents", parents);
+
+        String url = String.format("/repos/%s/git/commits", repo);
+        return postAsync(url, body.toString(), JsonDecoders.SHA).thenApply(response -> {
+            if (!response.isSuccessful()) {
+                throw failure("Failed to create a commit. HTTP status: " + response.getStatusCode());
+            }
+            return response.getValue();
+        });
+    }
+
+    private CompletableFuture<Boolean> updateBranchAsync(String repo, String branchName, String commitSha) {
+        JsonObject body = new JsonObject();
+        body.addProperty("sha", commitSha);
+
+        String url = String.format("/repos/%s/git/refs/heads/%s", repo, branchName);
+        return patchAsync(url, body.toString(), ResponseDecoder.STATUS_ONLY).thenApply(response -> {
+            invalidateBranch(repo, branchName);
+            if (!response.isSuccessful()) {
+                throw failure("Failed to update branch reference. HTTP status: " + response.getStatusCode());
+            }
+            return true;
+        });
+    }
+
+    private CompletableFuture<Map<String, String>> getFileShasAsync(String repo, String branchName, String directory) {
+        String path = directory.isEmpty() ? "" : "/" + directory;
+        String url = String.format("/repos/%s/contents%s?ref=%s", repo, path, branchName);
+
+        return cachedGetAsync(url, JsonDecoders.FILE_SHAS).thenApply(response -> {
+            if (response.getStatusCode() == 404) {
+                return Collections.<String, String>emptyMap(); // Directory does not exist yet, every file is new
+            }
+
+            if (response.getStatusCode() >= 400) {
+                throw failure("Failed to list directory contents. HTTP status: " + response.getStatusCode());
+            }
+
+            return response.getValue();
+        });
+    }
+
+    private <T> CompletableFuture<TypedApiResponse<T>> cachedGetAsync(String url, ResponseDecoder<T> decoder) {
+        return readCache.get(url, decoder, () -> getAsync(url, decoder));
+    }
+
+    private void invalidateBranch(String repo, String branchName) {
+        // The branch head, the list of branches and every listing read from the branch may have changed
+        String ref = String.format("/repos/%s/git/ref/heads/%s", repo, branchName);
+        String matchingRefs = String.format("/repos/%s/git/matching-refs/", repo);
+        String contents = String.format("/repos/%s/contents", repo);
+        String onBranch = "?ref=" + branchName;
+        readCache.invalidate(url -> url.equals(ref) || url.startsWith(matchingRefs)
+                || (url.startsWith(contents) && url.endsWith(onBranch)));
+    }
+
+    private static String parentDirectory(String filePath) {
+        int separator = filePath.lastIndexOf('/');
+        return separator < 0 ? "" : filePath.substring(0, separator);
+    }
+
+    private static String fileName(String filePath) {
+        return filePath.substring(filePath.lastIndexOf('/') + 1);
     }
 
     private String getFileSha(String repo, String filePath, String branchName) throws IOException {
         String url = String.format("/repos/%s/contents/%s?ref=%s", repo, filePath, branchName);
 
         try {
-            ApiResponse response = get(url); // Use the `get` method to fetch file info
+            // Only the "sha" field is decoded
+            TypedApiResponse<String> response = await(cachedGetAsync(url, JsonDecoders.SHA));
             if (response.getStatusCode() == 404) {
                 return null; // File does not exist
             }
@@ -137,8 +521,7 @@ public class GitHubApiClient extends ApiClient {
                 throw new IOException("Failed to fetch file SHA. HTTP status: " + response.getStatusCode());
             }
 
-            JsonObject json = response.getJsonElement().getAsJsonObject();
-            return json.get("sha").getAsString();
+            return response.getValue();
         } catch (IOException e) {
             if (e.getMessage().contains("404")) {
                 return null; // File does not exist
@@ -146,4 +529,4 @@ public class GitHubApiClient extends ApiClient {
             throw e;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,496 @@
+package apiClients;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import dataModels.ApiResponse;
+import dataModels.FileDetails;
+import dataModels.Repository;
+import dataModels.RepositoryPreflight;
+import helpers.BranchNameHelper;
+import helpers.FileHelper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * GitHub client backed by the GraphQL API.
+ * A whole merge request takes a fixed handful of requests: one lookup of the repository and its
+ * default branch head, createRef, a single createCommitOnBranch carrying every file, and createPullRequest.
+ */
+public class GitHubGraphQlApiClient extends ApiClient {
+    private static final String DEFAULT_BASE_URL = "https://api.github.com";
+    private static final String GRAPHQL_PATH = "/graphql";
+    private static final String BASE_BRANCH = "main";
+    private static final int PAGE_SIZE = 100;
+    private static final int PREFLIGHT_BATCH_SIZE = 100;
+    private static final String NOT_FOUND_ERROR = "NOT_FOUND";
+
+    private static final String REPOSITORY_REF_QUERY =
+            "query($owner: String!, $name: String!, $ref: String!) {"
+                    + " repository(owner: $owner, name: $name) { id ref(qualifiedName: $ref) { target { oid } } } }";
+    private static final String REPOSITORIES_QUERY =
+            "query($after: String) {"
+                    + " viewer { repositories(first: " + PAGE_SIZE + ", after: $after,"
+                    + " affiliations: [OWNER, COLLABORATOR, ORGANIZATION_MEMBER]) {"
+                    + " nodes { databaseId nameWithOwner updatedAt } pageInfo { hasNextPage endCursor } } } }";
+    private static final String UPDATED_REPOSITORIES_QUERY =
+            "query($after: String) {"
+                    + " viewer { repositories(first: " + PAGE_SIZE + ", after: $after,"
+                    + " affiliations: [OWNER, COLLABORATOR, ORGANIZATION_MEMBER],"
+                    + " orderBy: {field: UPDATED_AT, direction: DESC}) {"
+                    + " nodes { databaseId nameWithOwner updatedAt } pageInfo { hasNextPage endCursor } } } }";
+    private static final String BRANCH_NAMES_QUERY =
+            "query($owner: String!, $name: String!, $query: String!, $after: String) {"
+                    + " repository(owner: $owner, name: $name) {"
+                    + " refs(refPrefix: \"refs/heads/\", query: $query, first: " + PAGE_SIZE + ", after: $after) {"
+                    + " nodes { name } pageInfo { hasNextPage endCursor } } } }";
+    private static final String OPEN_PULL_REQUESTS_QUERY =
+            "query($owner: String!, $name: String!, $head: String!) {"
+                    + " repository(owner: $owner, name: $name) {"
+                    + " pullRequests(headRefName: $head, states: OPEN, first: 1) { totalCount } } }";
+    private static final String CREATE_REF_MUTATION =
+            "mutation($input: CreateRefInput!) { createRef(input: $input) { ref { name } } }";
+    private static final String CREATE_COMMIT_MUTATION =
+            "mutation($input: CreateCommitOnBranchInput!) { createCommitOnBranch(input: $input) { commit { oid } } }";
+    private static final String CREATE_PULL_REQUEST_MUTATION =
+            "mutation($input: CreatePullRequestInput!) { createPullRequest(input: $input) { pullRequest { url } } }";
+
+    private final String baseUrl;
+    // Node ids and branch heads learned earlier in the run, so later steps need no extra lookups
+    private final Map<String, String> repositoryIds = new ConcurrentHashMap<>();
+    private final Map<String, String> branchHeads = new ConcurrentHashMap<>();
+
+    public GitHubGraphQlApiClient(String token) {
+        this(token, DEFAULT_BASE_URL);
+    }
+
+    public GitHubGraphQlApiClient(String token, HttpTransport transport) {
+        this(token, DEFAULT_BASE_URL, transport);
+    }
+
+    public GitHubGraphQlApiClient(String token, String baseUrl) {
+        this(token, baseUrl, HttpTransport.defaultTransport());
+    }
+
+    /**
+     * Creates a client sharing connections and dispatcher limits with other clients on the same transport.
+     * @param token Personal access token.
+     * @param baseUrl Base URL without trailing slash.
+     * @param transport Shared HTTP transport.
+     */
+    public GitHubGraphQlApiClient(String token, String baseUrl, HttpTransport transport) {
+        super(token, transport);
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    protected String getBaseUrl() {
+        return baseUrl;
+    }
+
+    @Override
+    public List<Repository> listRepositories() throws IOException {
+        List<Repository> repositories = new ArrayList<>();
+        listRepositories(repositories::add);
+        return repositories;
+    }
+
+    @Override
+    public void listRepositories(Consumer<Repository> consumer) throws IOException {
+        String cursor = null;
+        do {
+            JsonObject variables = new JsonObject();
+            variables.addProperty("after", cursor);
+
+            JsonObject connection = query(REPOSITORIES_QUERY, variables)
+                    .getAsJsonObject("viewer")
+                    .getAsJsonObject("repositories");
+            for (JsonElement node : connection.getAsJsonArray("nodes")) {
+                consumer.accept(toRepository(node.getAsJsonObject()));
+            }
+            cursor = nextCursor(connection);
+        } while (cursor != null);
+    }
+
+    @Override
+    public void listRepositoriesUpdatedSince(Instant since, Consumer<Repository> consumer) throws IOException {
+        String cursor = null;
+        do {
+            JsonObject variables = new JsonObject();
+            variables.addProperty("after", cursor);
+
+            JsonObject connection = query(UPDATED_REPOSITORIES_QUERY, variables)
+                    .getAsJsonObject("viewer")
+                    .getAsJsonObject("repositories");
+            for (JsonElement node : connection.getAsJsonArray("nodes")) {
+                Repository repository = toRepository(node.getAsJsonObject());
+                if (!isUpdatedAfter(repository, since)) {
+                    return; // Ordered by updatedAt, everything after this is older
+                }
+                consumer.accept(repository);
+            }
+            cursor = nextCursor(connection);
+        } while (cursor != null);
+    }
+
+    @Override
+    public boolean createBranch(String repo, String branchName) throws IOException {
+        // A head from preflight is used once, so a long-lived client never branches off a main head from long ago
+        String baseSha = branchHeads.remove(branchKey(repo, BASE_BRANCH));
+        if (baseSha == null) {
+            baseSha = fetchBranchHead(repo, BASE_BRANCH); // Also records the repository id
+        }
+        if (baseSha == null) {
+            throw new IOException("Branch not found: " + BASE_BRANCH);
+        }
+
+        JsonObject input = new JsonObject();
+        input.addProperty("repositoryId", repositoryIds.get(repo));
+        input.addProperty("name", "refs/heads/" + branchName);
+        input.addProperty("oid", baseSha);
+
+        mutate(CREATE_REF_MUTATION, input);
+        branchHeads.put(branchKey(repo, branchName), baseSha);
+        return true;
+    }
+
+    @Override
+    public boolean commitFile(String repo, String branchName, String filePath, String content) throws IOException {
+        return commitFiles(repo, branchName, Collections.singletonList(new FileDetails(filePath, content)),
+                "Add " + filePath);
+    }
+
+    @Override
+    public boolean commitFiles(String repo, String branchName, List<FileDetails> files, String message)
+            throws IOException {
+        String headSha = branchHeads.get(branchKey(repo, branchName));
+        if (headSha == null) {
+            headSha = fetchBranchHead(repo, branchName);
+            if (headSha == null) {
+                throw new IOException("Branch not found: " + branchName);
+            }
+        }
+
+        JsonArray additions = new JsonArray();
+        for (FileDetails file : files) {
+            JsonObject addition = new JsonObject();
+            addition.addProperty("path", file.getFilePath());
+            addition.addProperty("contents", encode(file));
+            additions.add(addition);
+        }
+
+        JsonObject branch = new JsonObject();
+        branch.addProperty("repositoryNameWithOwner", repo);
+        branch.addProperty("branchName", branchName);
+
+        JsonObject commitMessage = new JsonObject();
+        commitMessage.addProperty("headline", message);
+
+        JsonObject fileChanges = new JsonObject();
+        fileChanges.add("additions", additions);
+
+        JsonObject input = new JsonObject();
+        input.add("branch", branch);
+        input.add("message", commitMessage);
+        input.addProperty("expectedHeadOid", headSha);
+        input.add("fileChanges", fileChanges);
+
+        String commitSha = mutate(CREATE_COMMIT_MUTATION, input)
+                .getAsJsonObject("createCommitOnBranch")
+                .getAsJsonObject("commit")
+                .get("oid")
+                .getAsString();
+        branchHeads.put(branchKey(repo, branchName), commitSha);
+        return true;
+    }
+
+    @Override
+    public List<FileDetails> filterChangedFiles(String repo, String branchName, List<FileDetails> files)
+            throws IOException {
+        if (files.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // One aliased object lookup per file, all in a single query; missing files come back as null
+        StringBuilder document = new StringBuilder("query($owner: String!, $name: String!");
+        StringBuilder selections = new StringBuilder();
+        JsonObject variables = repositoryVariables(repo);
+        for (int i = 0; i < files.size(); i++) {
+            document.append(", $e").append(i).append(": String!");
+            selections.append(" f").append(i).append(": object(expression: $e").append(i).append(") { oid }");
+            variables.addProperty("e" + i, branchName + ":" + files.get(i).getFilePath());
+        }
+        document.append(") { repository(owner: $owner, name: $name) {").append(selections).append(" } }");
+
+        JsonElement repository = query(document.toString(), variables).get("repository");
+        if (repository == null || repository.isJsonNull()) {
+            throw new IOException("Repository not found: " + repo);
+        }
+
+        List<FileDetails> changedFiles = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            JsonElement object = repository.getAsJsonObject().get("f" + i);
+            String remoteSha = object == null || object.isJsonNull()
+                    ? null
+                    : object.getAsJsonObject().get("oid").getAsString();
+            if (!gitBlobSha(files.get(i)).equals(remoteSha)) {
+                changedFiles.add(files.get(i));
+            }
+        }
+        return changedFiles;
+    }
+
+    @Override
+    public boolean createPullRequest(String repo, String branchName, String title, String body) throws IOException {
+        if (!repositoryIds.containsKey(repo)) {
+            fetchBranchHead(repo, BASE_BRANCH); // Also records the repository id
+        }
+
+        JsonObject input = new JsonObject();
+        input.addProperty("repositoryId", repositoryIds.get(repo));
+        input.addProperty("baseRefName", BASE_BRANCH);
+        input.addProperty("headRefName", branchName);
+        input.addProperty("title", title);
+        input.addProperty("body", body);
+
+        mutate(CREATE_PULL_REQUEST_MUTATION, input);
+        return true;
+    }
+
+    @Override
+    public boolean pullRequestExists(String repo, String branchName) throws IOException {
+        JsonObject variables = repositoryVariables(repo);
+        variables.addProperty("head", branchName);
+
+        JsonElement repository = query(OPEN_PULL_REQUESTS_QUERY, variables).get("repository");
+        if (repository == null || repository.isJsonNull()) {
+            throw new IOException("Repository not found: " + repo);
+        }
+        return repository.getAsJsonObject().getAsJsonObject("pullRequests").get("totalCount").getAsInt() > 0;
+    }
+
+    @Override
+    public boolean branchExists(String repo, String branchName) throws IOException {
+        return fetchBranchHead(repo, branchName) != null;
+    }
+
+    @Override
+    public String resolveUniqueBranchName(String repo, String baseBranchName) throws IOException {
+        List<String> branchNames = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonObject variables = repositoryVariables(repo);
+            variables.addProperty("query", baseBranchName);
+            variables.addProperty("after", cursor);
+
+            JsonObject refs = query(BRANCH_NAMES_QUERY, variables)
+                    .getAsJsonObject("repository")
+                    .getAsJsonObject("refs");
+            for (JsonElement node : refs.getAsJsonArray("nodes")) {
+                branchNames.add(node.getAsJsonObject().get("name").getAsString());
+            }
+            cursor = nextCursor(refs);
+        } while (cursor != null);
+
+        return BranchNameHelper.nextFreeBranchName(baseBranchName, branchNames);
+    }
+
+    /**
+     * Answers the questions a rollout asks about every repository before changing it: the base branch head,
+     * whether the target branch exists and which files already exist on the base branch.
+     * Up to 100 repositories are asked in one aliased query, so 1,000 repositories take ten requests.
+     * The repository ids and base branch heads found are kept, so createBranch needs no lookup of its own.
+     *
+     * @param repos      Repository names in the format "owner/repo".
+     * @param branchName The target branch.
+     * @param filePaths  Paths of the files the rollout will add or update.
+     * @return Results keyed by repository, in the order given; missing repositories are marked as not found.
+     * @throws IOException If a request fails or the response contains errors other than missing repositories.
+     */
+    public Map<String, RepositoryPreflight> preflight(List<String> repos, String branchName, List<String> filePaths)
+            throws IOException {
+        Map<String, RepositoryPreflight> results = new LinkedHashMap<>();
+        for (int from = 0; from < repos.size(); from += PREFLIGHT_BATCH_SIZE) {
+            List<String> batch = repos.subList(from, Math.min(repos.size(), from + PREFLIGHT_BATCH_SIZE));
+            preflightBatch(batch, branchName, filePaths, results);
+        }
+        return results;
+    }
+
+    private void preflightBatch(List<String> repos, String branchName, List<String> filePaths,
+                                Map<String, RepositoryPreflight> results) throws IOException {
+        // Branch and file lookups are the same for every repository, so they are declared once
+        StringBuilder document = new StringBuilder("query($base: String!, $branch: String!");
+        StringBuilder lookups = new StringBuilder(" id base: ref(qualifiedName: $base) { target { oid } }"
+                + " branch: ref(qualifiedName: $branch) { target { oid } }");
+        JsonObject variables = new JsonObject();
+        variables.addProperty("base", "refs/heads/" + BASE_BRANCH);
+        variables.addProperty("branch", "refs/heads/" + branchName);
+        for (int i = 0; i < filePaths.size(); i++) {
+            document.append(", $f").append(i).append(": String!");
+            lookups.append(" f").append(i).append(": object(expression: $f").append(i).append(") { oid }");
+            variables.addProperty("f" + i, BASE_BRANCH + ":" + filePaths.get(i));
+        }
+
+        StringBuilder selections = new StringBuilder();
+        for (int i = 0; i < repos.size(); i++) {
+            JsonObject repository = repositoryVariables(repos.get(i));
+            document.append(", $o").append(i).append(": String!, $n").append(i).append(": String!");
+            selections.append(" r").append(i).append(": repository(owner: $o").append(i)
+                    .append(", name: $n").append(i).append(") {").append(lookups).append(" }");
+            variables.add("o" + i, repository.get("owner"));
+            variables.add("n" + i, repository.get("name"));
+        }
+        document.append(") {").append(selections).append(" }");
+
+        JsonObject data = query(document.toString(), variables, true);
+        for (int i = 0; i < repos.size(); i++) {
+            String repo = repos.get(i);
+            JsonElement repository = data.get("r" + i);
+            if (repository == null || repository.isJsonNull()) {
+                results.put(repo, new RepositoryPreflight(repo, false, null, null, Collections.emptyMap()));
+                continue;
+            }
+
+            JsonObject fields = repository.getAsJsonObject();
+            String baseSha = oid(fields, "base");
+            String branchSha = oid(fields, "branch");
+            Map<String, String> fileShas = new HashMap<>();
+            for (int f = 0; f < filePaths.size(); f++) {
+                JsonElement object = fields.get("f" + f);
+                if (object != null && !object.isJsonNull()) {
+                    fileShas.put(filePaths.get(f), object.getAsJsonObject().get("oid").getAsString());
+                }
+            }
+
+            repositoryIds.put(repo, fields.get("id").getAsString());
+            if (baseSha != null) {
+                branchHeads.put(branchKey(repo, BASE_BRANCH), baseSha);
+            }
+            // The main head is where createBranch starts the new branch. The target branch head is not kept:
+            // it may move before the rollout commits to it, and a stale expectedHeadOid would fail the commit
+            results.put(repo, new RepositoryPreflight(repo, true, baseSha, branchSha, fileShas));
+        }
+    }
+
+    private static String oid(JsonObject repository, String refAlias) {
+        JsonElement ref = repository.get(refAlias);
+        if (ref == null || ref.isJsonNull()) {
+            return null;
+        }
+        return ref.getAsJsonObject().getAsJsonObject("target").get("oid").getAsString();
+    }
+
+    /**
+     * Looks up the head commit of a branch, recording the repository id on the way.
+     * @return The head commit SHA, or null if the branch does not exist.
+     */
+    private String fetchBranchHead(String repo, String branchName) throws IOException {
+        JsonObject variables = repositoryVariables(repo);
+        variables.addProperty("ref", "refs/heads/" + branchName);
+
+        JsonElement repository = query(REPOSITORY_REF_QUERY, variables).get("repository");
+        if (repository == null || repository.isJsonNull()) {
+            throw new IOException("Repository not found: " + repo);
+        }
+        repositoryIds.put(repo, repository.getAsJsonObject().get("id").getAsString());
+
+        JsonElement ref = repository.getAsJsonObject().get("ref");
+        if (ref == null || ref.isJsonNull()) {
+            return null;
+        }
+        return ref.getAsJsonObject().getAsJsonObject("target").get("oid").getAsString();
+    }
+
+    private JsonObject mutate(String mutation, JsonObject input) throws IOException {
+        JsonObject variables = new JsonObject();
+        variables.add("input", input);
+        return query(mutation, variables);
+    }
+
+    private JsonObject query(String document, JsonObject variables) throws IOException {
+        return query(document, variables, false);
+    }
+
+    /**
+     * Sends a GraphQL document and returns its "data" object.
+     * @param allowNotFound Whether objects that do not exist are left null in the data instead of failing.
+     * @throws IOException If the request fails or the response contains errors.
+     */
+    private JsonObject query(String document, JsonObject variables, boolean allowNotFound) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("query", document);
+        body.add("variables", variables);
+
+        ApiResponse response = post(GRAPHQL_PATH, body.toString());
+        if (!response.isSuccessful()) {
+            throw new IOException("GraphQL request failed. HTTP status: " + response.getStatusCode());
+        }
+
+        JsonObject json = response.getJsonElement().getAsJsonObject();
+        JsonArray errors = json.getAsJsonArray("errors");
+        if (errors != null) {
+            for (JsonElement error : errors) {
+                JsonElement type = error.getAsJsonObject().get("type");
+                if (!allowNotFound || type == null || !NOT_FOUND_ERROR.equals(type.getAsString())) {
+                    throw new IOException("GraphQL error: " + error.getAsJsonObject().get("message").getAsString());
+                }
+            }
+        }
+        JsonElement data = json.get("data");
+        if (data == null || data.isJsonNull()) {
+            if (allowNotFound && errors != null) {
+                return new JsonObject(); // Every object asked for was missing
+            }
+            throw new IOException("GraphQL response contains no data");
+        }
+        return data.getAsJsonObject();
+    }
+
+    private static JsonObject repositoryVariables(String repo) {
+        String[] ownerAndName = repo.split("/", 2);
+        if (ownerAndName.length != 2) {
+            throw new IllegalArgumentException("Repository must be in the format \"owner/repo\": " + repo);
+        }
+
+        JsonObject variables = new JsonObject();
+        variables.addProperty("owner", ownerAndName[0]);
+        variables.addProperty("name", ownerAndName[1]);
+        return variables;
+    }
+
+    private static Repository toRepository(JsonObject node) {
+        return new Repository(
+                node.get("databaseId").getAsLong(),
+                node.get("nameWithOwner").getAsString(),
+                node.get("updatedAt").getAsString());
+    }
+
+    private static String nextCursor(JsonObject connection) {
+        JsonObject pageInfo = connection.getAsJsonObject("pageInfo");
+        return pageInfo.get("hasNextPage").getAsBoolean() ? pageInfo.get("endCursor").getAsString() : null;
+    }
+
+    private static String encode(FileDetails file) throws IOException {
+        if (file.isBackedByPath()) {
+            // GraphQL needs the content inside the JSON document, so it cannot be streamed like a blob upload
+            return Base64.getEncoder().encodeToString(Files.readAllBytes(file.getSourcePath()));
+        }
+        return FileHelper.encodeContent(file.getFileContent());
+    }
+
+    private static String branchKey(String repo, String branchName) {
+        return repo + ":" + branchName;
+    }
+}
@@ -0,0 +1,39 @@
+package apiClients;
+
+import dataModels.TypedApiResponse;
+
+import java.io.IOException;
+
+/**
+ * An error response from the API. Keeps the status so callers can tell failures worth retrying from final ones.
+ */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final boolean rateLimited;
+
+    /**
+     * @param message Description of the failed operation.
+     * @param response The error response.
+     */
+    public HttpStatusException(String message, TypedApiResponse<?> response) {
+        super(message);
+        this.statusCode = response.getStatusCode();
+        // A 403 is a rate limit only when GitHub says when to come back; otherwise it is a missing permission
+        this.rateLimited = statusCode == 429 || (statusCode == 403
+                && (response.getHeader("Retry-After") != null || "0".equals(response.getHeader("X-RateLimit-Remaining"))));
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return true for server errors and rate limits, which may succeed later; false for errors such as
+     *         401, 403, 404 or 422 that a retry would only repeat.
+     */
+    public boolean isTransient() {
+        return statusCode >= 500 || rateLimited;
+    }
+}
@@ -0,0 +1,110 @@
+package apiClients;
+
+import helpers.ConfigHelper;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool, dispatcher and protocol settings shared by all API clients.
+ * Clients derive their own OkHttpClient from it with {@link OkHttpClient#newBuilder()}, which keeps
+ * the pool and dispatcher shared, so concurrent requests to the same host reuse a few warm connections
+ * (multiplexed over HTTP/2 where the server supports it) instead of each opening new ones.
+ */
+public class HttpTransport {
+    static final String MAX_REQUESTS_KEY = "HTTP_MAX_REQUESTS";
+    static final String MAX_REQUESTS_PER_HOST_KEY = "HTTP_MAX_REQUESTS_PER_HOST";
+    static final String MAX_IDLE_CONNECTIONS_KEY = "HTTP_MAX_IDLE_CONNECTIONS";
+    static final String KEEP_ALIVE_SECONDS_KEY = "HTTP_KEEP_ALIVE_SECONDS";
+    static final String PING_INTERVAL_SECONDS_KEY = "HTTP_PING_INTERVAL_SECONDS";
+    static final String HTTP2_KEY = "HTTP2_ENABLED";
+
+    private static final int DEFAULT_MAX_REQUESTS = 64;
+    private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 32;
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+    private static final int DEFAULT_KEEP_ALIVE_SECONDS = 300;
+    private static final int DEFAULT_PING_INTERVAL_SECONDS = 30;
+
+    private static HttpTransport defaultTransport;
+
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final int maxIdleConnections;
+    private final int keepAliveSeconds;
+    private final int pingIntervalSeconds;
+    private final boolean http2;
+    private OkHttpClient client;
+
+    /**
+     * Creates a transport with explicit limits. The underlying client is built on first use,
+     * so constructing a transport does not load OkHttp during startup.
+     * @param maxRequests Maximum number of requests in flight across all hosts.
+     * @param maxRequestsPerHost Maximum number of requests in flight to one host.
+     * @param maxIdleConnections Idle connections kept open for reuse.
+     * @param keepAliveSeconds How long an idle connection is kept open.
+     * @param pingIntervalSeconds HTTP/2 ping interval keeping connections alive; 0 disables pings.
+     * @param http2 Whether to negotiate HTTP/2 with servers that support it.
+     */
+    public HttpTransport(int maxRequests, int maxRequestsPerHost, int maxIdleConnections, int keepAliveSeconds,
+                         int pingIntervalSeconds, boolean http2) {
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.pingIntervalSeconds = pingIntervalSeconds;
+        this.http2 = http2;
+    }
+
+    /**
+     * Creates a transport from the HTTP_* settings in a properties file, using defaults for missing keys.
+     * @param configFile Path to the properties file.
+     * @return New transport.
+     */
+    public static HttpTransport fromConfig(String configFile) {
+        return new HttpTransport(
+                ConfigHelper.getIntProperty(configFile, MAX_REQUESTS_KEY, DEFAULT_MAX_REQUESTS),
+                ConfigHelper.getIntProperty(configFile, MAX_REQUESTS_PER_HOST_KEY, DEFAULT_MAX_REQUESTS_PER_HOST),
+                ConfigHelper.getIntProperty(configFile, MAX_IDLE_CONNECTIONS_KEY, DEFAULT_MAX_IDLE_CONNECTIONS),
+                ConfigHelper.getIntProperty(configFile, KEEP_ALIVE_SECONDS_KEY, DEFAULT_KEEP_ALIVE_SECONDS),
+                ConfigHelper.getIntProperty(configFile, PING_INTERVAL_SECONDS_KEY, DEFAULT_PING_INTERVAL_SECONDS),
+                Boolean.parseBoolean(ConfigHelper.getProperty(configFile, HTTP2_KEY, "true").trim()));
+    }
+
+    /**
+     * Returns the process-wide transport with default settings, used by clients constructed without one.
+     * @return Shared default transport.
+     */
+    public static synchronized HttpTransport defaultTransport() {
+        if (defaultTransport == null) {
+            defaultTransport = new HttpTransport(DEFAULT_MAX_REQUESTS, DEFAULT_MAX_REQUESTS_PER_HOST,
+                    DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_SECONDS, DEFAULT_PING_INTERVAL_SECONDS, true);
+        }
+        return defaultTransport;
+    }
+
+    /**
+     * @return Base client owning the shared pool and dispatcher; derive per-client instances with newBuilder().
+     */
+    public synchronized OkHttpClient client() {
+        if (client == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+            client = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                    .protocols(http2
+                            ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                            : Collections.singletonList(Protocol.HTTP_1_1))
+                    .pingInterval(pingIntervalSeconds, TimeUnit.SECONDS)
+                    .build();
+        }
+        return client;
+    }
+}
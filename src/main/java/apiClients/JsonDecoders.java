@@ -0,0 +1,315 @@
+package apiClients;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import dataModels.Repository;
+import interfaces.ResponseDecoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Streaming decoders for the GitHub payloads the clients read.
+ * Decoders are shared constants, which also lets {@link ResponseCache} key decoded entries by them.
+ */
+public final class JsonDecoders {
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+
+    /**
+     * Decodes a page of /user/repos into repositories, keeping only id, full_name and updated_at.
+     */
+    public static final ResponseDecoder<List<Repository>> REPOSITORIES = JsonDecoders::readRepositories;
+
+    /**
+     * Top-level "sha" of blobs, trees, commits and contents.
+     */
+    public static final ResponseDecoder<String> SHA = stringAt("sha");
+
+    /**
+     * Commit SHA of a git reference ("object.sha").
+     */
+    public static final ResponseDecoder<String> OBJECT_SHA = stringAt("object", "sha");
+
+    /**
+     * Tree SHA of a commit ("tree.sha").
+     */
+    public static final ResponseDecoder<String> TREE_SHA = stringAt("tree", "sha");
+
+    /**
+     * Branch names from a matching-refs listing, with the refs/heads/ prefix removed.
+     */
+    public static final ResponseDecoder<List<String>> BRANCH_NAMES = JsonDecoders::readBranchNames;
+
+    /**
+     * Blob SHAs of the files in a contents directory listing, keyed by file name.
+     * Subdirectories, submodules and symlinks are left out; a single-file response yields an empty map.
+     */
+    public static final ResponseDecoder<Map<String, String>> FILE_SHAS = JsonDecoders::readFileShas;
+
+    /**
+     * Whether a listing has at least one element; the elements themselves are skipped.
+     */
+    public static final ResponseDecoder<Boolean> NOT_EMPTY = JsonDecoders::readNotEmpty;
+
+    // Decoded values are persisted as the smallest payload their decoder reads back into the same value,
+    // under a name that stays stable between runs
+    private static final Map<String, ResponseDecoder<?>> PERSISTED_DECODERS = new HashMap<>();
+    private static final Map<ResponseDecoder<?>, String> PERSISTED_NAMES = new IdentityHashMap<>();
+    private static final Map<ResponseDecoder<?>, Function<Object, JsonElement>> PAYLOAD_WRITERS =
+            new IdentityHashMap<>();
+
+    static {
+        persisted("tree", ResponseDecoder.JSON_TREE, value -> (JsonElement) value);
+        persisted("status", ResponseDecoder.STATUS_ONLY, value -> JsonNull.INSTANCE);
+        persisted("sha", SHA, value -> payloadAt((String) value, "sha"));
+        persisted("object.sha", OBJECT_SHA, value -> payloadAt((String) value, "object", "sha"));
+        persisted("tree.sha", TREE_SHA, value -> payloadAt((String) value, "tree", "sha"));
+        persisted("repositories", REPOSITORIES, JsonDecoders::repositoriesPayload);
+        persisted("branch-names", BRANCH_NAMES, JsonDecoders::branchNamesPayload);
+        persisted("file-shas", FILE_SHAS, JsonDecoders::fileShasPayload);
+        persisted("not-empty", NOT_EMPTY, value -> notEmptyPayload((Boolean) value));
+    }
+
+    private JsonDecoders() {
+    }
+
+    /**
+     * @param decoder A decoder.
+     * @return The name its values are persisted under, or null if they are not persisted.
+     */
+    static String persistedName(ResponseDecoder<?> decoder) {
+        return PERSISTED_NAMES.get(decoder);
+    }
+
+    /**
+     * @param name A name returned by {@link #persistedName}.
+     * @return The decoder persisted under that name, or null if unknown.
+     */
+    static ResponseDecoder<?> persistedDecoder(String name) {
+        return PERSISTED_DECODERS.get(name);
+    }
+
+    /**
+     * Writes a decoded value back as a payload, so it can be stored and decoded again after a restart.
+     * @param decoder The decoder that produced the value; must have a {@link #persistedName}.
+     * @param value The decoded value, or null.
+     * @return Payload the decoder turns into an equal value.
+     */
+    static JsonElement toPayload(ResponseDecoder<?> decoder, Object value) {
+        return value == null ? JsonNull.INSTANCE : PAYLOAD_WRITERS.get(decoder).apply(value);
+    }
+
+    private static void persisted(String name, ResponseDecoder<?> decoder, Function<Object, JsonElement> writer) {
+        PERSISTED_DECODERS.put(name, decoder);
+        PERSISTED_NAMES.put(decoder, name);
+        PAYLOAD_WRITERS.put(decoder, writer);
+    }
+
+    /**
+     * Creates a decoder returning the string found at a path of nested object fields.
+     * Everything outside the path is skipped without being materialized.
+     * @param path Field names from the outermost object inwards.
+     * @return Decoder yielding the value, or null if the path is absent.
+     */
+    public static ResponseDecoder<String> stringAt(String... path) {
+        return reader -> readStringAt(reader, path, 0);
+    }
+
+    private static String readStringAt(JsonReader reader, String[] path, int depth) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        String result = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (result != null || !name.equals(path[depth])) {
+                reader.skipValue();
+            } else if (depth == path.length - 1) {
+                result = reader.peek() == JsonToken.NULL ? skipNull(reader) : reader.nextString();
+            } else {
+                result = readStringAt(reader, path, depth + 1);
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+
+    private static List<Repository> readRepositories(JsonReader reader) throws IOException {
+        List<Repository> repositories = new ArrayList<>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            long id = 0;
+            String fullName = null;
+            String updatedAt = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id":
+                        id = reader.nextLong();
+                        break;
+                    case "full_name":
+                        fullName = reader.nextString();
+                        break;
+                    case "updated_at":
+                        updatedAt = reader.peek() == JsonToken.NULL ? skipNull(reader) : reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue(); // owner, permissions, urls, ... are never read
+                }
+            }
+            reader.endObject();
+
+            repositories.add(new Repository(id, fullName, updatedAt));
+        }
+        reader.endArray();
+
+        return repositories;
+    }
+
+    private static List<String> readBranchNames(JsonReader reader) throws IOException {
+        List<String> branchNames = new ArrayList<>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String ref = readStringAt(reader, new String[]{"ref"}, 0);
+            if (ref != null && ref.startsWith(BRANCH_REF_PREFIX)) {
+                branchNames.add(ref.substring(BRANCH_REF_PREFIX.length()));
+            }
+        }
+        reader.endArray();
+
+        return branchNames;
+    }
+
+    private static Map<String, String> readFileShas(JsonReader reader) throws IOException {
+        Map<String, String> fileShas = new HashMap<>();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue(); // The path is a file, not a directory
+            return fileShas;
+        }
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = null;
+            String sha = null;
+            String type = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name":
+                        name = reader.nextString();
+                        break;
+                    case "sha":
+                        sha = reader.nextString();
+                        break;
+                    case "type":
+                        type = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if ("file".equals(type) && name != null && sha != null) {
+                fileShas.put(name, sha);
+            }
+        }
+        reader.endArray();
+
+        return fileShas;
+    }
+
+    private static Boolean readNotEmpty(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return false;
+        }
+
+        reader.beginArray();
+        boolean notEmpty = reader.hasNext();
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        reader.endArray();
+
+        return notEmpty;
+    }
+
+    private static JsonElement payloadAt(String value, String... path) {
+        JsonObject payload = new JsonObject();
+        JsonObject current = payload;
+        for (int i = 0; i < path.length - 1; i++) {
+            JsonObject nested = new JsonObject();
+            current.add(path[i], nested);
+            current = nested;
+        }
+        current.addProperty(path[path.length - 1], value);
+        return payload;
+    }
+
+    private static JsonElement notEmptyPayload(boolean notEmpty) {
+        JsonArray payload = new JsonArray();
+        if (notEmpty) {
+            payload.add(new JsonObject());
+        }
+        return payload;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsonElement repositoriesPayload(Object value) {
+        JsonArray payload = new JsonArray();
+        for (Repository repository : (List<Repository>) value) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("id", repository.getId());
+            entry.addProperty("full_name", repository.getFullName());
+            entry.addProperty("updated_at", repository.getUpdatedAt());
+            payload.add(entry);
+        }
+        return payload;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsonElement branchNamesPayload(Object value) {
+        JsonArray payload = new JsonArray();
+        for (String branchName : (List<String>) value) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("ref", BRANCH_REF_PREFIX + branchName);
+            payload.add(entry);
+        }
+        return payload;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsonElement fileShasPayload(Object value) {
+        JsonArray payload = new JsonArray();
+        for (Map.Entry<String, String> file : ((Map<String, String>) value).entrySet()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("type", "file");
+            entry.addProperty("name", file.getKey());
+            entry.addProperty("sha", file.getValue());
+            payload.add(entry);
+        }
+        return payload;
+    }
+
+    private static String skipNull(JsonReader reader) throws IOException {
+        reader.nextNull();
+        return null;
+    }
+}
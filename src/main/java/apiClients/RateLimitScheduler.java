@@ -0,0 +1,189 @@
+package apiClients;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Central gate for all API traffic of a client.
+ * Tracks the primary rate limit budget from X-RateLimit-* headers, spreads the remaining
+ * budget evenly over the reset window once it runs low, and transparently retries requests
+ * rejected by primary or secondary rate limits.
+ */
+public class RateLimitScheduler implements Interceptor {
+    private static final int DEFAULT_MAX_RETRIES = 8;
+    private static final long DEFAULT_SECONDARY_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    private static final long RESET_SAFETY_MARGIN_MILLIS = 1000;
+    // Requests run at full speed until less than this share of the hourly budget is left
+    private static final double PACING_THRESHOLD = 0.2;
+
+    private final int maxRetries;
+    private final long secondaryBackoffMillis;
+
+    private int limit = -1;
+    private int remaining = -1;
+    private long resetAtMillis;
+    private long nextSlotMillis;
+    private long blockedUntilMillis;
+
+    public RateLimitScheduler() {
+        this(DEFAULT_MAX_RETRIES, DEFAULT_SECONDARY_BACKOFF_MILLIS);
+    }
+
+    public RateLimitScheduler(int maxRetries, long secondaryBackoffMillis) {
+        this.maxRetries = maxRetries;
+        this.secondaryBackoffMillis = secondaryBackoffMillis;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        for (int attempt = 0; ; attempt++) {
+            awaitSlot();
+            Response response = chain.proceed(request);
+            updateBudget(response);
+
+            long retryDelay = retryDelayMillis(response, attempt);
+            if (retryDelay < 0 || attempt >= maxRetries) {
+                return response;
+            }
+
+            response.close();
+            blockUntil(now() + retryDelay); // Hold back every other request too, not just this one
+        }
+    }
+
+    /**
+     * Returns the remaining request budget as last reported by the server.
+     * @return Remaining requests, or -1 if no response has been seen yet.
+     */
+    public synchronized int getRemaining() {
+        return remaining;
+    }
+
+    private void awaitSlot() throws IOException {
+        long waitMillis;
+        synchronized (this) {
+            long now = now();
+            long slot = Math.max(now, blockedUntilMillis);
+
+            long interval = pacingIntervalMillis(now);
+            if (interval > 0) {
+                slot = Math.max(slot, nextSlotMillis);
+                nextSlotMillis = slot + interval;
+                if (remaining > 0) {
+                    remaining--; // Reserve budget for this request until the response reports the real value
+                }
+            }
+            waitMillis = slot - now;
+        }
+
+        if (waitMillis > 0) {
+            sleep(waitMillis);
+        }
+    }
+
+    /**
+     * Computes the spacing between requests that spends the remaining budget evenly until reset.
+     * @param now Current time in milliseconds.
+     * @return Interval in milliseconds, or 0 if no pacing is needed.
+     */
+    synchronized long pacingIntervalMillis(long now) {
+        if (limit <= 0 || remaining < 0 || resetAtMillis <= now) {
+            return 0;
+        }
+        if (remaining > limit * PACING_THRESHOLD) {
+            return 0;
+        }
+        return (resetAtMillis - now) / Math.max(remaining, 1);
+    }
+
+    synchronized void updateBudget(Response response) {
+        String remainingHeader = response.header("X-RateLimit-Remaining");
+        String limitHeader = response.header("X-RateLimit-Limit");
+        String resetHeader = response.header("X-RateLimit-Reset");
+
+        try {
+            if (limitHeader != null) {
+                limit = Integer.parseInt(limitHeader);
+            }
+            if (resetHeader != null) {
+                long resetAt = TimeUnit.SECONDS.toMillis(Long.parseLong(resetHeader));
+                if (resetAt != resetAtMillis) {
+                    resetAtMillis = resetAt;
+                    nextSlotMillis = 0; // New window, drop pacing carried over from the old one
+                }
+            }
+            if (remainingHeader != null) {
+                remaining = Integer.parseInt(remainingHeader);
+            }
+        } catch (NumberFormatException e) {
+            // Malformed headers leave the previous budget in place
+        }
+    }
+
+    /**
+     * Decides whether a response was rejected by a rate limit and how long to wait before retrying.
+     * @param response Response to inspect.
+     * @param attempt Zero-based attempt number.
+     * @return Delay in milliseconds, or -1 if the response should be returned as is.
+     */
+    long retryDelayMillis(Response response, int attempt) throws IOException {
+        int code = response.code();
+        if (code != 403 && code != 429) {
+            return -1;
+        }
+
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                // Fall through to the other signals
+            }
+        }
+
+        if ("0".equals(response.header("X-RateLimit-Remaining"))) {
+            long untilReset;
+            synchronized (this) {
+                untilReset = resetAtMillis - now();
+            }
+            return Math.max(untilReset, 0) + RESET_SAFETY_MARGIN_MILLIS;
+        }
+
+        if (code == 429 || isSecondaryRateLimit(response)) {
+            long backoff = secondaryBackoffMillis << Math.min(attempt, 10); // Exponential backoff
+            return Math.min(backoff, MAX_BACKOFF_MILLIS);
+        }
+
+        return -1; // A plain 403, e.g. missing permissions
+    }
+
+    private boolean isSecondaryRateLimit(Response response) throws IOException {
+        String message = response.peekBody(1024).string().toLowerCase();
+        return message.contains("secondary rate limit") || message.contains("abuse");
+    }
+
+    private synchronized void blockUntil(long timeMillis) {
+        blockedUntilMillis = Math.max(blockedUntilMillis, timeMillis);
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for rate limit");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package apiClients;
+
+import dataModels.TypedApiResponse;
+import interfaces.ResponseDecoder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived in-memory cache for GET requests that are repeated within a run, such as branch heads,
+ * matching refs and directory listings.
+ * <p>
+ * Concurrent requests for the same URL share one request in flight (single flight), so fan-out threads asking
+ * for the same fact wait for the first request instead of sending their own. Completed answers are reused until
+ * they expire, the least recently used entry is evicted once the cache is full, and the client's own writes
+ * invalidate the entries they affect. Unlike {@link ResponseCache}, a hit costs no request at all.
+ * Entries are keyed by URL and decoder, since the same URL may be decoded into different models.
+ */
+public class ReadCache {
+    private static final int DEFAULT_MAX_ENTRIES = 500;
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private final Map<CacheKey, CachedRead> entries;
+    private final long ttlNanos;
+
+    public ReadCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param maxEntries Entries kept before the least recently used one is evicted.
+     * @param ttlMillis How long a completed answer is reused.
+     */
+    public ReadCache(int maxEntries, long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        // Access-ordered map evicts the least recently used entry once the cache is full
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedRead> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached or in-flight answer for a URL, or starts the request if there is none.
+     * Only successful and 404 answers are kept; other statuses and failures are handed to the callers
+     * waiting for them and then forgotten, so the next call tries again.
+     * @param url The endpoint URL.
+     * @param decoder Decoder for the response body.
+     * @param request Sends the request on a miss.
+     * @return Future completed with the response; callers may cancel it without affecting other callers.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<TypedApiResponse<T>> get(String url, ResponseDecoder<T> decoder,
+                                                          Supplier<CompletableFuture<TypedApiResponse<T>>> request) {
+        CacheKey key = new CacheKey(url, decoder);
+        CachedRead entry;
+        synchronized (this) {
+            CachedRead cached = entries.get(key);
+            if (cached != null && System.nanoTime() - cached.createdAt < ttlNanos) {
+                return (CompletableFuture<TypedApiResponse<T>>) cached.response.copy();
+            }
+            entry = new CachedRead(new CompletableFuture<>());
+            entries.put(key, entry);
+        }
+
+        // Sent outside the lock; an entry invalidated meanwhile is simply not reused
+        CompletableFuture<TypedApiResponse<T>> response = (CompletableFuture<TypedApiResponse<T>>) entry.response;
+        CompletableFuture<TypedApiResponse<T>> sent;
+        try {
+            sent = request.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((result, error) -> {
+            if (error != null || !isCacheable(result)) {
+                remove(key, entry);
+            }
+            if (error != null) {
+                response.completeExceptionally(error);
+            } else {
+                response.complete(result);
+            }
+        });
+        return response.copy();
+    }
+
+    /**
+     * Drops every entry whose URL matches, including requests still in flight.
+     * @param urls Matches the URLs to drop.
+     */
+    public synchronized void invalidate(Predicate<String> urls) {
+        Iterator<CacheKey> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (urls.test(iterator.next().url)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return Number of entries, including requests in flight.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void remove(CacheKey key, CachedRead entry) {
+        entries.remove(key, entry);
+    }
+
+    private static boolean isCacheable(TypedApiResponse<?> response) {
+        return response.isSuccessful() || response.getStatusCode() == 404; // A missing branch or file is a fact too
+    }
+
+    private static class CachedRead {
+        private final CompletableFuture<? extends TypedApiResponse<?>> response;
+        private final long createdAt = System.nanoTime();
+
+        CachedRead(CompletableFuture<? extends TypedApiResponse<?>> response) {
+            this.response = response;
+        }
+    }
+
+    private static class CacheKey {
+        private final String url;
+        private final ResponseDecoder<?> decoder;
+
+        CacheKey(String url, ResponseDecoder<?> decoder) {
+            this.url = url;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return url.equals(other.url) && decoder == other.decoder; // Decoders are shared constants
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, System.identityHashCode(decoder));
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package apiClients;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Collects per-endpoint timings and traffic for every call of a client from OkHttp events.
+ * Endpoints are grouped by method and path template (e.g. "GET /repos/{owner}/{repo}/git/ref/heads/{branch}"),
+ * and each call is split into DNS, connect, TLS, time to first byte and body read phases.
+ * Results can be exported as Prometheus text or JSON.
+ */
+public class RequestMetrics implements EventListener.Factory {
+    static final String TOTAL = "total";
+    static final String DNS = "dns";
+    static final String CONNECT = "connect";
+    static final String TLS = "tls";
+    static final String FIRST_BYTE = "ttfb";
+    static final String BODY = "body";
+
+    private static final String[] PHASES = {TOTAL, DNS, CONNECT, TLS, FIRST_BYTE, BODY};
+    // Histogram bucket upper bounds in seconds, as in the Prometheus client defaults
+    private static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final Pattern SHA = Pattern.compile("[0-9a-f]{40}");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final String PREFIX = "api_client_";
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder connectionsAcquired = new LongAdder();
+    private final LongAdder connectionsReused = new LongAdder();
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener(endpointTemplate(call.request().method(), call.request().url()));
+    }
+
+    /**
+     * @return Share of calls that were served on an already open connection, between 0 and 1.
+     */
+    public double getConnectionReuseRatio() {
+        long acquired = connectionsAcquired.sum();
+        return acquired == 0 ? 0 : (double) connectionsReused.sum() / acquired;
+    }
+
+    /**
+     * Returns the number of completed or failed calls of one endpoint.
+     * @param endpoint Method and path template, as used in the exported labels.
+     * @return Number of calls, 0 if the endpoint was never called.
+     */
+    public long getRequestCount(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        return stats == null ? 0 : stats.requests.sum();
+    }
+
+    /**
+     * Writes all metrics to a file: JSON if the file name ends in .json, Prometheus text format otherwise.
+     * @param file Target file; parent directories are created.
+     * @throws IOException If the file cannot be written.
+     */
+    public void export(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().endsWith(".json")) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(toJson(), writer);
+            } else {
+                writePrometheus(writer);
+            }
+        }
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     * @param out Destination.
+     * @throws IOException If writing fails.
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        Map<String, EndpointStats> sorted = new TreeMap<>(endpoints);
+
+        out.append("# TYPE " + PREFIX + "request_duration_seconds histogram\n");
+        for (Map.Entry<String, EndpointStats> entry : sorted.entrySet()) {
+            for (String phase : PHASES) {
+                Histogram histogram = entry.getValue().histograms.get(phase);
+                if (histogram.count.sum() == 0) {
+                    continue;
+                }
+
+                String labels = "endpoint=\"" + escape(entry.getKey()) + "\",phase=\"" + phase + "\"";
+                long cumulative = 0;
+                for (int i = 0; i < BUCKETS.length; i++) {
+                    cumulative += histogram.buckets.get(i);
+                    out.append(String.format(Locale.ROOT, "%srequest_duration_seconds_bucket{%s,le=\"%s\"} %d\n",
+                            PREFIX, labels, BUCKETS[i], cumulative));
+                }
+                out.append(String.format(Locale.ROOT, "%srequest_duration_seconds_bucket{%s,le=\"+Inf\"} %d\n",
+                        PREFIX, labels, histogram.count.sum()));
+                out.append(String.format(Locale.ROOT, "%srequest_duration_seconds_sum{%s} %.6f\n",
+                        PREFIX, labels, histogram.sumNanos.sum() / 1e9));
+                out.append(String.format(Locale.ROOT, "%srequest_duration_seconds_count{%s} %d\n",
+                        PREFIX, labels, histogram.count.sum()));
+            }
+        }
+
+        writeCounter(out, sorted, "requests_total", stats -> stats.requests.sum());
+        writeCounter(out, sorted, "request_failures_total", stats -> stats.failures.sum());
+        writeCounter(out, sorted, "retries_total", stats -> stats.retries.sum());
+        writeCounter(out, sorted, "sent_bytes_total", stats -> stats.bytesSent.sum());
+        writeCounter(out, sorted, "received_bytes_total", stats -> stats.bytesReceived.sum());
+
+        out.append("# TYPE " + PREFIX + "connections_acquired_total counter\n");
+        out.append(PREFIX + "connections_acquired_total " + connectionsAcquired.sum() + "\n");
+        out.append("# TYPE " + PREFIX + "connections_reused_total counter\n");
+        out.append(PREFIX + "connections_reused_total " + connectionsReused.sum() + "\n");
+        out.append("# TYPE " + PREFIX + "connection_reuse_ratio gauge\n");
+        out.append(String.format(Locale.ROOT, "%sconnection_reuse_ratio %.4f\n", PREFIX, getConnectionReuseRatio()));
+    }
+
+    /**
+     * @return All metrics as a JSON object with "connections" and per-endpoint "endpoints" sections.
+     */
+    public JsonObject toJson() {
+        JsonObject connections = new JsonObject();
+        connections.addProperty("acquired", connectionsAcquired.sum());
+        connections.addProperty("reused", connectionsReused.sum());
+        connections.addProperty("reuseRatio", getConnectionReuseRatio());
+
+        JsonObject endpointsJson = new JsonObject();
+        for (Map.Entry<String, EndpointStats> entry : new TreeMap<>(endpoints).entrySet()) {
+            EndpointStats stats = entry.getValue();
+            JsonObject endpoint = new JsonObject();
+            endpoint.addProperty("requests", stats.requests.sum());
+            endpoint.addProperty("failures", stats.failures.sum());
+            endpoint.addProperty("retries", stats.retries.sum());
+            endpoint.addProperty("bytesSent", stats.bytesSent.sum());
+            endpoint.addProperty("bytesReceived", stats.bytesReceived.sum());
+
+            JsonObject latency = new JsonObject();
+            for (String phase : PHASES) {
+                Histogram histogram = stats.histograms.get(phase);
+                if (histogram.count.sum() > 0) {
+                    latency.add(phase, histogram.toJson());
+                }
+            }
+            endpoint.add("latency", latency);
+            endpointsJson.add(entry.getKey(), endpoint);
+        }
+
+        JsonObject json = new JsonObject();
+        json.add("connections", connections);
+        json.add("endpoints", endpointsJson);
+        return json;
+    }
+
+    /**
+     * Reduces a request to a low-cardinality endpoint label by replacing owners, repositories,
+     * branch names, file paths, SHAs and numbers with placeholders.
+     * @param method HTTP method.
+     * @param url Request URL; the query is ignored.
+     * @return Label such as "PATCH /repos/{owner}/{repo}/git/refs/heads/{branch}".
+     */
+    static String endpointTemplate(String method, HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        StringBuilder template = new StringBuilder(method).append(' ');
+
+        int start = 0;
+        if (segments.size() >= 3 && segments.get(0).equals("repos")) {
+            template.append("/repos/{owner}/{repo}");
+            start = 3;
+        }
+
+        for (int i = start; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.isEmpty()) {
+                continue;
+            }
+
+            template.append('/');
+            if (segment.equals("heads") && i + 1 < segments.size()) {
+                template.append("heads/{branch}"); // Branch names may contain slashes
+                break;
+            } else if (segment.equals("contents") && i + 1 < segments.size()) {
+                template.append("contents/{path}");
+                break;
+            } else if (SHA.matcher(segment).matches()) {
+                template.append("{sha}");
+            } else if (NUMBER.matcher(segment).matches()) {
+                template.append("{number}");
+            } else {
+                template.append(segment);
+            }
+        }
+
+        if (template.charAt(template.length() - 1) == ' ') {
+            template.append('/');
+        }
+        return template.toString();
+    }
+
+    private EndpointStats stats(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+    }
+
+    private void writeCounter(Appendable out, Map<String, EndpointStats> sorted, String name,
+                              ToLongFunction<EndpointStats> value) throws IOException {
+        out.append("# TYPE " + PREFIX + name + " counter\n");
+        for (Map.Entry<String, EndpointStats> entry : sorted.entrySet()) {
+            out.append(PREFIX + name + "{endpoint=\"" + escape(entry.getKey()) + "\"} "
+                    + value.applyAsLong(entry.getValue()) + "\n");
+        }
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static class EndpointStats {
+        private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        EndpointStats() {
+            for (String phase : PHASES) {
+                histograms.put(phase, new Histogram());
+            }
+        }
+
+        void record(String phase, long nanos) {
+            if (nanos >= 0) {
+                histograms.get(phase).record(nanos);
+            }
+        }
+    }
+
+    private static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        void record(long nanos) {
+            double seconds = nanos / 1e9;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets.incrementAndGet(i);
+                    break;
+                }
+            }
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        JsonObject toJson() {
+            long total = count.sum();
+
+            JsonObject bucketCounts = new JsonObject();
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets.get(i);
+                bucketCounts.addProperty(String.valueOf(BUCKETS[i]), cumulative);
+            }
+            bucketCounts.addProperty("+Inf", total);
+
+            JsonObject json = new JsonObject();
+            json.addProperty("count", total);
+            json.addProperty("sumSeconds", sumNanos.sum() / 1e9);
+            json.addProperty("meanMillis", total == 0 ? 0 : sumNanos.sum() / 1e6 / total);
+            json.add("buckets", bucketCounts);
+            return json;
+        }
+    }
+
+    /**
+     * Events of one call arrive sequentially, so the timestamps need no synchronization.
+     * A call retried by an interceptor sends its request several times; every attempt after the first is a retry.
+     */
+    private class CallListener extends EventListener {
+        private final EndpointStats stats;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long secureConnectStart;
+        private long requestStart;
+        private long responseHeadersEnd;
+        private boolean connecting;
+        private int attempts;
+
+        CallListener(String endpoint) {
+            this.stats = stats(endpoint);
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            stats.record(DNS, System.nanoTime() - dnsStart);
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStart = System.nanoTime();
+            secureConnectStart = 0;
+            connecting = true;
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureConnectStart = System.nanoTime();
+            stats.record(CONNECT, secureConnectStart - connectStart); // TCP part only
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            stats.record(TLS, System.nanoTime() - secureConnectStart);
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            if (secureConnectStart == 0) {
+                stats.record(CONNECT, System.nanoTime() - connectStart);
+            }
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionsAcquired.increment();
+            if (!connecting) {
+                connectionsReused.increment();
+            }
+            connecting = false;
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestStart = System.nanoTime();
+            if (attempts++ > 0) {
+                stats.retries.increment();
+            }
+        }
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            stats.bytesSent.add(request.headers().byteCount());
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            stats.bytesSent.add(byteCount);
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            stats.record(FIRST_BYTE, System.nanoTime() - requestStart);
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            responseHeadersEnd = System.nanoTime();
+            stats.bytesReceived.add(response.headers().byteCount());
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            stats.record(BODY, System.nanoTime() - responseHeadersEnd);
+            stats.bytesReceived.add(byteCount);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            stats.record(TOTAL, System.nanoTime() - callStart);
+            stats.requests.increment();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            stats.record(TOTAL, System.nanoTime() - callStart);
+            stats.requests.increment();
+            stats.failures.increment();
+        }
+    }
+}
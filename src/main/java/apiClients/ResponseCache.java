@@ -0,0 +1,205 @@
+package apiClients;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import dataModels.TypedApiResponse;
+import interfaces.ResponseDecoder;
+import okhttp3.Headers;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers successful GET responses together with their ETag / Last-Modified validators,
+ * so repeated reads can be revalidated with a conditional request instead of downloaded again.
+ * GitHub does not count 304 Not Modified answers against the rate limit.
+ * Entries are keyed by URL and decoder, since the same URL may be decoded into different models.
+ * Entries of the shared decoders are persisted between runs together with their validators.
+ */
+public class ResponseCache {
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    private static final String[] PERSISTED_HEADERS = {"ETag", "Last-Modified", "Link"};
+
+    private final Map<CacheKey, TypedApiResponse<?>> entries;
+
+    public ResponseCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ResponseCache(int maxEntries) {
+        // Access-ordered map evicts the least recently used entry once the cache is full
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, TypedApiResponse<?>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Adds If-None-Match / If-Modified-Since headers when a validated response is cached for the URL.
+     * @param url The endpoint URL.
+     * @param decoder Decoder the cached value was produced with.
+     * @param builder Request being built.
+     * @return The cached response to serve on 304, or null if nothing is cached.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> TypedApiResponse<T> addValidators(String url, ResponseDecoder<T> decoder,
+                                                              Request.Builder builder) {
+        TypedApiResponse<T> cached = (TypedApiResponse<T>) entries.get(new CacheKey(url, decoder));
+        if (cached == null) {
+            return null;
+        }
+
+        String etag = cached.getHeader("ETag");
+        String lastModified = cached.getHeader("Last-Modified");
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        return cached;
+    }
+
+    /**
+     * Stores a successful response if the server supplied a validator for it.
+     * @param url The endpoint URL.
+     * @param decoder Decoder the value was produced with.
+     * @param response Decoded response.
+     */
+    public synchronized <T> void put(String url, ResponseDecoder<T> decoder, TypedApiResponse<T> response) {
+        if (response.getHeader("ETag") != null || response.getHeader("Last-Modified") != null) {
+            entries.put(new CacheKey(url, decoder), response);
+        }
+    }
+
+    public synchronized void invalidate(String url) {
+        entries.keySet().removeIf(key -> key.url.equals(url));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Loads previously saved entries, so validators survive between runs.
+     * A missing or unreadable file leaves the cache empty.
+     * @param file Cache file path.
+     */
+    public synchronized void load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            for (Map.Entry<String, JsonElement> url : root.entrySet()) {
+                for (Map.Entry<String, JsonElement> entry : url.getValue().getAsJsonObject().entrySet()) {
+                    ResponseDecoder<?> decoder = JsonDecoders.persistedDecoder(entry.getKey());
+                    if (decoder == null) {
+                        continue; // Written by a version with other decoders
+                    }
+                    JsonObject stored = entry.getValue().getAsJsonObject();
+
+                    Headers.Builder headers = new Headers.Builder();
+                    for (Map.Entry<String, JsonElement> header : stored.getAsJsonObject("headers").entrySet()) {
+                        headers.add(header.getKey(), header.getValue().getAsString());
+                    }
+
+                    entries.put(new CacheKey(url.getKey(), decoder), new TypedApiResponse<>(
+                            decode(decoder, stored.get("body")), stored.get("status").getAsInt(), headers.build()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable response cache: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes all entries to disk, replacing the previous file.
+     * Typed values are stored as the minimal payload their decoder reads back, see {@link JsonDecoders}.
+     * @param file Cache file path.
+     * @throws IOException If the file cannot be written.
+     */
+    public synchronized void save(Path file) throws IOException {
+        JsonObject root = new JsonObject();
+        for (Map.Entry<CacheKey, TypedApiResponse<?>> entry : entries.entrySet()) {
+            String decoderName = JsonDecoders.persistedName(entry.getKey().decoder);
+            if (decoderName == null) {
+                continue; // Decoders created on the fly live only as long as the process
+            }
+            TypedApiResponse<?> response = entry.getValue();
+
+            JsonObject headers = new JsonObject();
+            for (String name : PERSISTED_HEADERS) {
+                if (response.getHeader(name) != null) {
+                    headers.addProperty(name, response.getHeader(name));
+                }
+            }
+
+            JsonObject stored = new JsonObject();
+            stored.addProperty("status", response.getStatusCode());
+            stored.add("headers", headers);
+            stored.add("body", JsonDecoders.toPayload(entry.getKey().decoder, response.getValue()));
+
+            String url = entry.getKey().url;
+            if (!root.has(url)) {
+                root.add(url, new JsonObject());
+            }
+            root.getAsJsonObject(url).add(decoderName, stored);
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(root.toString());
+        }
+    }
+
+    private static Object decode(ResponseDecoder<?> decoder, JsonElement body) throws IOException {
+        if (body == null || body.isJsonNull()) {
+            return null;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(body.toString()))) {
+            return decoder.decode(reader);
+        }
+    }
+
+    private static class CacheKey {
+        private final String url;
+        private final ResponseDecoder<?> decoder;
+
+        CacheKey(String url, ResponseDecoder<?> decoder) {
+            this.url = url;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return url.equals(other.url) && decoder == other.decoder; // Decoders are shared constants
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, System.identityHashCode(decoder));
+        }
+    }
+}
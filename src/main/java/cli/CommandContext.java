@@ -6,7 +6,7 @@ import java.util.Map;
 
 public class CommandContext {
     private final ApiClient apiClient;
-    private Map<Integer, String> repositoryMap; // Map of number-to-repo
+    private volatile Map<Integer, String> repositoryMap; // Map of number-to-repo, published across pipeline threads
 
     public CommandContext(ApiClient apiClient) {
         this.apiClient = apiClient;
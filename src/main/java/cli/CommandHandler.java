@@ -1,5 +1,10 @@
 package cli;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public abstract class CommandHandler {
     protected CommandHandler next;
 
@@ -13,5 +18,96 @@ public abstract class CommandHandler {
         }
     }
 
+    /**
+     * Runs this handler and the rest of the chain as a pipeline: every handler runs on its own thread and passes
+     * repositories to the next one through a bounded {@link HandlerPipe} as soon as they are available,
+     * so downstream work starts on the first repositories while upstream is still producing the rest.
+     * Returns once every handler has finished.
+     * @param context Context shared by all handlers.
+     * @param queueCapacity Maximum number of repositories waiting between two handlers.
+     */
+    public void handlePipelined(CommandContext context, int queueCapacity) {
+        List<CommandHandler> stages = new ArrayList<>();
+        for (CommandHandler handler = this; handler != null; handler = handler.next) {
+            stages.add(handler);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        HandlerPipe input = HandlerPipe.empty();
+        for (int i = 0; i < stages.size(); i++) {
+            CommandHandler stage = stages.get(i);
+            HandlerPipe stageInput = input;
+            HandlerPipe stageOutput = i == stages.size() - 1 ? HandlerPipe.discarding() : new HandlerPipe(queueCapacity);
+
+            Thread thread = new Thread(() -> runStage(stage, context, stageInput, stageOutput),
+                    "pipeline-" + stage.stageName());
+            thread.start();
+            threads.add(thread);
+            input = stageOutput;
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        }
+    }
+
     protected abstract boolean process(CommandContext context);
+
+    /**
+     * Pipelined counterpart of {@link #process(CommandContext)}: reads repositories from the previous handler
+     * and passes repositories on to the next one.
+     * <p>
+     * The default waits for the complete input, publishes it as the repository map and runs process(),
+     * forwarding the repositories unless process() handled the command. Handlers that can work on
+     * repositories one at a time override this to overlap with upstream.
+     * @param context Context shared by all handlers.
+     * @param input Repositories from the previous handler.
+     * @param output Repositories for the next handler; closed by the pipeline afterwards.
+     * @throws InterruptedException If the pipeline is interrupted.
+     */
+    protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+            throws InterruptedException {
+        List<String> repos = input.drain();
+        if (!repos.isEmpty()) {
+            Map<Integer, String> repoMap = new LinkedHashMap<>();
+            for (String repo : repos) {
+                repoMap.put(repoMap.size() + 1, repo);
+            }
+            context.setRepositoryMap(repoMap);
+        }
+
+        if (!process(context)) {
+            for (String repo : repos) {
+                output.put(repo);
+            }
+        }
+    }
+
+    private String stageName() {
+        String name = getClass().getSimpleName();
+        return name.isEmpty() ? getClass().getName() : name; // Anonymous handlers have no simple name
+    }
+
+    private static void runStage(CommandHandler stage, CommandContext context, HandlerPipe input, HandlerPipe output) {
+        try {
+            stage.processStream(context, input, output);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Error in " + stage.stageName() + ": " + e.getMessage());
+        } finally {
+            input.cancel(); // Never leave the previous handler blocked on a full pipe
+            try {
+                output.close();
+            } catch (InterruptedException e) {
+                output.cancel();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
@@ -3,19 +3,37 @@ package cli;
 import apiClients.ApiClient;
 import dataModels.FileDetails;
 import dataModels.MergeRequestParameters;
-import helpers.InputHelper;
+import helpers.FileHelper;
+import helpers.MergeRequestJournal;
+import helpers.MergeRequestJournal.Step;
 import interfaces.RepositorySelector;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class CreateMergeRequestHandler extends CommandHandler {
+    private static final String DEFAULT_BRANCH = "main";
+
     private final MergeRequestParameters parameters;
     private final RepositorySelector repositorySelector;
+    private final MergeRequestJournal journal;
 
     public CreateMergeRequestHandler(MergeRequestParameters parameters, RepositorySelector repositorySelector) {
+        this(parameters, repositorySelector, null);
+    }
+
+    /**
+     * @param parameters         What to commit and the pull request to open.
+     * @param repositorySelector Picks the repository.
+     * @param journal            Records completed steps so interrupted runs can resume, or null.
+     */
+    public CreateMergeRequestHandler(MergeRequestParameters parameters, RepositorySelector repositorySelector,
+                                     MergeRequestJournal journal) {
         this.parameters = parameters;
         this.repositorySelector = repositorySelector;
+        this.journal = journal;
     }
 
     @Override
@@ -32,32 +50,127 @@ public class CreateMergeRequestHandler extends CommandHandler {
             return false;
         }
 
+        return createMergeRequest(context.getApiClient(), repo);
+    }
+
+    /**
+     * Runs the branch, commit and pull request sequence for a single repository.
+     * Safe to call concurrently for different repositories.
+     * With a journal, every completed step is recorded and a run interrupted earlier resumes at its first
+     * incomplete step, on the branch it already created.
+     *
+     * @param apiClient The client to use.
+     * @param repo      The repository name in the format "owner/repo".
+     * @return true if the pull request was created or every file was already up to date, false otherwise.
+     */
+    public boolean createMergeRequest(ApiClient apiClient, String repo) {
         try {
-            ApiClient apiClient = context.getApiClient();
-            String branchName = generateUniqueBranchName(apiClient, repo, parameters.getBranchName());
+            String baseBranchName = parameters.getBranchName();
+            List<FileDetails> files = parameters.getFiles();
+            String fingerprint = journal != null ? fingerprint(files) : null;
+            MergeRequestJournal.Entry entry = journal != null ? journal.get(repo, baseBranchName) : null;
 
-            if (!createBranch(apiClient, repo, branchName)) {
-                return false;
+            if (entry != null && entry.hasCompleted(Step.PULL_REQUEST_CREATED) && fingerprint.equals(entry.getFingerprint())) {
+                System.out.println("Pull request from " + entry.getBranch() + " was already created in " + repo + ".");
+                return true;
             }
 
-            if (!commitFiles(apiClient, repo, branchName)) {
-                return false;
+            String branchName;
+            Step completed;
+            List<FileDetails> changedFiles;
+            boolean resumed = entry != null && !entry.hasCompleted(Step.PULL_REQUEST_CREATED);
+            if (resumed) {
+                branchName = entry.getBranch();
+                completed = entry.getStep();
+                System.out.println("Resuming interrupted merge request in " + repo + " on branch " + branchName + ".");
+                if (!fingerprint.equals(entry.getFingerprint())) {
+                    // The files changed since the interrupted run; keep the branch but commit again
+                    journal.branchReserved(repo, baseBranchName, branchName, fingerprint);
+                    completed = Step.BRANCH_RESERVED;
+                }
+
+                if (completed == Step.BRANCH_RESERVED && apiClient.branchExists(repo, branchName)) {
+                    journal.branchCreated(repo, baseBranchName); // Created just before the crash
+                    completed = Step.BRANCH_CREATED;
+                }
+                changedFiles = completed.compareTo(Step.FILES_COMMITTED) < 0
+                        ? apiClient.filterChangedFiles(repo, branchName, files)
+                        : files;
+            } else {
+                // Reruns are cheap: only reads happen when the content is already in place
+                changedFiles = apiClient.filterChangedFiles(repo, DEFAULT_BRANCH, files);
+                if (changedFiles.isEmpty()) {
+                    System.out.println("All files are up to date in " + repo + ". Nothing to commit.");
+                    return true;
+                }
+
+                branchName = generateUniqueBranchName(apiClient, repo, baseBranchName);
+
+                // The preferred branch exists, most likely from an earlier run; its pull request may have been closed
+                if (!branchName.equals(baseBranchName)
+                        && apiClient.filterChangedFiles(repo, baseBranchName, changedFiles).isEmpty()) {
+                    System.out.println("Changes are already on branch " + baseBranchName + ". Nothing to commit.");
+                    return openPullRequest(apiClient, repo, baseBranchName);
+                }
+
+                completed = Step.BRANCH_RESERVED;
+                if (journal != null) {
+                    journal.branchReserved(repo, baseBranchName, branchName, fingerprint);
+                }
+            }
+
+            if (completed.compareTo(Step.BRANCH_CREATED) < 0) {
+                if (!createBranch(apiClient, repo, branchName)) {
+                    return false;
+                }
+                if (journal != null) {
+                    journal.branchCreated(repo, baseBranchName);
+                }
+            }
+
+            if (completed.compareTo(Step.FILES_COMMITTED) < 0) {
+                if (!changedFiles.isEmpty() && !commitFiles(apiClient, repo, branchName, changedFiles)) {
+                    return false;
+                }
+                if (journal != null) {
+                    journal.filesCommitted(repo, baseBranchName, blobShas(files));
+                }
             }
 
-            return createPullRequest(apiClient, repo, branchName);
+            // The pull request may have been opened just before the crash; opening it again would fail
+            boolean opened = resumed
+                    ? openPullRequest(apiClient, repo, branchName)
+                    : createPullRequest(apiClient, repo, branchName);
+            if (!opened) {
+                return false;
+            }
+            if (journal != null) {
+                journal.pullRequestCreated(repo, baseBranchName);
+            }
+            return true;
         } catch (IOException e) {
             System.err.println("Error during merge request process: " + e.getMessage());
             return false;
         }
     }
 
+    private String fingerprint(List<FileDetails> files) throws IOException {
+        return MergeRequestJournal.fingerprint(blobShas(files), parameters.getPullRequestTitle());
+    }
+
+    private static Map<String, String> blobShas(List<FileDetails> files) throws IOException {
+        Map<String, String> shas = new LinkedHashMap<>();
+        for (FileDetails file : files) {
+            shas.put(file.getFilePath(), FileHelper.gitBlobSha(file));
+        }
+        return shas;
+    }
+
     private String generateUniqueBranchName(ApiClient apiClient, String repo, String baseBranchName) throws IOException {
-        String branchName = baseBranchName;
-        int counter = 1;
+        String branchName = apiClient.resolveUniqueBranchName(repo, baseBranchName);
 
-        while (apiClient.branchExists(repo, branchName)) {
-            branchName = baseBranchName + "-" + counter++;
-            System.out.println("Branch name already exists. Trying: " + branchName);
+        if (!branchName.equals(baseBranchName)) {
+            System.out.println("Branch name already exists. Using: " + branchName);
         }
 
         return branchName;
@@ -77,22 +190,28 @@ public class CreateMergeRequestHandler extends CommandHandler {
         return true;
     }
 
-    private boolean commitFiles(ApiClient apiClient, String repo, String branchName) {
+    private boolean commitFiles(ApiClient apiClient, String repo, String branchName, List<FileDetails> files) {
         System.out.println("Adding files to branch: " + branchName);
-        for (FileDetails file : parameters.getFiles()) {
-            try {
-                if (!apiClient.commitFile(repo, branchName, file.getFilePath(), file.getFileContent())) {
-                    System.err.println("Failed to commit file: " + file.getFilePath());
-                    return false;
-                }
-            } catch (IOException e) {
-                System.err.println("Error committing file " + file.getFilePath() + ": " + e.getMessage());
+        try {
+            if (!apiClient.commitFiles(repo, branchName, files, parameters.getPullRequestTitle())) {
+                System.err.println("Failed to commit " + files.size() + " file(s).");
                 return false;
             }
+        } catch (IOException e) {
+            System.err.println("Error committing files: " + e.getMessage());
+            return false;
         }
         return true;
     }
 
+    private boolean openPullRequest(ApiClient apiClient, String repo, String branchName) throws IOException {
+        if (apiClient.pullRequestExists(repo, branchName)) {
+            System.out.println("Pull request from " + branchName + " is already open in " + repo + ".");
+            return true;
+        }
+        return createPullRequest(apiClient, repo, branchName);
+    }
+
     private boolean createPullRequest(ApiClient apiClient, String repo, String branchName) {
         System.out.println("Creating pull request...");
         try {
@@ -0,0 +1,172 @@
+package cli;
+
+import apiClients.ApiClient;
+import dataModels.MergeRequestResult;
+import helpers.ExecutorHelper;
+import interfaces.RepositorySetSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Rolls the same merge request out to a set of repositories concurrently.
+ * The per-repository sequence is delegated to {@link CreateMergeRequestHandler}.
+ */
+public class FanOutMergeRequestHandler extends CommandHandler {
+    private final CreateMergeRequestHandler mergeRequestHandler;
+    private final RepositorySetSelector repositorySetSelector;
+    private final int maxConcurrency;
+    private final Predicate<String> selection;
+
+    public FanOutMergeRequestHandler(CreateMergeRequestHandler mergeRequestHandler,
+                                     RepositorySetSelector repositorySetSelector, int maxConcurrency) {
+        this(mergeRequestHandler, repositorySetSelector, maxConcurrency, null);
+    }
+
+    /**
+     * @param mergeRequestHandler   Runs the sequence for one repository.
+     * @param repositorySetSelector Asks which repositories to use, when no selection is given.
+     * @param maxConcurrency        Maximum number of repositories processed at the same time, at least 1.
+     * @param selection             Repositories to use, decided by name without asking, or null to ask.
+     *                              Required to start on repositories while they are still being listed.
+     */
+    public FanOutMergeRequestHandler(CreateMergeRequestHandler mergeRequestHandler,
+                                     RepositorySetSelector repositorySetSelector, int maxConcurrency,
+                                     Predicate<String> selection) {
+        this.mergeRequestHandler = mergeRequestHandler;
+        this.repositorySetSelector = repositorySetSelector;
+        this.maxConcurrency = Math.max(1, maxConcurrency); // 0 from the config would block every repository
+        this.selection = selection;
+    }
+
+    @Override
+    protected boolean process(CommandContext context) {
+        Map<Integer, String> repoMap = context.getRepositoryMap();
+
+        if (repoMap == null || repoMap.isEmpty()) {
+            System.err.println("No repositories available. Please list repositories first.");
+            return false;
+        }
+
+        List<String> repos = selection != null
+                ? repoMap.values().stream().filter(selection).collect(Collectors.toList())
+                : repositorySetSelector.selectRepositories(repoMap);
+        if (repos == null || repos.isEmpty()) {
+            return false;
+        }
+
+        System.out.println("Creating merge requests in " + repos.size() + " repositories...");
+        List<MergeRequestResult> results = createMergeRequests(context.getApiClient(), repos);
+        printReport(results);
+
+        return results.stream().allMatch(MergeRequestResult::isSuccessful);
+    }
+
+    /**
+     * Starts on each selected repository as soon as the previous handler passes it on, while listing continues.
+     * At most {@code maxConcurrency} merge requests are in flight; while all are busy no further repositories
+     * are taken, which in turn pauses the listing once the pipe between the two handlers is full.
+     */
+    @Override
+    protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+            throws InterruptedException {
+        if (selection == null) {
+            super.processStream(context, input, output); // Asking the user needs the complete list
+            return;
+        }
+
+        ApiClient apiClient = context.getApiClient();
+        Semaphore inFlight = new Semaphore(maxConcurrency);
+        ExecutorService executor = ExecutorHelper.newBoundedExecutor(maxConcurrency);
+        List<String> repos = new ArrayList<>();
+        List<Future<MergeRequestResult>> futures = new ArrayList<>();
+        try {
+            String repo;
+            while ((repo = input.take()) != null) {
+                if (!selection.test(repo)) {
+                    continue;
+                }
+
+                inFlight.acquire();
+                Callable<MergeRequestResult> task = mergeRequestTask(apiClient, repo);
+                repos.add(repo);
+                futures.add(executor.submit(() -> {
+                    try {
+                        return task.call();
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            if (repos.isEmpty()) {
+                System.out.println("No repositories match the selection.");
+                return;
+            }
+            printReport(awaitResults(repos, futures));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<MergeRequestResult> createMergeRequests(ApiClient apiClient, List<String> repos) {
+        ExecutorService executor = ExecutorHelper.newBoundedExecutor(maxConcurrency);
+        try {
+            List<Future<MergeRequestResult>> futures = new ArrayList<>();
+            for (String repo : repos) {
+                futures.add(executor.submit(mergeRequestTask(apiClient, repo)));
+            }
+            return awaitResults(repos, futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<MergeRequestResult> mergeRequestTask(ApiClient apiClient, String repo) {
+        return () -> {
+            long start = System.nanoTime();
+            boolean successful = mergeRequestHandler.createMergeRequest(apiClient, repo);
+            return new MergeRequestResult(repo, successful, (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+
+    private List<MergeRequestResult> awaitResults(List<String> repos, List<Future<MergeRequestResult>> futures) {
+        List<MergeRequestResult> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(awaitResult(repos.get(i), futures.get(i)));
+        }
+        return results;
+    }
+
+    private MergeRequestResult awaitResult(String repo, Future<MergeRequestResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new MergeRequestResult(repo, false, 0);
+        } catch (ExecutionException e) {
+            System.err.println("Error creating merge request in " + repo + ": " + e.getCause());
+            return new MergeRequestResult(repo, false, 0);
+        }
+    }
+
+    private void printReport(List<MergeRequestResult> results) {
+        long succeeded = results.stream().filter(MergeRequestResult::isSuccessful).count();
+
+        System.out.println();
+        System.out.println("Merge request results:");
+        for (MergeRequestResult result : results) {
+            System.out.println((result.isSuccessful() ? "  OK     " : "  FAILED ")
+                    + result.getRepository() + " (" + result.getDurationMillis() + " ms)");
+        }
+        System.out.println(succeeded + " succeeded, " + (results.size() - succeeded) + " failed.");
+    }
+}
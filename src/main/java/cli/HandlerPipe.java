@@ -0,0 +1,109 @@
+package cli;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of repository names between two handlers of a pipelined chain.
+ * <p>
+ * A full pipe blocks the producer, so a fast upstream (e.g. paging through repositories) waits for
+ * a slow downstream (e.g. creating merge requests) instead of buffering everything.
+ * Once the consumer is done it cancels the pipe, which drops further items and unblocks the producer.
+ */
+public class HandlerPipe {
+    private static final String END = new String("end of stream"); // Compared by identity
+    private static final long WAIT_MILLIS = 100;
+
+    private final BlockingQueue<String> queue;
+    private volatile boolean cancelled;
+    private volatile boolean ended;
+
+    /**
+     * @param capacity Maximum number of repositories waiting to be consumed.
+     */
+    public HandlerPipe(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    /**
+     * @return A pipe with no items, for the first handler of a chain.
+     */
+    public static HandlerPipe empty() {
+        HandlerPipe pipe = new HandlerPipe(1);
+        pipe.queue.add(END);
+        return pipe;
+    }
+
+    /**
+     * @return A pipe that drops everything, after the last handler of a chain.
+     */
+    public static HandlerPipe discarding() {
+        HandlerPipe pipe = new HandlerPipe(1);
+        pipe.cancel();
+        return pipe;
+    }
+
+    /**
+     * Hands a repository to the next handler, waiting while the pipe is full.
+     * @param repo Repository name in the format "owner/repo".
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void put(String repo) throws InterruptedException {
+        while (!cancelled && !queue.offer(repo, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            // Checking the flag between waits lets a cancelled consumer release the producer
+        }
+    }
+
+    /**
+     * Waits for the next repository.
+     * @return The repository name, or null once the producer has closed the pipe.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public String take() throws InterruptedException {
+        if (ended) {
+            return null;
+        }
+
+        String repo = queue.take();
+        if (repo == END) {
+            ended = true;
+            return null;
+        }
+        return repo;
+    }
+
+    /**
+     * Waits for every remaining repository.
+     * @return Repositories in the order they were produced.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public List<String> drain() throws InterruptedException {
+        List<String> repos = new ArrayList<>();
+        String repo;
+        while ((repo = take()) != null) {
+            repos.add(repo);
+        }
+        return repos;
+    }
+
+    /**
+     * Signals that no more repositories follow.
+     * @throws InterruptedException If interrupted while waiting for room in the pipe.
+     */
+    public void close() throws InterruptedException {
+        while (!cancelled && !queue.offer(END, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            // Same as put(): the end marker always fits once the consumer makes progress
+        }
+    }
+
+    /**
+     * Called by the consumer when it stops reading; pending and further items are dropped.
+     */
+    public void cancel() {
+        cancelled = true;
+        queue.clear();
+    }
+}
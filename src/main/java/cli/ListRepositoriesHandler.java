@@ -1,31 +1,91 @@
 package cli;
 
 import apiClients.ApiClient;
-import com.google.gson.JsonArray;
+import dataModels.Repository;
+import helpers.RepositoryIndex;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class ListRepositoriesHandler extends CommandHandler {
+    // Incremental refreshes cannot see deleted repositories, so the index is rebuilt once a day
+    private static final Duration FULL_SYNC_INTERVAL = Duration.ofHours(24);
+
+    private final Path indexFile;
+
+    public ListRepositoriesHandler() {
+        this(null);
+    }
+
+    /**
+     * Creates a handler that keeps the repository list in an on-disk index between runs.
+     * The cached list is shown right away while repositories updated since the last run are fetched.
+     * @param indexFile Index file, or null to always fetch the full list.
+     */
+    public ListRepositoriesHandler(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
     @Override
     protected boolean process(CommandContext context) {
+        listRepositories(context, repo -> { });
+        return false; // Allow the next handler in the chain to execute
+    }
+
+    @Override
+    protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output) {
+        // First handler of the chain: repositories are passed on as their pages arrive
+        listRepositories(context, repo -> {
+            try {
+                output.put(repo);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                output.cancel();
+            }
+        });
+    }
+
+    private void listRepositories(CommandContext context, Consumer<String> sink) {
+        RepositoryIndex index = indexFile == null ? null : loadIndex();
+
+        if (index == null || index.isFullSyncDue(FULL_SYNC_INTERVAL, System.currentTimeMillis())) {
+            listAllRepositories(context, sink);
+        } else {
+            listIndexedRepositories(context, index, sink);
+        }
+    }
+
+    private void listAllRepositories(CommandContext context, Consumer<String> sink) {
         System.out.println("Fetching repositories...");
         ApiClient apiClient = context.getApiClient();
         Map<Integer, String> repoMap = new HashMap<>(); // Map to store number-to-repo mapping
+        List<Repository> repositories = new ArrayList<>();
+        long listedAt = System.currentTimeMillis();
 
         try {
-            JsonArray repos = apiClient.listRepositories();
-            if (repos.size() == 0) {
-                System.out.println("No repositories found.");
-                return false;
-            }
+            // Print repositories and populate the map as pages arrive
+            apiClient.listRepositories(repository -> {
+                int number = repoMap.size() + 1; // Map numbers (1-based index) to repository names
+                String repoName = repository.getFullName();
+                repoMap.put(number, repoName);
+                repositories.add(repository);
+                System.out.println(number + ". " + repoName);
+                sink.accept(repoName);
+            });
 
-            // Print repositories and populate the map
-            for (int i = 0; i < repos.size(); i++) {
-                String repoName = repos.get(i).getAsJsonObject().get("full_name").getAsString();
-                repoMap.put(i + 1, repoName); // Map numbers (1-based index) to repository names
-                System.out.println((i + 1) + ". " + repoName);
+            if (repoMap.isEmpty()) {
+                System.out.println("No repositories found.");
+                return;
             }
 
             // Store the map in the context for use by other handlers
@@ -33,10 +93,75 @@ public class ListRepositoriesHandler extends CommandHandler {
 
         } catch (IOException e) {
             System.err.println("Error listing repositories: " + e.getMessage());
-            return false;
+            return;
         }
 
-        return false; // Allow the next handler in the chain to execute
+        if (indexFile != null) {
+            saveIndex(RepositoryIndex.of(repositories, listedAt));
+        }
     }
-}
 
+    private void listIndexedRepositories(CommandContext context, RepositoryIndex index, Consumer<String> sink) {
+        ApiClient apiClient = context.getApiClient();
+        Instant since = index.getNewestUpdatedAt() != null ? index.getNewestUpdatedAt() : Instant.EPOCH;
+
+        // The refresh request runs while the cached list is printed
+        CompletableFuture<List<Repository>> updates = CompletableFuture.supplyAsync(() -> {
+            List<Repository> updated = new ArrayList<>();
+            try {
+                apiClient.listRepositoriesUpdatedSince(since, updated::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return updated;
+        });
+
+        for (int i = 0; i < index.size(); i++) {
+            System.out.println((i + 1) + ". " + index.getName(i));
+        }
+
+        RepositoryIndex refreshed = index;
+        try {
+            refreshed = index.merge(updates.join());
+        } catch (CompletionException e) {
+            System.err.println("Error refreshing repositories, showing the cached list: " + e.getCause().getMessage());
+        }
+
+        // Renamed repositories keep their number; only new ones are printed again
+        for (int i = index.size(); i < refreshed.size(); i++) {
+            System.out.println((i + 1) + ". " + refreshed.getName(i));
+        }
+
+        if (refreshed.size() == 0) {
+            System.out.println("No repositories found.");
+            return;
+        }
+
+        if (refreshed != index) {
+            saveIndex(refreshed);
+        }
+        context.setRepositoryMap(refreshed.asRepositoryMap());
+
+        // Passed on after the refresh, so renamed repositories go downstream under their current name
+        for (int i = 0; i < refreshed.size(); i++) {
+            sink.accept(refreshed.getName(i));
+        }
+    }
+
+    private RepositoryIndex loadIndex() {
+        try {
+            return RepositoryIndex.load(indexFile);
+        } catch (IOException e) {
+            System.err.println("Error loading repository index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveIndex(RepositoryIndex index) {
+        try {
+            index.save(indexFile);
+        } catch (IOException e) {
+            System.err.println("Error saving repository index: " + e.getMessage());
+        }
+    }
+}
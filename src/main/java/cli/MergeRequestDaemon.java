@@ -0,0 +1,551 @@
+package cli;
+
+import apiClients.ApiClient;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dataModels.FileDetails;
+import dataModels.MergeRequestParameters;
+import dataModels.MergeRequestResult;
+import helpers.ExecutorHelper;
+import helpers.MergeRequestJournal;
+import helpers.RepositorySearchSelector;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Long-running mode that takes merge request jobs over a local HTTP endpoint.
+ * <p>
+ * One process keeps the API client with its warm connections, caches and repository map, so a job costs only
+ * its GitHub round trips instead of JVM startup, TLS handshakes and a fresh repository listing.
+ * Jobs are queued and their repositories processed concurrently, bounded by the configured concurrency.
+ * <pre>
+ * POST /jobs                  {"repository": "owner/repo" | "select": "globs|/regex/|all",
+ *                              "branch": "...", "title": "...", "body": "...",
+ *                              "files": [{"path": "...", "content": "..."} | {"path": "...", "source": "/local/file"}]}
+ *                             202 {"id": 1, "status": "QUEUED", ...}, or 409 while another job for the same
+ *                             branch in one of the repositories is queued or running
+ * GET  /jobs                  Recent jobs, newest last
+ * GET  /jobs/{id}             Status and per-repository results of one job
+ * POST /repositories/refresh  Lists the repositories again, e.g. after new ones were created
+ * </pre>
+ * The endpoint only listens on the loopback interface. Every request needs {@code Authorization: Bearer <secret>}
+ * with the secret from a file only the user can read. Requests from browsers (with an Origin header) and job
+ * submissions that are not {@code application/json} are rejected, so web pages cannot submit jobs.
+ * Jobs may only target repositories from the listed repository map, and {@code source} files must lie inside
+ * the configured source directory.
+ */
+public class MergeRequestDaemon {
+    private static final int MAX_RETAINED_JOBS = 1000;
+    private static final int SECRET_BYTES = 32;
+
+    private final ApiClient apiClient;
+    private final CommandHandler repositoryLister;
+    private final MergeRequestJournal journal;
+    private final byte[] secret;
+    private final Path sourceDirectory;
+    private final ExecutorService workers;
+    private final AtomicInteger jobSequence = new AtomicInteger();
+    private final Map<Integer, Job> jobs;
+    // "repo:branch" of every queued or running repository, so two jobs never work on the same branch at once
+    private final Set<String> inFlight = new HashSet<>();
+    private volatile Map<Integer, String> repositoryMap = Collections.emptyMap();
+    private HttpServer server;
+
+    /**
+     * @param apiClient        Client shared by every job.
+     * @param repositoryLister Lists the repositories into the context, for jobs that select repositories by name.
+     * @param journal          Records completed steps so interrupted jobs can resume, or null.
+     * @param maxConcurrency   Maximum number of repositories processed at the same time, across all jobs.
+     * @param secret           Bearer secret every request must carry, e.g. from {@link #loadOrCreateSecret}.
+     * @param sourceDirectory  Directory "source" files are read from, or null to only accept inline content.
+     */
+    public MergeRequestDaemon(ApiClient apiClient, CommandHandler repositoryLister, MergeRequestJournal journal,
+                              int maxConcurrency, String secret, Path sourceDirectory) {
+        this.apiClient = apiClient;
+        this.repositoryLister = repositoryLister;
+        this.journal = journal;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.sourceDirectory = sourceDirectory;
+        this.workers = ExecutorHelper.newBoundedExecutor(maxConcurrency);
+        // Finished jobs stay queryable for a while; the oldest are forgotten first
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Job> eldest) {
+                return size() > MAX_RETAINED_JOBS && eldest.getValue().isFinished();
+            }
+        };
+    }
+
+    /**
+     * Lists the repositories, which also opens the connections jobs reuse, and starts accepting jobs.
+     * @param port Local port to listen on, or 0 for any free port.
+     * @return The port the endpoint listens on.
+     * @throws IOException If the port cannot be bound.
+     */
+    public int start(int port) throws IOException {
+        refreshRepositories();
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/jobs", this::handleJobs);
+        server.createContext("/repositories/refresh", this::handleRefresh);
+        server.setExecutor(Executors.newFixedThreadPool(2)); // Requests only queue jobs or read their state
+        server.start();
+
+        int boundPort = server.getAddress().getPort();
+        System.out.println("Accepting merge request jobs on http://localhost:" + boundPort + "/jobs");
+        return boundPort;
+    }
+
+    /**
+     * Stops accepting jobs and waits for queued and running ones to finish.
+     * @param timeoutSeconds How long to wait for running jobs.
+     */
+    public void stop(long timeoutSeconds) {
+        if (server != null) {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdown();
+        }
+
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("Merge request jobs still running after " + timeoutSeconds + " seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the daemon secret, or creates a random one in a file readable only by the current user.
+     * Clients read the same file to authenticate.
+     * @param file Secret file.
+     * @return The secret.
+     * @throws IOException If the file cannot be read or created.
+     */
+    public static String loadOrCreateSecret(Path file) throws IOException {
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (!Files.exists(file)) {
+            byte[] random = new byte[SECRET_BYTES];
+            new SecureRandom().nextBytes(random);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : random) {
+                hex.append(String.format("%02x", b));
+            }
+
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            if (posix) {
+                Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            }
+            Files.writeString(file, hex.toString());
+        } else if (posix) {
+            // Another user must not be able to read it, whoever created it
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        }
+
+        String secret = Files.readString(file).trim();
+        if (secret.isEmpty()) {
+            throw new IOException("Daemon secret file is empty: " + file);
+        }
+        return secret;
+    }
+
+    private synchronized void refreshRepositories() {
+        CommandContext context = new CommandContext(apiClient);
+        repositoryLister.handle(context);
+        if (context.getRepositoryMap() != null) {
+            repositoryMap = context.getRepositoryMap();
+        }
+    }
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try {
+            if (!authorize(exchange)) {
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+
+            if (path.equals("/jobs") || path.equals("/jobs/")) {
+                if (method.equals("POST")) {
+                    if (!isJson(exchange)) {
+                        send(exchange, 415, error("Content-Type must be application/json"));
+                        return;
+                    }
+                    submitJob(exchange);
+                } else if (method.equals("GET")) {
+                    send(exchange, 200, listJobs());
+                } else {
+                    send(exchange, 405, error("Use GET or POST"));
+                }
+                return;
+            }
+
+            Job job = null;
+            try {
+                synchronized (jobs) {
+                    job = jobs.get(Integer.parseInt(path.substring("/jobs/".length())));
+                }
+            } catch (NumberFormatException e) {
+                // Answered as an unknown job below
+            }
+            if (job == null) {
+                send(exchange, 404, error("Unknown job"));
+            } else if (!method.equals("GET")) {
+                send(exchange, 405, error("Use GET"));
+            } else {
+                send(exchange, 200, job.toJson(true));
+            }
+        } catch (RuntimeException e) {
+            send(exchange, 500, error(String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleRefresh(HttpExchange exchange) throws IOException {
+        try {
+            if (!authorize(exchange)) {
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, error("Use POST"));
+                return;
+            }
+            refreshRepositories();
+            JsonObject body = new JsonObject();
+            body.addProperty("repositories", repositoryMap.size());
+            send(exchange, 200, body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Answers 403 for browser requests and 401 without the right secret.
+     * @return true if the request may proceed.
+     */
+    private boolean authorize(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            send(exchange, 403, error("Requests from web pages are not accepted"));
+            return false;
+        }
+
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        byte[] presented = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        if (!MessageDigest.isEqual(secret, presented)) { // Constant time
+            send(exchange, 401, error("Missing or wrong bearer secret"));
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isJson(HttpExchange exchange) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        return contentType != null
+                && contentType.split(";", 2)[0].trim().equalsIgnoreCase("application/json");
+    }
+
+    private void submitJob(HttpExchange exchange) throws IOException {
+        JsonObject request;
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            JsonElement parsed = JsonParser.parseReader(reader);
+            if (!parsed.isJsonObject()) {
+                send(exchange, 400, error("Expected a JSON object"));
+                return;
+            }
+            request = parsed.getAsJsonObject();
+        } catch (JsonParseException e) {
+            send(exchange, 400, error("Malformed JSON: " + e.getMessage()));
+            return;
+        }
+
+        Job job;
+        try {
+            job = new Job(jobSequence.incrementAndGet(), resolveRepositories(request), parseParameters(request));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+            return;
+        }
+
+        String conflict = reserve(job);
+        if (conflict != null) {
+            send(exchange, 409, error("A job for branch " + job.parameters.getBranchName() + " in " + conflict
+                    + " is still queued or running"));
+            return;
+        }
+
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        CreateMergeRequestHandler handler = new CreateMergeRequestHandler(job.parameters, null, journal);
+        for (String repo : job.repositories) {
+            workers.execute(() -> job.run(handler, apiClient, repo,
+                    () -> release(repo, job.parameters.getBranchName())));
+        }
+        send(exchange, 202, job.toJson(false));
+    }
+
+    /**
+     * Claims the branch of the job in all its repositories, or none of them.
+     * @return The first repository already claimed by another job, or null if the job may run.
+     */
+    private String reserve(Job job) {
+        String branch = job.parameters.getBranchName();
+        synchronized (inFlight) {
+            for (String repo : job.repositories) {
+                if (inFlight.contains(inFlightKey(repo, branch))) {
+                    return repo;
+                }
+            }
+            for (String repo : job.repositories) {
+                inFlight.add(inFlightKey(repo, branch));
+            }
+            return null;
+        }
+    }
+
+    private void release(String repo, String branch) {
+        synchronized (inFlight) {
+            inFlight.remove(inFlightKey(repo, branch));
+        }
+    }
+
+    private static String inFlightKey(String repo, String branch) {
+        return repo + ":" + branch;
+    }
+
+    private List<String> resolveRepositories(JsonObject request) {
+        String repository = string(request, "repository");
+        if (repository != null) {
+            if (!repositoryMap.containsValue(repository)) {
+                throw new IllegalArgumentException("Unknown repository: " + repository);
+            }
+            return Collections.singletonList(repository);
+        }
+
+        String selection = string(request, "select");
+        if (selection == null) {
+            throw new IllegalArgumentException("Either \"repository\" or \"select\" is required");
+        }
+
+        Predicate<String> predicate;
+        try {
+            predicate = RepositorySearchSelector.namePredicate(selection);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid selection: " + e.getDescription());
+        }
+
+        List<String> selected = new ArrayList<>();
+        for (String repo : repositoryMap.values()) {
+            if (predicate.test(repo)) {
+                selected.add(repo);
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No repositories match the selection");
+        }
+        return selected;
+    }
+
+    private MergeRequestParameters parseParameters(JsonObject request) {
+        String branch = string(request, "branch");
+        String title = string(request, "title");
+        if (branch == null || title == null) {
+            throw new IllegalArgumentException("\"branch\" and \"title\" are required");
+        }
+        String body = string(request, "body");
+
+        JsonElement filesElement = request.get("files");
+        if (filesElement == null || !filesElement.isJsonArray() || filesElement.getAsJsonArray().size() == 0) {
+            throw new IllegalArgumentException("\"files\" must be a non-empty array");
+        }
+
+        List<FileDetails> files = new ArrayList<>();
+        for (JsonElement element : filesElement.getAsJsonArray()) {
+            if (!element.isJsonObject()) {
+                throw new IllegalArgumentException("Every file needs a \"path\" and a \"content\" or \"source\"");
+            }
+            JsonObject file = element.getAsJsonObject();
+            String path = string(file, "path");
+            String content = string(file, "content");
+            String source = string(file, "source");
+            if (path == null || (content == null) == (source == null)) {
+                throw new IllegalArgumentException("Every file needs a \"path\" and a \"content\" or \"source\"");
+            }
+            // Large or binary files are read from disk while they are uploaded
+            files.add(source != null ? FileDetails.fromPath(path, resolveSource(source)) : new FileDetails(path, content));
+        }
+
+        return new MergeRequestParameters(branch, files, title, body != null ? body : "");
+    }
+
+    /**
+     * Resolves a "source" path inside the source directory, following symbolic links, so a job cannot read
+     * any other file of the user.
+     */
+    private Path resolveSource(String source) {
+        if (sourceDirectory == null) {
+            throw new IllegalArgumentException("\"source\" files are disabled; set DAEMON_SOURCE_DIR to enable them");
+        }
+
+        try {
+            Path root = sourceDirectory.toRealPath();
+            Path file = root.resolve(source).toRealPath();
+            if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+                throw new IllegalArgumentException("Source is not a file inside the source directory: " + source);
+            }
+            return file;
+        } catch (IOException | InvalidPathException e) {
+            throw new IllegalArgumentException("Source is not a file inside the source directory: " + source);
+        }
+    }
+
+    private JsonObject listJobs() {
+        JsonArray list = new JsonArray();
+        synchronized (jobs) {
+            for (Job job : jobs.values()) {
+                list.add(job.toJson(false));
+            }
+        }
+        JsonObject body = new JsonObject();
+        body.add("jobs", list);
+        return body;
+    }
+
+    private static String string(JsonObject object, String key) {
+        JsonElement value = object.get(key);
+        return value == null || !value.isJsonPrimitive() ? null : value.getAsString();
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject body = new JsonObject();
+        body.addProperty("error", message);
+        return body;
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, JsonObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    private static class Job {
+        private final int id;
+        private final List<String> repositories;
+        private final MergeRequestParameters parameters;
+        private final Map<String, MergeRequestResult> results = new LinkedHashMap<>();
+        private int started;
+
+        Job(int id, List<String> repositories, MergeRequestParameters parameters) {
+            this.id = id;
+            this.repositories = repositories;
+            this.parameters = parameters;
+        }
+
+        /**
+         * @param release Frees the repository and branch for other jobs, called before the result is visible.
+         */
+        void run(CreateMergeRequestHandler handler, ApiClient apiClient, String repo, Runnable release) {
+            synchronized (this) {
+                started++;
+            }
+
+            long start = System.nanoTime();
+            boolean successful;
+            try {
+                successful = handler.createMergeRequest(apiClient, repo);
+            } catch (RuntimeException e) {
+                System.err.println("Error in job " + id + " for " + repo + ": " + e);
+                successful = false;
+            } finally {
+                release.run();
+            }
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            synchronized (this) {
+                results.put(repo, new MergeRequestResult(repo, successful, durationMillis));
+            }
+        }
+
+        synchronized boolean isFinished() {
+            return results.size() == repositories.size();
+        }
+
+        synchronized Status getStatus() {
+            if (started == 0) {
+                return Status.QUEUED;
+            }
+            if (!isFinished()) {
+                return Status.RUNNING;
+            }
+            return results.values().stream().allMatch(MergeRequestResult::isSuccessful)
+                    ? Status.SUCCEEDED
+                    : Status.FAILED;
+        }
+
+        synchronized JsonObject toJson(boolean withResults) {
+            JsonObject json = new JsonObject();
+            json.addProperty("id", id);
+            json.addProperty("status", getStatus().name());
+            json.addProperty("branch", parameters.getBranchName());
+            json.addProperty("repositories", repositories.size());
+            json.addProperty("completed", results.size());
+
+            if (withResults) {
+                JsonArray list = new JsonArray();
+                for (String repo : repositories) {
+                    MergeRequestResult result = results.get(repo);
+                    JsonObject entry = new JsonObject();
+                    entry.addProperty("repository", repo);
+                    entry.addProperty("status", result == null ? "PENDING" : result.isSuccessful() ? "OK" : "FAILED");
+                    if (result != null) {
+                        entry.addProperty("durationMillis", result.getDurationMillis());
+                    }
+                    list.add(entry);
+                }
+                json.add("results", list);
+            }
+            return json;
+        }
+    }
+}
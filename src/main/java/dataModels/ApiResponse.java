@@ -1,14 +1,21 @@
 package dataModels;
 
 import com.google.gson.JsonElement;
+import okhttp3.Headers;
 
 public class ApiResponse {
     private final JsonElement jsonElement;
     private final int statusCode;
+    private final Headers headers;
 
     public ApiResponse(JsonElement jsonElement, int statusCode) {
+        this(jsonElement, statusCode, Headers.of());
+    }
+
+    public ApiResponse(JsonElement jsonElement, int statusCode, Headers headers) {
         this.jsonElement = jsonElement;
         this.statusCode = statusCode;
+        this.headers = headers;
     }
 
     public JsonElement getJsonElement() {
@@ -19,6 +26,10 @@ public class ApiResponse {
         return statusCode;
     }
 
+    public String getHeader(String name) {
+        return headers.get(name); // Header lookup is case-insensitive
+    }
+
     public boolean isSuccessful() {
         return statusCode >= 200 && statusCode < 300;
     }
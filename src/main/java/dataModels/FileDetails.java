@@ -1,20 +1,49 @@
 package dataModels;
 
+import java.nio.file.Path;
+
 public class FileDetails {
     private final String filePath;
     private final String fileContent;
+    private final Path sourcePath;
 
     public FileDetails(String filePath, String fileContent) {
+        this(filePath, fileContent, null);
+    }
+
+    private FileDetails(String filePath, String fileContent, Path sourcePath) {
         this.filePath = filePath;
         this.fileContent = fileContent;
+        this.sourcePath = sourcePath;
+    }
+
+    /**
+     * Creates file details whose content is streamed from a local file when uploaded,
+     * instead of being held in memory. Works for binary files of any size.
+     * @param filePath Path of the file in the repository.
+     * @param sourcePath Local file to read the content from.
+     * @return File details backed by the local file.
+     */
+    public static FileDetails fromPath(String filePath, Path sourcePath) {
+        return new FileDetails(filePath, null, sourcePath);
     }
 
     public String getFilePath() {
         return filePath;
     }
 
+    /**
+     * @return In-memory text content, or null if the content is backed by {@link #getSourcePath()}.
+     */
     public String getFileContent() {
         return fileContent;
     }
-}
 
+    public Path getSourcePath() {
+        return sourcePath;
+    }
+
+    public boolean isBackedByPath() {
+        return sourcePath != null;
+    }
+}
@@ -0,0 +1,25 @@
+package dataModels;
+
+public class MergeRequestResult {
+    private final String repository;
+    private final boolean successful;
+    private final long durationMillis;
+
+    public MergeRequestResult(String repository, boolean successful, long durationMillis) {
+        this.repository = repository;
+        this.successful = successful;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
@@ -0,0 +1,25 @@
+package dataModels;
+
+public class Repository {
+    private final long id;
+    private final String fullName;
+    private final String updatedAt;
+
+    public Repository(long id, String fullName, String updatedAt) {
+        this.id = id;
+        this.fullName = fullName;
+        this.updatedAt = updatedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,62 @@
+package dataModels;
+
+import java.util.Map;
+
+/**
+ * What a rollout needs to know about one repository before changing it.
+ */
+public class RepositoryPreflight {
+    private final String repository;
+    private final boolean found;
+    private final String baseBranchSha;
+    private final String branchSha;
+    private final Map<String, String> fileShas;
+
+    /**
+     * @param repository    The repository name in the format "owner/repo".
+     * @param found         false if the repository does not exist or is not accessible.
+     * @param baseBranchSha Head commit of the base branch, or null if it does not exist.
+     * @param branchSha     Head commit of the target branch, or null if it does not exist.
+     * @param fileShas      Blob SHAs of the files that exist on the base branch, keyed by path.
+     */
+    public RepositoryPreflight(String repository, boolean found, String baseBranchSha, String branchSha,
+                               Map<String, String> fileShas) {
+        this.repository = repository;
+        this.found = found;
+        this.baseBranchSha = baseBranchSha;
+        this.branchSha = branchSha;
+        this.fileShas = fileShas;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public String getBaseBranchSha() {
+        return baseBranchSha;
+    }
+
+    public boolean branchExists() {
+        return branchSha != null;
+    }
+
+    public String getBranchSha() {
+        return branchSha;
+    }
+
+    public boolean fileExists(String filePath) {
+        return fileShas.containsKey(filePath);
+    }
+
+    /**
+     * @param filePath Path of the file in the repository.
+     * @return The blob SHA of the file on the base branch, or null if it does not exist there.
+     */
+    public String getFileSha(String filePath) {
+        return fileShas.get(filePath);
+    }
+}
@@ -0,0 +1,35 @@
+package dataModels;
+
+import okhttp3.Headers;
+
+public class TypedApiResponse<T> {
+    private final T value;
+    private final int statusCode;
+    private final Headers headers;
+
+    public TypedApiResponse(T value, int statusCode, Headers headers) {
+        this.value = value;
+        this.statusCode = statusCode;
+        this.headers = headers;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name); // Header lookup is case-insensitive
+    }
+
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+}
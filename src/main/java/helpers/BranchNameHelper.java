@@ -0,0 +1,27 @@
+package helpers;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public class BranchNameHelper {
+    /**
+     * Picks the first free name out of base, base-1, base-2, ... given the branches that already exist.
+     * @param baseBranchName Preferred branch name.
+     * @param existingBranchNames Names of existing branches (without the refs/heads/ prefix).
+     * @return A branch name not contained in the existing names.
+     */
+    public static String nextFreeBranchName(String baseBranchName, Collection<String> existingBranchNames) {
+        Set<String> taken = new HashSet<>(existingBranchNames);
+        if (!taken.contains(baseBranchName)) {
+            return baseBranchName;
+        }
+
+        // At most taken.size() suffixes can be in use, so this finishes without further requests
+        int counter = 1;
+        while (taken.contains(baseBranchName + "-" + counter)) {
+            counter++;
+        }
+        return baseBranchName + "-" + counter;
+    }
+}
@@ -15,5 +15,28 @@ public class ConfigHelper {
             return null;
         }
     }
-}
 
+    public static String getProperty(String filePath, String key, String defaultValue) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new FileInputStream(filePath));
+            return properties.getProperty(key, defaultValue);
+        } catch (IOException e) {
+            return defaultValue;
+        }
+    }
+
+    public static int getIntProperty(String filePath, String key, int defaultValue) {
+        String value = getProperty(filePath, key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package helpers;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class ExecutorHelper {
+    /**
+     * Creates an executor that runs at most {@code maxConcurrency} tasks at the same time.
+     * On runtimes with virtual threads (Java 21+) every task gets its own virtual thread and
+     * a semaphore enforces the bound; older runtimes fall back to a fixed platform thread pool.
+     * @param maxConcurrency Maximum number of tasks in progress; values below 1 are treated as 1.
+     * @return A new executor; the caller is responsible for shutting it down.
+     */
+    public static ExecutorService newBoundedExecutor(int maxConcurrency) {
+        maxConcurrency = Math.max(1, maxConcurrency);
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return new BoundedExecutor((ExecutorService) factory.invoke(null), maxConcurrency);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maxConcurrency);
+        }
+    }
+
+    private static class BoundedExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        BoundedExecutor(ExecutorService delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            delegate.execute(() -> {
+                permits.acquireUninterruptibly(); // Parking a virtual thread is cheap
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
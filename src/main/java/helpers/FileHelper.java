@@ -1,10 +1,136 @@
 package helpers;
 
+import dataModels.FileDetails;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 
 public class FileHelper {
+    private static final long MAP_WINDOW_SIZE = 16L * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     public static String encodeContent(String content) {
-        return Base64.getEncoder().encodeToString(content.getBytes());
+        return Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the length of the Base64 encoding of the given number of bytes (with padding).
+     * @param size Number of raw bytes.
+     * @return Number of Base64 characters.
+     */
+    public static long encodedLength(long size) {
+        return 4 * ((size + 2) / 3);
+    }
+
+    /**
+     * Base64-encodes a file into the output stream while reading it through memory-mapped windows,
+     * so neither the raw nor the encoded content is ever held in memory as a whole.
+     * The output stream is flushed but not closed.
+     * @param source File to encode.
+     * @param out Destination of the Base64 characters.
+     * @throws IOException If the file cannot be read or the stream cannot be written.
+     */
+    public static void encodeTo(Path source, OutputStream out) throws IOException {
+        // Closing the encoder writes the final padding; the shield keeps the caller's stream open
+        try (OutputStream encoder = Base64.getEncoder().wrap(new NonClosingOutputStream(out));
+             FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long size = channel.size();
+
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_WINDOW_SIZE, size - position));
+                while (window.hasRemaining()) {
+                    int length = Math.min(buffer.length, window.remaining());
+                    window.get(buffer, 0, length);
+                    encoder.write(buffer, 0, length);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Computes the git blob object id of text content, as git and GitHub report it for a file.
+     * @param content File content, stored as UTF-8.
+     * @return Lowercase hex SHA-1 of "blob &lt;size&gt;\0" followed by the content.
+     */
+    public static String gitBlobSha(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        MessageDigest digest = blobDigest(bytes.length);
+        digest.update(bytes);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Computes the git blob object id of a file to commit, from its local source or in-memory content.
+     * @param file File details.
+     * @return Lowercase hex blob SHA, comparable with the SHAs GitHub reports.
+     * @throws IOException If the source file cannot be read.
+     */
+    public static String gitBlobSha(FileDetails file) throws IOException {
+        return file.isBackedByPath() ? gitBlobSha(file.getSourcePath()) : gitBlobSha(file.getFileContent());
     }
-}
 
+    /**
+     * Computes the git blob object id of a local file, reading it through memory-mapped windows.
+     * @param source File to hash.
+     * @return Lowercase hex SHA-1 of "blob &lt;size&gt;\0" followed by the file content.
+     * @throws IOException If the file cannot be read.
+     */
+    public static String gitBlobSha(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MessageDigest digest = blobDigest(size);
+
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_WINDOW_SIZE, size - position)));
+            }
+            return toHex(digest.digest());
+        }
+    }
+
+    private static MessageDigest blobDigest(long size) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(("blob " + size + "\0").getBytes(StandardCharsets.US_ASCII));
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e); // Required on every Java platform
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len); // FilterOutputStream would write byte by byte
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -1,31 +1,37 @@
 package helpers;
 
-import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 
 public class InputHelper {
-    private static final Scanner scanner = new Scanner(System.in);
-
     public static String getUserInput() {
-        return scanner.nextLine();
+        return ScannerHolder.SCANNER.nextLine();
     }
 
-    public static String matchRepositoryIndexToName(Map<Integer, String> repoMap){
-        System.out.println("Enter the number corresponding to the repository:");
+    /**
+     * Adds a single number ("4") or an inclusive range ("7-12") to a selection.
+     * @param numbers Selection to add to.
+     * @param part Number or range as typed by the user.
+     * @param max Highest valid number; numbers start at 1.
+     * @throws NumberFormatException If the part is not a number or range.
+     * @throws IllegalArgumentException If the range is reversed or reaches outside 1 to max.
+     */
+    public static void addNumberRange(Set<Integer> numbers, String part, int max) {
+        String[] range = part.trim().split("-", 2);
+        int from = Integer.parseInt(range[0].trim());
+        int to = range.length == 2 ? Integer.parseInt(range[1].trim()) : from;
 
-        int repoNumber;
-        try {
-            repoNumber = Integer.parseInt(InputHelper.getUserInput());
-        } catch (NumberFormatException e) {
-            System.err.println("Invalid input. Please enter a valid number.");
-            return null;
+        // Checked before expanding, so a typo like 1-2147483647 fails at once instead of filling the set
+        if (from < 1 || from > to || to > max) {
+            throw new IllegalArgumentException("Invalid repository range: " + part.trim());
         }
-
-        if (!repoMap.containsKey(repoNumber)) {
-            System.err.println("Invalid repository number.");
-            return null;
+        for (int number = from; number <= to; number++) {
+            numbers.add(number);
         }
+    }
 
-        return repoMap.get(repoNumber); // Return the repository name
+    // Created on the first prompt rather than when the class loads; runs that never ask skip it
+    private static class ScannerHolder {
+        private static final Scanner SCANNER = new Scanner(System.in);
     }
 }
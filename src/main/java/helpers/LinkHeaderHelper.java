@@ -0,0 +1,43 @@
+package helpers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LinkHeaderHelper {
+    private static final Pattern LINK_PATTERN = Pattern.compile("<([^>]*)>\\s*;\\s*rel=\"([^\"]+)\"");
+    private static final Pattern PAGE_PATTERN = Pattern.compile("[?&]page=(\\d+)");
+
+    /**
+     * Parses an RFC 8288 Link header, e.g. {@code <https://...?page=2>; rel="next"}.
+     * @param header Link header value, may be null.
+     * @return Map of relation name to URL.
+     */
+    public static Map<String, String> parse(String header) {
+        Map<String, String> links = new HashMap<>();
+        if (header == null) {
+            return links;
+        }
+
+        Matcher matcher = LINK_PATTERN.matcher(header);
+        while (matcher.find()) {
+            links.put(matcher.group(2), matcher.group(1));
+        }
+        return links;
+    }
+
+    /**
+     * Extracts the value of the "page" query parameter.
+     * @param url Page URL.
+     * @return Page number, or -1 if the URL has none.
+     */
+    public static int pageNumber(String url) {
+        if (url == null) {
+            return -1;
+        }
+
+        Matcher matcher = PAGE_PATTERN.matcher(url);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,238 @@
+package helpers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only write-ahead journal of merge request steps, so a run that dies halfway can be resumed.
+ * <p>
+ * Every completed step is written as one JSON line and forced to disk before the next step starts.
+ * On load the lines are replayed into the latest state per repository and branch; a line cut short by a crash
+ * is dropped. The journal is rewritten compactly on load after a torn write or once it holds many more lines
+ * than merge requests.
+ * Safe for concurrent use by the fan-out mode.
+ */
+public class MergeRequestJournal implements Closeable {
+    private static final Gson GSON = new Gson();
+    private static final int COMPACTION_FACTOR = 4;
+
+    /**
+     * Steps of a merge request, in the order they complete.
+     */
+    public enum Step {
+        BRANCH_RESERVED,
+        BRANCH_CREATED,
+        FILES_COMMITTED,
+        PULL_REQUEST_CREATED
+    }
+
+    private final Path file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private FileChannel channel;
+
+    private MergeRequestJournal(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens a journal, replaying the steps recorded by earlier runs.
+     * @param file Journal file; created with its parent directories on the first record.
+     * @return The journal.
+     * @throws IOException If an existing journal cannot be read or compacted.
+     */
+    public static MergeRequestJournal open(Path file) throws IOException {
+        MergeRequestJournal journal = new MergeRequestJournal(file);
+        if (!Files.exists(file)) {
+            return journal;
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        boolean torn = false;
+        for (String line : lines) {
+            Entry entry = parse(line);
+            if (entry != null) {
+                journal.entries.put(key(entry.repo, entry.baseBranch), entry);
+            } else {
+                torn |= !line.isEmpty();
+            }
+        }
+
+        // A torn line must go before anything is appended after it
+        if (torn || lines.size() > COMPACTION_FACTOR * Math.max(1, journal.entries.size())) {
+            journal.compact();
+        }
+        return journal;
+    }
+
+    /**
+     * @param repo Repository name in the format "owner/repo".
+     * @param baseBranch Branch name the merge request was configured with.
+     * @return The latest recorded state, or null if nothing was recorded.
+     */
+    public synchronized Entry get(String repo, String baseBranch) {
+        return entries.get(key(repo, baseBranch));
+    }
+
+    /**
+     * Starts a new merge request, replacing any earlier one for the same repository and branch.
+     * Recorded before the branch is created, so a crash in between can be detected on the next run.
+     * @param fingerprint Identifies the requested content, see {@link #fingerprint(Map, String)}.
+     */
+    public void branchReserved(String repo, String baseBranch, String branch, String fingerprint) throws IOException {
+        append(new Entry(repo, baseBranch, Step.BRANCH_RESERVED, branch, fingerprint, Collections.emptyMap()));
+    }
+
+    public void branchCreated(String repo, String baseBranch) throws IOException {
+        advance(repo, baseBranch, Step.BRANCH_CREATED, null);
+    }
+
+    /**
+     * @param fileShas Blob SHA per committed file path.
+     */
+    public void filesCommitted(String repo, String baseBranch, Map<String, String> fileShas) throws IOException {
+        advance(repo, baseBranch, Step.FILES_COMMITTED, fileShas);
+    }
+
+    public void pullRequestCreated(String repo, String baseBranch) throws IOException {
+        advance(repo, baseBranch, Step.PULL_REQUEST_CREATED, null);
+    }
+
+    /**
+     * Identifies what a merge request is meant to contain, so a finished one is not mistaken for a new request.
+     * @param fileShas Blob SHA per file path.
+     * @param title Pull request title.
+     * @return Hex digest of the paths, SHAs and title.
+     */
+    public static String fingerprint(Map<String, String> fileShas, String title) {
+        List<String> paths = new ArrayList<>(fileShas.keySet());
+        Collections.sort(paths);
+
+        StringBuilder content = new StringBuilder().append(title).append('\n');
+        for (String path : paths) {
+            content.append(path).append('\0').append(fileShas.get(path)).append('\n');
+        }
+        return FileHelper.gitBlobSha(content.toString());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private synchronized void advance(String repo, String baseBranch, Step step, Map<String, String> fileShas)
+            throws IOException {
+        Entry current = entries.get(key(repo, baseBranch));
+        if (current == null) {
+            throw new IllegalStateException("No merge request started for " + repo + " on " + baseBranch);
+        }
+        append(new Entry(repo, baseBranch, step, current.branch, current.fingerprint,
+                fileShas != null ? fileShas : current.fileShas));
+    }
+
+    private synchronized void append(Entry entry) throws IOException {
+        if (channel == null) {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        ByteBuffer line = ByteBuffer.wrap((GSON.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        channel.force(false); // The step only counts as done once it survives a crash
+        entries.put(key(entry.repo, entry.baseBranch), entry);
+    }
+
+    private void compact() throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            lines.add(GSON.toJson(entry));
+        }
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Entry parse(String line) {
+        try {
+            Entry entry = GSON.fromJson(line, Entry.class);
+            return entry != null && entry.repo != null && entry.baseBranch != null && entry.step != null
+                    ? entry : null;
+        } catch (JsonParseException e) {
+            return null; // Torn write from a crash
+        }
+    }
+
+    private static String key(String repo, String baseBranch) {
+        return repo + '\0' + baseBranch;
+    }
+
+    /**
+     * Latest recorded state of one merge request.
+     */
+    public static class Entry {
+        private final String repo;
+        private final String baseBranch;
+        private final Step step;
+        private final String branch;
+        private final String fingerprint;
+        private final Map<String, String> fileShas;
+
+        Entry(String repo, String baseBranch, Step step, String branch, String fingerprint,
+              Map<String, String> fileShas) {
+            this.repo = repo;
+            this.baseBranch = baseBranch;
+            this.step = step;
+            this.branch = branch;
+            this.fingerprint = fingerprint;
+            this.fileShas = fileShas;
+        }
+
+        public Step getStep() {
+            return step;
+        }
+
+        /**
+         * @return Branch actually used, which may have a "-N" suffix.
+         */
+        public String getBranch() {
+            return branch;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public Map<String, String> getFileShas() {
+            return fileShas != null ? fileShas : Collections.emptyMap();
+        }
+
+        /**
+         * @return true if the given step or a later one has completed.
+         */
+        public boolean hasCompleted(Step step) {
+            return this.step.compareTo(step) >= 0;
+        }
+    }
+}
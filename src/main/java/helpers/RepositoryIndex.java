@@ -0,0 +1,370 @@
+package helpers;
+
+import dataModels.Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact, memory-mapped list of repositories kept between runs.
+ * <p>
+ * File layout (big-endian): a header with magic, version, entry count, time of the last full listing and
+ * the newest updated_at; a fixed-size record per repository (id, updated_at, name offset and length);
+ * then all names as UTF-8. Loading maps the file and makes one pass over the fixed-size records to check
+ * that every name lies inside the file; names themselves are decoded on access, so opening an index of
+ * tens of thousands of repositories stays in the order of a millisecond.
+ * <p>
+ * Numbering is stable: refreshed repositories keep their position and new ones are appended.
+ * <p>
+ * Every save writes a new generation of the file (repositories.idx.1, repositories.idx.2, ...) rather than
+ * replacing the one that may still be mapped, and loading maps the newest generation.
+ */
+public class RepositoryIndex {
+    private static final int MAGIC = 0x52494458; // "RIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8;
+    private static final int RECORD_SIZE = 8 + 8 + 4 + 4;
+    private static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final long fullSyncMillis;
+    private final long newestUpdatedMillis;
+
+    private RepositoryIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.fullSyncMillis = buffer.getLong(12);
+        this.newestUpdatedMillis = buffer.getLong(20);
+    }
+
+    /**
+     * Builds an index from a complete listing.
+     * @param repositories Repositories in display order.
+     * @param fullSyncMillis Time of the listing in epoch milliseconds.
+     * @return New in-memory index.
+     */
+    public static RepositoryIndex of(List<Repository> repositories, long fullSyncMillis) {
+        byte[][] names = new byte[repositories.size()][];
+        int namesLength = 0;
+        long newest = UNKNOWN_TIME;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = repositories.get(i).getFullName().getBytes(StandardCharsets.UTF_8);
+            namesLength += names[i].length;
+            newest = Math.max(newest, parseTime(repositories.get(i).getUpdatedAt()));
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + names.length * RECORD_SIZE + namesLength);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(names.length).putLong(fullSyncMillis).putLong(newest);
+
+        int nameOffset = HEADER_SIZE + names.length * RECORD_SIZE;
+        for (int i = 0; i < names.length; i++) {
+            Repository repository = repositories.get(i);
+            buffer.putLong(repository.getId())
+                    .putLong(parseTime(repository.getUpdatedAt()))
+                    .putInt(nameOffset)
+                    .putInt(names[i].length);
+            nameOffset += names[i].length;
+        }
+        for (byte[] name : names) {
+            buffer.put(name);
+        }
+
+        buffer.flip();
+        return new RepositoryIndex(buffer);
+    }
+
+    /**
+     * Maps the newest index file written by {@link #save(Path)}.
+     * @param file Index file; its generations are stored next to it as file.1, file.2, ...
+     * @return The index, or null if no generation exists or the newest one is not a valid index.
+     * @throws IOException If the file exists but cannot be read.
+     */
+    public static RepositoryIndex load(Path file) throws IOException {
+        long generation = newestGeneration(file);
+        if (generation == 0) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(generationFile(file, generation), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return isValid(buffer, length) ? new RepositoryIndex(buffer) : null;
+        }
+    }
+
+    // Checks the header and that every name lies inside the file, so a truncated or corrupt file leads to
+    // a full listing instead of failing later when a name is read
+    private static boolean isValid(ByteBuffer buffer, long length) {
+        int size = buffer.getInt(8);
+        long namesStart = HEADER_SIZE + (long) size * RECORD_SIZE;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || size < 0 || namesStart > length) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int record = HEADER_SIZE + i * RECORD_SIZE;
+            long offset = buffer.getInt(record + 16);
+            long nameLength = buffer.getInt(record + 20);
+            if (offset < namesStart || nameLength < 0 || offset + nameLength > length) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the index as the next generation of the file.
+     * A file that is still mapped cannot be replaced on Windows, so every save goes to a new file,
+     * moved into place atomically, and older generations are removed once they are no longer mapped.
+     * @param file Index file; parent directories are created.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        long generation = newestGeneration(file) + 1;
+        // Unique per save, so concurrent saves never write into the same file; the ".tmp" suffix keeps it
+        // from being taken for a generation
+        Path temporary = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer content = buffer.duplicate();
+                content.clear();
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            Files.move(temporary, generationFile(file, generation), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        for (long older : generations(file)) {
+            if (older < generation) {
+                try {
+                    Files.deleteIfExists(generationFile(file, older));
+                } catch (IOException e) {
+                    // Still mapped by this process (Windows); removed by a later save
+                }
+            }
+        }
+    }
+
+    private static Path generationFile(Path file, long generation) {
+        return file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    private static long newestGeneration(Path file) throws IOException {
+        long newest = 0;
+        for (long generation : generations(file)) {
+            newest = Math.max(newest, generation);
+        }
+        return newest;
+    }
+
+    private static List<Long> generations(Path file) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        Path directory = file.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            return generations;
+        }
+
+        String prefix = file.getFileName() + ".";
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path sibling : siblings) {
+                String suffix = sibling.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.length() < 19 && suffix.chars().allMatch(Character::isDigit)) {
+                    generations.add(Long.parseLong(suffix));
+                }
+            }
+        }
+        return generations;
+    }
+
+    /**
+     * Applies repositories that were created, renamed or updated since the index was built.
+     * Known ids are updated in place, unknown ones are appended.
+     * @param updates Repositories from an incremental listing.
+     * @return A new index, or this index if there are no updates.
+     */
+    public RepositoryIndex merge(Collection<Repository> updates) {
+        if (updates.isEmpty()) {
+            return this;
+        }
+
+        Map<Long, Integer> positions = new HashMap<>();
+        List<Repository> repositories = new ArrayList<>(size + updates.size());
+        for (int i = 0; i < size; i++) {
+            positions.put(getId(i), i);
+            repositories.add(new Repository(getId(i), getName(i), formatTime(updatedMillis(i))));
+        }
+
+        for (Repository update : updates) {
+            Integer position = positions.get(update.getId());
+            if (position != null) {
+                repositories.set(position, update);
+            } else {
+                positions.put(update.getId(), repositories.size());
+                repositories.add(update);
+            }
+        }
+
+        return of(repositories, fullSyncMillis);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index Zero-based position.
+     * @return Repository id at that position.
+     */
+    public long getId(int index) {
+        return buffer.getLong(recordOffset(index));
+    }
+
+    /**
+     * @param index Zero-based position.
+     * @return Repository name in the format "owner/repo", decoded from the index on every call.
+     */
+    public String getName(int index) {
+        int record = recordOffset(index);
+        int offset = buffer.getInt(record + 16);
+        int length = buffer.getInt(record + 20);
+
+        byte[] name = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The most recent updated_at of all repositories, or null if none is known.
+     */
+    public Instant getNewestUpdatedAt() {
+        return newestUpdatedMillis == UNKNOWN_TIME ? null : Instant.ofEpochMilli(newestUpdatedMillis);
+    }
+
+    /**
+     * Tells whether the index should be rebuilt from a full listing, e.g. to drop deleted repositories,
+     * which an incremental refresh cannot see.
+     * @param maxAge Maximum time since the last full listing.
+     * @param nowMillis Current time in epoch milliseconds.
+     * @return true if the last full listing is older than maxAge.
+     */
+    public boolean isFullSyncDue(Duration maxAge, long nowMillis) {
+        return nowMillis - fullSyncMillis > maxAge.toMillis();
+    }
+
+    /**
+     * Exposes the index as the number-to-name map used by the CLI handlers, without copying it.
+     * @return Read-only map from 1-based number to repository name.
+     */
+    public Map<Integer, String> asRepositoryMap() {
+        return new AbstractMap<Integer, String>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof Integer && (Integer) key >= 1 && (Integer) key <= size;
+            }
+
+            @Override
+            public String get(Object key) {
+                return containsKey(key) ? getName((Integer) key - 1) : null;
+            }
+
+            @Override
+            public Set<Entry<Integer, String>> entrySet() {
+                return new AbstractSet<Entry<Integer, String>>() {
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+
+                    @Override
+                    public Iterator<Entry<Integer, String>> iterator() {
+                        return new Iterator<Entry<Integer, String>>() {
+                            private int next;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < size;
+                            }
+
+                            @Override
+                            public Entry<Integer, String> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                next++;
+                                return new SimpleImmutableEntry<>(next, getName(next - 1));
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+
+    private long updatedMillis(int index) {
+        return buffer.getLong(recordOffset(index) + 8);
+    }
+
+    private int recordOffset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    private static long parseTime(String timestamp) {
+        if (timestamp == null) {
+            return UNKNOWN_TIME;
+        }
+
+        try {
+            return Instant.parse(timestamp).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN_TIME;
+        }
+    }
+
+    private static String formatTime(long millis) {
+        return millis == UNKNOWN_TIME ? null : Instant.ofEpochMilli(millis).toString();
+    }
+}
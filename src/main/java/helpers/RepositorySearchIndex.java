@@ -0,0 +1,348 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index over repository names, built once per repository list.
+ * <p>
+ * Two structures back the lookups: names sorted case-insensitively (by full name and by the part after the owner),
+ * which act as a flattened trie so a prefix is a binary search for a contiguous range, and a sorted posting list
+ * per three-character sequence (trigram), which narrows substring, typo-tolerant and glob queries to a few
+ * candidates. No query scans the whole list except regular expressions, which have no literal to index.
+ */
+public class RepositorySearchIndex {
+    private static final int GRAM = 3;
+    private static final int[] EMPTY = new int[0];
+    private static final int EXACT_SCORE = 1000;
+    private static final int REPO_PREFIX_SCORE = 800;
+    private static final int FULL_PREFIX_SCORE = 700;
+    private static final int SUBSTRING_SCORE = 600;
+    private static final int TRIGRAM_SCORE = 300;
+
+    private final int[] numbers;
+    private final String[] names;
+    private final String[] lowerNames;
+    private final String[] lowerRepoNames; // Part after "owner/"
+    private final int[] byFullName;
+    private final int[] byRepoName;
+    private final Map<Long, int[]> postings;
+
+    /**
+     * @param repoMap Map from repository number to name in the format "owner/repo".
+     */
+    public RepositorySearchIndex(Map<Integer, String> repoMap) {
+        int size = repoMap.size();
+        numbers = new int[size];
+        names = new String[size];
+        lowerNames = new String[size];
+        lowerRepoNames = new String[size];
+
+        int id = 0;
+        for (Map.Entry<Integer, String> entry : repoMap.entrySet()) {
+            numbers[id] = entry.getKey();
+            names[id] = entry.getValue();
+            lowerNames[id] = entry.getValue().toLowerCase(Locale.ROOT);
+            lowerRepoNames[id] = lowerNames[id].substring(lowerNames[id].indexOf('/') + 1);
+            id++;
+        }
+
+        byFullName = sortedIds(lowerNames);
+        byRepoName = sortedIds(lowerRepoNames);
+        postings = buildPostings();
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Finds repositories matching a search term: exact names first, then name and owner prefixes, substrings
+     * and finally names within a typo or two of the term.
+     * @param query Search term, case-insensitive.
+     * @param limit Maximum number of results.
+     * @return Repository numbers, best match first.
+     */
+    public List<Integer> search(String query, int limit) {
+        String term = query.trim().toLowerCase(Locale.ROOT);
+        if (term.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        addPrefixMatches(scores, term, byRepoName, lowerRepoNames, REPO_PREFIX_SCORE, limit);
+        addPrefixMatches(scores, term, byFullName, lowerNames, FULL_PREFIX_SCORE, limit);
+
+        // Prefix matches always outrank trigram matches, so enough of them make the trigram pass pointless
+        if (scores.size() < limit && term.length() >= GRAM) {
+            addTrigramMatches(scores, term, limit);
+        }
+
+        List<Integer> ids = new ArrayList<>(scores.keySet());
+        ids.sort(Comparator.<Integer>comparingInt(scores::get).reversed()
+                .thenComparingInt(i -> names[i].length())
+                .thenComparingInt(i -> numbers[i]));
+
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < ids.size() && i < limit; i++) {
+            result.add(numbers[ids.get(i)]);
+        }
+        return result;
+    }
+
+    /**
+     * Selects every repository whose full name matches a glob, case-insensitively.
+     * {@code *} matches any run of characters and {@code ?} a single one.
+     * @param glob Pattern such as "acme/*-service".
+     * @return Matching repository numbers in list order.
+     */
+    public List<Integer> matchGlob(String glob) {
+        String longestLiteral = "";
+        for (String literal : glob.trim().toLowerCase(Locale.ROOT).split("[*?]")) {
+            longestLiteral = literal.length() > longestLiteral.length() ? literal : longestLiteral;
+        }
+
+        int[] candidates = longestLiteral.length() >= GRAM ? candidatesContaining(longestLiteral) : null;
+        return filter(candidates, globPattern(glob), true);
+    }
+
+    /**
+     * Converts a glob into a pattern matching whole lowercase names.
+     * @param glob Pattern such as "acme/*-service".
+     * @return Compiled pattern.
+     */
+    static Pattern globPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.trim().toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == '*' || c == '?') {
+                regex.append(Pattern.quote(literal.toString())).append(c == '*' ? ".*" : ".");
+                literal.setLength(0);
+            } else {
+                literal.append(c);
+            }
+        }
+        regex.append(Pattern.quote(literal.toString()));
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Selects every repository whose full name contains a match of a regular expression.
+     * @param regex Pattern, matched case-insensitively.
+     * @return Matching repository numbers in list order.
+     */
+    public List<Integer> matchRegex(Pattern regex) {
+        Pattern pattern = Pattern.compile(regex.pattern(), regex.flags() | Pattern.CASE_INSENSITIVE);
+        return filter(null, pattern, false);
+    }
+
+    private static void addPrefixMatches(Map<Integer, Integer> scores, String term, int[] sorted, String[] keys,
+                                         int prefixScore, int limit) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[sorted[mid]].compareTo(term) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        // Only the first entries of the range can make it into the results, ties are broken by length anyway
+        for (int i = low; i < sorted.length && i < low + limit * 4; i++) {
+            String key = keys[sorted[i]];
+            if (!key.startsWith(term)) {
+                break;
+            }
+            int score = key.length() == term.length() ? EXACT_SCORE : prefixScore;
+            scores.merge(sorted[i], score, Math::max);
+        }
+    }
+
+    private void addTrigramMatches(Map<Integer, Integer> scores, String term, int limit) {
+        long[] grams = Arrays.stream(trigrams(term)).distinct().toArray();
+        int[][] lists = new int[grams.length][];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.getOrDefault(grams[i], EMPTY);
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+
+        // Each typo changes up to three trigrams; short terms must match exactly
+        int typos = term.length() < 6 ? 0 : 1 + term.length() / 12;
+        int required = Math.max(1, grams.length - GRAM * typos);
+
+        // A name sharing `required` trigrams must appear in one of the shortest (grams - required + 1) lists,
+        // so candidates come from those and only the long lists are probed
+        int shortLists = grams.length - required + 1;
+        int candidateCount = 0;
+        for (int i = 0; i < shortLists; i++) {
+            candidateCount += lists[i].length;
+        }
+        int[] candidates = new int[candidateCount];
+        candidateCount = 0;
+        for (int i = 0; i < shortLists; i++) {
+            System.arraycopy(lists[i], 0, candidates, candidateCount, lists[i].length);
+            candidateCount += lists[i].length;
+        }
+        Arrays.sort(candidates);
+
+        // Worst of the best candidates on top; the key orders by score, then shorter name, then lower number
+        PriorityQueue<long[]> best = new PriorityQueue<>(Comparator.comparingLong(entry -> entry[0]));
+        for (int i = 0; i < candidates.length; ) {
+            int id = candidates[i];
+            int shared = 0;
+            for (; i < candidates.length && candidates[i] == id; i++) {
+                shared++;
+            }
+            for (int list = shortLists; list < lists.length && shared + lists.length - list >= required; list++) {
+                if (Arrays.binarySearch(lists[list], id) >= 0) {
+                    shared++;
+                }
+            }
+            if (shared < required || scores.containsKey(id)) {
+                continue; // Prefix matches are already scored higher
+            }
+
+            int position = lowerNames[id].indexOf(term);
+            int score = position >= 0
+                    ? SUBSTRING_SCORE - Math.min(position, 99)
+                    : TRIGRAM_SCORE * shared / grams.length;
+            long key = ((long) score << 42) | ((long) (1023 - Math.min(names[id].length(), 1023)) << 21)
+                    | (0x1FFFFF - Math.min(numbers[id], 0x1FFFFF));
+            if (best.size() == limit && key < best.peek()[0]) {
+                continue;
+            }
+            best.add(new long[]{key, id});
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        for (long[] entry : best) {
+            scores.put((int) entry[1], (int) (entry[0] >>> 42));
+        }
+    }
+
+    private int[] candidatesContaining(String literal) {
+        int[] result = null;
+        for (long gram : trigrams(literal)) {
+            int[] ids = postings.getOrDefault(gram, EMPTY);
+            result = result == null ? ids : intersect(result, ids);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private List<Integer> filter(int[] candidates, Pattern pattern, boolean wholeName) {
+        List<Integer> result = new ArrayList<>();
+        int count = candidates == null ? names.length : candidates.length;
+        for (int i = 0; i < count; i++) {
+            int id = candidates == null ? i : candidates[i];
+            String name = wholeName ? lowerNames[id] : names[id];
+            if (wholeName ? pattern.matcher(name).matches() : pattern.matcher(name).find()) {
+                result.add(numbers[id]);
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private static int[] sortedIds(String[] keys) {
+        Integer[] ids = new Integer[keys.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, Comparator.comparing(i -> keys[i]));
+        return Arrays.stream(ids).mapToInt(Integer::intValue).toArray();
+    }
+
+    private Map<Long, int[]> buildPostings() {
+        // Number every distinct trigram and count its names, then fill each posting list in id order (counting sort)
+        Map<Long, Integer> gramNumbers = new HashMap<>();
+        List<Long> gramsByNumber = new ArrayList<>();
+        int[] counts = new int[64];
+        int[][] nameGrams = new int[lowerNames.length][];
+        for (int id = 0; id < lowerNames.length; id++) {
+            long[] grams = trigrams(lowerNames[id]);
+            nameGrams[id] = new int[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                Integer number = gramNumbers.get(grams[i]);
+                if (number == null) {
+                    number = gramsByNumber.size();
+                    gramNumbers.put(grams[i], number);
+                    gramsByNumber.add(grams[i]);
+                    if (number == counts.length) {
+                        counts = Arrays.copyOf(counts, number * 2);
+                    }
+                }
+                nameGrams[id][i] = number;
+                counts[number]++;
+            }
+        }
+
+        int[][] lists = new int[gramsByNumber.size()][];
+        int[] sizes = new int[lists.length];
+        for (int number = 0; number < lists.length; number++) {
+            lists[number] = new int[counts[number]];
+        }
+        for (int id = 0; id < nameGrams.length; id++) {
+            for (int number : nameGrams[id]) {
+                int size = sizes[number];
+                if (size == 0 || lists[number][size - 1] != id) { // The same trigram can occur twice in one name
+                    lists[number][size] = id;
+                    sizes[number] = size + 1;
+                }
+            }
+        }
+
+        Map<Long, int[]> result = new HashMap<>(lists.length * 2);
+        for (int number = 0; number < lists.length; number++) {
+            int[] list = lists[number];
+            result.put(gramsByNumber.get(number), sizes[number] == list.length ? list : Arrays.copyOf(list, sizes[number]));
+        }
+        return result;
+    }
+
+    private static long[] trigrams(String text) {
+        if (text.length() < GRAM) {
+            return new long[0];
+        }
+
+        long[] grams = new long[text.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            long packed = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+            // Multiplying by an odd constant keeps keys unique and spreads them over the hash table
+            grams[i] = packed * 0x9E3779B97F4A7C15L;
+        }
+        return grams;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
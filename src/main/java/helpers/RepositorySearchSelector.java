@@ -0,0 +1,181 @@
+package helpers;
+
+import interfaces.RepositorySelector;
+import interfaces.RepositorySetSelector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Repository selection by number or by name, for lists too long to pick from by scrolling.
+ * <p>
+ * Single selection accepts a number or a search term; ambiguous terms print the best matches and ask again.
+ * Multi-selection accepts numbers, ranges and globs separated by commas (e.g. {@code 1,4-6,acme/*-service}),
+ * a regular expression between slashes (e.g. {@code /^acme\/(api|web)-/}) or 'all'.
+ * The search index is built once per repository list and reused for every query.
+ */
+public class RepositorySearchSelector implements RepositorySelector, RepositorySetSelector {
+    private static final int MAX_SUGGESTIONS = 10;
+
+    private final Supplier<String> input;
+    private Map<Integer, String> indexedMap;
+    private RepositorySearchIndex index;
+
+    public RepositorySearchSelector() {
+        this(InputHelper::getUserInput);
+    }
+
+    /**
+     * @param input Source of user input lines.
+     */
+    public RepositorySearchSelector(Supplier<String> input) {
+        this.input = input;
+    }
+
+    @Override
+    public String matchRepositoryIndexToName(Map<Integer, String> repoMap) {
+        System.out.println("Enter the number or name of the repository:");
+
+        while (true) {
+            String line = input.get().trim();
+            if (line.isEmpty()) {
+                System.err.println("No repository selected.");
+                return null;
+            }
+
+            if (line.chars().allMatch(Character::isDigit)) {
+                int number;
+                try {
+                    number = Integer.parseInt(line);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid repository number."); // Too large for an int
+                    return null;
+                }
+                if (!repoMap.containsKey(number)) {
+                    System.err.println("Invalid repository number.");
+                    return null;
+                }
+                return repoMap.get(number);
+            }
+
+            List<Integer> matches = indexFor(repoMap).search(line, MAX_SUGGESTIONS);
+            if (matches.isEmpty()) {
+                System.out.println("No repository matches '" + line + "'. Try another name:");
+                continue;
+            }
+
+            // A lone match is only taken as is when it contains the term, never when it was found despite typos
+            String best = repoMap.get(matches.get(0));
+            String lowerBest = best.toLowerCase(Locale.ROOT);
+            String lowerLine = line.toLowerCase(Locale.ROOT);
+            if (lowerBest.equals(lowerLine) || lowerBest.endsWith("/" + lowerLine)
+                    || (matches.size() == 1 && lowerBest.contains(lowerLine))) {
+                System.out.println("Selected " + best);
+                return best;
+            }
+
+            System.out.println("Several repositories match '" + line + "':");
+            for (int number : matches) {
+                System.out.println(number + ". " + repoMap.get(number));
+            }
+            System.out.println("Enter a number or a more specific name:");
+        }
+    }
+
+    @Override
+    public List<String> selectRepositories(Map<Integer, String> repoMap) {
+        System.out.println("Enter repository numbers, ranges or name globs (e.g. 1,4-6,owner/*-service), /regex/ or 'all':");
+
+        String line = input.get().trim();
+        if (line.equalsIgnoreCase("all")) {
+            return new ArrayList<>(repoMap.values());
+        }
+
+        Set<Integer> numbers = new LinkedHashSet<>(); // Keep the order the user typed, without duplicates
+        if (line.length() > 1 && line.startsWith("/") && line.endsWith("/")) {
+            try {
+                numbers.addAll(indexFor(repoMap).matchRegex(Pattern.compile(line.substring(1, line.length() - 1))));
+            } catch (PatternSyntaxException e) {
+                System.err.println("Invalid regular expression: " + e.getDescription());
+                return null;
+            }
+        } else {
+            for (String part : line.split(",")) {
+                if (part.contains("*") || part.contains("?")) {
+                    numbers.addAll(indexFor(repoMap).matchGlob(part));
+                    continue;
+                }
+
+                try {
+                    InputHelper.addNumberRange(numbers, part, repoMap.size());
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid input '" + part.trim() + "'. Use numbers, ranges or globs separated by commas.");
+                    return null;
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage() + ". Repositories are numbered 1 to " + repoMap.size() + ".");
+                    return null;
+                }
+            }
+        }
+
+        List<String> repos = new ArrayList<>();
+        for (int number : numbers) {
+            if (!repoMap.containsKey(number)) {
+                System.err.println("Invalid repository number: " + number);
+                return null;
+            }
+            repos.add(repoMap.get(number));
+        }
+
+        if (repos.isEmpty()) {
+            System.err.println("No repositories match '" + line + "'.");
+            return null;
+        }
+        return repos;
+    }
+
+    /**
+     * Builds a selection that is decided per repository name, without a numbered list, for selecting
+     * repositories while they are still being listed.
+     * @param selection 'all', name globs separated by commas, or a regular expression between slashes.
+     * @return Predicate on names in the format "owner/repo".
+     * @throws PatternSyntaxException If the regular expression is invalid.
+     */
+    public static Predicate<String> namePredicate(String selection) {
+        String trimmed = selection.trim();
+        if (trimmed.equalsIgnoreCase("all")) {
+            return repo -> true;
+        }
+
+        if (trimmed.length() > 1 && trimmed.startsWith("/") && trimmed.endsWith("/")) {
+            Pattern pattern = Pattern.compile(trimmed.substring(1, trimmed.length() - 1), Pattern.CASE_INSENSITIVE);
+            return repo -> pattern.matcher(repo).find();
+        }
+
+        List<Pattern> globs = new ArrayList<>();
+        for (String glob : trimmed.split(",")) {
+            globs.add(RepositorySearchIndex.globPattern(glob));
+        }
+        return repo -> {
+            String lowerRepo = repo.toLowerCase(Locale.ROOT);
+            return globs.stream().anyMatch(glob -> glob.matcher(lowerRepo).matches());
+        };
+    }
+
+    private RepositorySearchIndex indexFor(Map<Integer, String> repoMap) {
+        // The list only changes when repositories are listed again, which creates a new map
+        if (index == null || indexedMap != repoMap) {
+            index = new RepositorySearchIndex(repoMap);
+            indexedMap = repoMap;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,65 @@
+package interfaces;
+
+import dataModels.FileDetails;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of the ApiClient contract.
+ * Every method returns immediately; the returned future completes when the request finishes,
+ * or exceptionally with an IOException. Independent steps can be composed without extra threads.
+ */
+public interface AsyncApiClient {
+    /**
+     * Checks if a branch with given name already exists.
+     * @param repo The repository name in the format "owner/repo".
+     * @param branchName The branch name.
+     * @return Future completed with true if the branch exists.
+     */
+    CompletableFuture<Boolean> branchExistsAsync(String repo, String branchName);
+
+    /**
+     * Looks up the commit SHA a branch points to.
+     * @param repo The repository name in the format "owner/repo".
+     * @param branchName The branch name.
+     * @return Future completed with the head commit SHA.
+     */
+    CompletableFuture<String> getBranchShaAsync(String repo, String branchName);
+
+    /**
+     * Creates a new branch from the head of the default branch.
+     * @param repo The repository name in the format "owner/repo".
+     * @param branchName The name of the new branch.
+     * @return Future completed with true if the branch was created.
+     */
+    CompletableFuture<Boolean> createBranchAsync(String repo, String branchName);
+
+    /**
+     * Uploads file content as a git blob.
+     * @param repo The repository name in the format "owner/repo".
+     * @param file The file to upload.
+     * @return Future completed with the blob SHA.
+     */
+    CompletableFuture<String> createBlobAsync(String repo, FileDetails file);
+
+    /**
+     * Commits a set of files to the branch as a single commit.
+     * @param repo The repository name in the format "owner/repo".
+     * @param branchName The branch to commit to.
+     * @param files The files to add or update.
+     * @param message The commit message.
+     * @return Future completed with true if the changeset was committed.
+     */
+    CompletableFuture<Boolean> commitFilesAsync(String repo, String branchName, List<FileDetails> files, String message);
+
+    /**
+     * Creates a pull request from the branch into the default branch.
+     * @param repo The repository name in the format "owner/repo".
+     * @param branchName The branch containing the changes.
+     * @param title The pull request title.
+     * @param body The pull request description.
+     * @return Future completed with true if the pull request was created.
+     */
+    CompletableFuture<Boolean> createPullRequestAsync(String repo, String branchName, String title, String body);
+}
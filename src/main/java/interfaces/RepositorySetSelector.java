@@ -0,0 +1,13 @@
+package interfaces;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Functional interface to abstract selection of several repositories at once,
+ * used by the multi-repository (fan-out) mode.
+ */
+@FunctionalInterface
+public interface RepositorySetSelector {
+    List<String> selectRepositories(Map<Integer, String> repoMap);
+}
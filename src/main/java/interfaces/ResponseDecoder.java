@@ -0,0 +1,28 @@
+package interfaces;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Functional interface for decoding a response body straight from its byte stream.
+ * Decoders read only what they need from the {@link JsonReader} and skip everything else,
+ * so no intermediate String or JsonElement tree of the whole payload is built.
+ */
+@FunctionalInterface
+public interface ResponseDecoder<T> {
+    /**
+     * Decoder that materializes the whole body as a Gson tree.
+     */
+    ResponseDecoder<JsonElement> JSON_TREE = JsonParser::parseReader;
+
+    /**
+     * For callers that only need the status code and headers, e.g. existence checks and writes whose result is
+     * not read. GET requests are sent as HEAD, and other response bodies are discarded without being decoded.
+     */
+    ResponseDecoder<Void> STATUS_ONLY = reader -> null;
+
+    T decode(JsonReader reader) throws IOException;
+}
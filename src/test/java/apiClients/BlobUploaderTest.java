@@ -0,0 +1,139 @@
+package apiClients;
+
+import dataModels.FileDetails;
+import dataModels.TypedApiResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobUploaderTest {
+
+    @Test
+    void testUpload_StaysWithinInFlightLimit() {
+        BlobUploader uploader = new BlobUploader(2, Long.MAX_VALUE, 1, 0);
+        List<CompletableFuture<String>> started = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<Map<String, String>> result = uploader.upload(files(5, 10), file -> {
+            CompletableFuture<String> upload = new CompletableFuture<>();
+            started.add(upload);
+            return upload;
+        });
+
+        for (int completed = 0; completed < 5; completed++) {
+            assertEquals(Math.min(5, completed + 2), started.size());
+            started.get(completed).complete("sha" + completed);
+        }
+
+        assertEquals(5, result.join().size());
+    }
+
+    @Test
+    void testUpload_StaysWithinByteBudget() {
+        BlobUploader uploader = new BlobUploader(8, 25, 1, 0);
+        List<FileDetails> files = List.of(file("a.txt", 10), file("big.bin", 40), file("b.txt", 10), file("c.txt", 10));
+        Map<String, CompletableFuture<String>> started = new ConcurrentHashMap<>();
+
+        CompletableFuture<Map<String, String>> result = uploader.upload(files, file -> {
+            CompletableFuture<String> upload = new CompletableFuture<>();
+            started.put(file.getFilePath(), upload);
+            return upload;
+        });
+
+        // The big file waits until it can go alone; smaller ones behind it fill the budget meanwhile
+        assertEquals(Set.of("a.txt", "b.txt"), started.keySet());
+        started.get("a.txt").complete("a");
+        assertEquals(Set.of("a.txt", "b.txt", "c.txt"), started.keySet());
+        started.get("b.txt").complete("b");
+        started.get("c.txt").complete("c");
+        assertTrue(started.containsKey("big.bin"));
+        started.get("big.bin").complete("big");
+
+        assertEquals(Map.of("a.txt", "a", "big.bin", "big", "b.txt", "b", "c.txt", "c"), result.join());
+    }
+
+    @Test
+    void testUpload_RetriesOnlyFailedFile() {
+        BlobUploader uploader = new BlobUploader(4, Long.MAX_VALUE, 3, 0);
+        Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+        Map<String, String> shas = uploader.upload(files(3, 10), file -> {
+            int attempt = attempts.merge(file.getFilePath(), 1, Integer::sum);
+            if (file.getFilePath().equals("file1.txt") && attempt < 3) {
+                return CompletableFuture.failedFuture(new IOException("Connection reset"));
+            }
+            return CompletableFuture.completedFuture("sha-" + file.getFilePath());
+        }).orTimeout(5, TimeUnit.SECONDS).join();
+
+        assertEquals(3, shas.size());
+        assertEquals(Map.of("file0.txt", 1, "file1.txt", 3, "file2.txt", 1), attempts);
+    }
+
+    @Test
+    void testUpload_ReportsFilesFailingEveryAttempt() {
+        BlobUploader uploader = new BlobUploader(4, Long.MAX_VALUE, 2, 0);
+        Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+        CompletionException e = assertThrows(CompletionException.class, () -> uploader.upload(files(3, 10), file -> {
+            attempts.merge(file.getFilePath(), 1, Integer::sum);
+            if (file.getFilePath().equals("file2.txt")) {
+                return CompletableFuture.failedFuture(new IOException("HTTP status: 502"));
+            }
+            return CompletableFuture.completedFuture("sha");
+        }).orTimeout(5, TimeUnit.SECONDS).join());
+
+        assertInstanceOf(IOException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().contains("file2.txt (HTTP status: 502)"));
+        assertEquals(Map.of("file0.txt", 1, "file1.txt", 1, "file2.txt", 2), attempts);
+    }
+
+    @Test
+    void testUpload_RetriesOnlyTransientErrors() {
+        BlobUploader uploader = new BlobUploader(4, Long.MAX_VALUE, 3, 0);
+        Map<String, Integer> attempts = new ConcurrentHashMap<>();
+        Map<String, TypedApiResponse<?>> responses = Map.of(
+                "file0.txt", new TypedApiResponse<>(null, 503, Headers.of()),
+                "file1.txt", new TypedApiResponse<>(null, 403, Headers.of("Retry-After", "0")),
+                "file2.txt", new TypedApiResponse<>(null, 403, Headers.of()),
+                "file3.txt", new TypedApiResponse<>(null, 422, Headers.of()),
+                "file4.txt", new TypedApiResponse<>(null, 404, Headers.of()));
+
+        CompletionException e = assertThrows(CompletionException.class, () -> uploader.upload(files(5, 10), file -> {
+            attempts.merge(file.getFilePath(), 1, Integer::sum);
+            return CompletableFuture.failedFuture(new HttpStatusException("Rejected", responses.get(file.getFilePath())));
+        }).orTimeout(5, TimeUnit.SECONDS).join());
+
+        assertTrue(e.getCause().getMessage().startsWith("Failed to upload 5 file(s)"));
+        assertEquals(Map.of("file0.txt", 3, "file1.txt", 3, "file2.txt", 1, "file3.txt", 1, "file4.txt", 1), attempts);
+    }
+
+    @Test
+    void testUpload_NoFiles() {
+        assertEquals(Map.of(), new BlobUploader().upload(List.of(), file -> {
+            throw new AssertionError("Nothing to upload");
+        }).join());
+    }
+
+    private static List<FileDetails> files(int count, int size) {
+        List<FileDetails> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(file("file" + i + ".txt", size));
+        }
+        return files;
+    }
+
+    private static FileDetails file(String path, int size) {
+        return new FileDetails(path, "x".repeat(size));
+    }
+}
@@ -0,0 +1,611 @@
+package apiClients;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import helpers.FileHelper;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the GitHub REST endpoints used by {@link GitHubApiClient}.
+ * Keeps branches, commits, trees of file blob SHAs and pull requests in memory so whole merge request flows
+ * can run over real HTTP, with configurable latency, injected errors, pagination and
+ * primary rate limit headers.
+ */
+public class FakeGitHubServer implements AutoCloseable {
+    private static final String OWNER = "fake-org";
+    private static final String DEFAULT_BRANCH = "main";
+    private static final Pattern REPO_PATH = Pattern.compile("^/repos/([^/]+/[^/]+)/(.+)$");
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, FakeRepository> repositories = new ConcurrentHashMap<>();
+    private final List<String> repositoryNames = new ArrayList<>();
+    private final AtomicLong shaSequence = new AtomicLong();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger pullRequestCount = new AtomicInteger();
+
+    private int rateLimitRemaining;
+    private long rateLimitResetMillis;
+
+    public FakeGitHubServer(Settings settings) throws IOException {
+        this.settings = settings;
+        for (int i = 1; i <= settings.repositoryCount; i++) {
+            String name = String.format("%s/repo-%04d", OWNER, i);
+            repositoryNames.add(name);
+            repositories.put(name, new FakeRepository(i, nextSha(), nextSha()));
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return Base URL to pass to {@link GitHubApiClient}, without trailing slash.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return Names of all repositories, in the order /user/repos lists them.
+     */
+    public List<String> getRepositoryNames() {
+        return repositoryNames;
+    }
+
+    /**
+     * @return Number of requests received, including rejected ones.
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return Number of pull requests opened so far.
+     */
+    public int getPullRequestCount() {
+        return pullRequestCount.get();
+    }
+
+    /**
+     * Returns the head commit of a branch.
+     * @param repo Repository in the format "owner/repo".
+     * @param branch Branch name.
+     * @return Commit SHA, or null if the repository or branch does not exist.
+     */
+    public String getBranchHead(String repo, String branch) {
+        FakeRepository repository = repositories.get(repo);
+        return repository == null ? null : repository.branches.get(branch);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            simulateLatency();
+
+            if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+                send(exchange, 401, message("Requires authentication"));
+                return;
+            }
+
+            if (!acquireRateLimit(exchange)) {
+                send(exchange, 403, message("API rate limit exceeded"));
+                return;
+            }
+
+            if (settings.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < settings.errorRate) {
+                send(exchange, 502, message("Server Error"));
+                return;
+            }
+
+            route(exchange);
+        } catch (RuntimeException e) {
+            send(exchange, 500, message(String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        // HEAD is answered like GET; send() leaves out the body
+        String method = exchange.getRequestMethod().equals("HEAD") ? "GET" : exchange.getRequestMethod();
+        URI uri = exchange.getRequestURI();
+        String path = uri.getPath();
+
+        if (path.equals("/user/repos") && method.equals("GET")) {
+            listRepositories(exchange, queryParameters(uri.getRawQuery()));
+            return;
+        }
+
+        Matcher matcher = REPO_PATH.matcher(path);
+        FakeRepository repository = matcher.matches() ? repositories.get(matcher.group(1)) : null;
+        if (repository == null) {
+            send(exchange, 404, message("Not Found"));
+            return;
+        }
+
+        String resource = matcher.group(2);
+        if (method.equals("GET") && resource.startsWith("git/ref/heads/")) {
+            getRef(exchange, repository, resource.substring("git/ref/heads/".length()));
+        } else if (method.equals("GET") && resource.startsWith("git/matching-refs/heads/")) {
+            matchingRefs(exchange, repository, resource.substring("git/matching-refs/heads/".length()));
+        } else if (method.equals("POST") && resource.equals("git/refs")) {
+            createRef(exchange, repository, readJson(exchange));
+        } else if (method.equals("PATCH") && resource.startsWith("git/refs/heads/")) {
+            updateRef(exchange, repository, resource.substring("git/refs/heads/".length()), readJson(exchange));
+        } else if (method.equals("GET") && resource.startsWith("git/commits/")) {
+            getCommit(exchange, repository, resource.substring("git/commits/".length()));
+        } else if (method.equals("POST") && resource.equals("git/commits")) {
+            createCommit(exchange, repository, readJson(exchange));
+        } else if (method.equals("POST") && resource.equals("git/trees")) {
+            createTree(exchange, repository, readJson(exchange));
+        } else if (method.equals("POST") && resource.equals("git/blobs")) {
+            String content = decode(readJson(exchange).get("content").getAsString());
+            send(exchange, 201, shaObject(FileHelper.gitBlobSha(content)));
+        } else if (method.equals("GET") && (resource.equals("contents") || resource.startsWith("contents/"))) {
+            String filePath = resource.equals("contents") ? "" : resource.substring("contents/".length());
+            getContents(exchange, repository, filePath, queryParameters(uri.getRawQuery()));
+        } else if (method.equals("PUT") && resource.startsWith("contents/")) {
+            putContents(exchange, repository, resource.substring("contents/".length()), readJson(exchange));
+        } else if (method.equals("GET") && resource.equals("pulls")) {
+            listPullRequests(exchange, repository, queryParameters(uri.getRawQuery()));
+        } else if (method.equals("POST") && resource.equals("pulls")) {
+            createPullRequest(exchange, repository, matcher.group(1), readJson(exchange));
+        } else {
+            send(exchange, 404, message("Not Found"));
+        }
+    }
+
+    private void listRepositories(HttpExchange exchange, Map<String, String> query) throws IOException {
+        int perPage = Math.min(100, Integer.parseInt(query.getOrDefault("per_page", "30")));
+        int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        int lastPage = Math.max(1, (repositoryNames.size() + perPage - 1) / perPage);
+
+        JsonArray body = new JsonArray();
+        int from = Math.min(repositoryNames.size(), (page - 1) * perPage);
+        int to = Math.min(repositoryNames.size(), from + perPage);
+        for (String name : repositoryNames.subList(from, to)) {
+            JsonObject repository = new JsonObject();
+            repository.addProperty("id", repositories.get(name).id);
+            repository.addProperty("full_name", name);
+            repository.addProperty("updated_at", "2024-01-01T00:00:00Z");
+            body.add(repository);
+        }
+
+        List<String> links = new ArrayList<>();
+        if (page < lastPage) {
+            links.add(pageLink(perPage, page + 1, "next"));
+            links.add(pageLink(perPage, lastPage, "last"));
+        }
+        if (page > 1) {
+            links.add(pageLink(perPage, 1, "first"));
+            links.add(pageLink(perPage, page - 1, "prev"));
+        }
+        if (!links.isEmpty()) {
+            exchange.getResponseHeaders().set("Link", String.join(", ", links));
+        }
+
+        send(exchange, 200, body);
+    }
+
+    private void getRef(HttpExchange exchange, FakeRepository repository, String branch) throws IOException {
+        String sha = repository.branches.get(branch);
+        if (sha == null) {
+            send(exchange, 404, message("Not Found"));
+        } else {
+            send(exchange, 200, ref(branch, sha));
+        }
+    }
+
+    private void matchingRefs(HttpExchange exchange, FakeRepository repository, String prefix) throws IOException {
+        JsonArray body = new JsonArray();
+        repository.branches.forEach((branch, sha) -> {
+            if (branch.startsWith(prefix)) {
+                body.add(ref(branch, sha));
+            }
+        });
+        send(exchange, 200, body);
+    }
+
+    private void createRef(HttpExchange exchange, FakeRepository repository, JsonObject request) throws IOException {
+        String branch = request.get("ref").getAsString().replaceFirst("^refs/heads/", "");
+        String sha = request.get("sha").getAsString();
+
+        if (repository.branches.putIfAbsent(branch, sha) != null) {
+            send(exchange, 422, message("Reference already exists"));
+        } else {
+            send(exchange, 201, ref(branch, sha));
+        }
+    }
+
+    private void updateRef(HttpExchange exchange, FakeRepository repository, String branch, JsonObject request)
+            throws IOException {
+        String sha = request.get("sha").getAsString();
+
+        if (repository.branches.replace(branch, sha) == null) {
+            send(exchange, 422, message("Reference does not exist"));
+        } else {
+            send(exchange, 200, ref(branch, sha));
+        }
+    }
+
+    private void getCommit(HttpExchange exchange, FakeRepository repository, String sha) throws IOException {
+        String treeSha = repository.commitTrees.get(sha);
+        if (treeSha == null) {
+            send(exchange, 404, message("Not Found"));
+        } else {
+            send(exchange, 200, commit(sha, treeSha));
+        }
+    }
+
+    private void createCommit(HttpExchange exchange, FakeRepository repository, JsonObject request) throws IOException {
+        String sha = nextSha();
+        String treeSha = request.get("tree").getAsString();
+        repository.commitTrees.put(sha, treeSha);
+        send(exchange, 201, commit(sha, treeSha));
+    }
+
+    private void createTree(HttpExchange exchange, FakeRepository repository, JsonObject request) throws IOException {
+        Map<String, String> baseTree = repository.trees.get(request.get("base_tree").getAsString());
+        Map<String, String> tree = baseTree == null ? new HashMap<>() : new HashMap<>(baseTree);
+
+        for (JsonElement element : request.getAsJsonArray("tree")) {
+            JsonObject entry = element.getAsJsonObject();
+            String blobSha = entry.has("content")
+                    ? FileHelper.gitBlobSha(entry.get("content").getAsString())
+                    : entry.get("sha").getAsString();
+            tree.put(entry.get("path").getAsString(), blobSha);
+        }
+
+        send(exchange, 201, shaObject(repository.addTree(nextSha(), tree)));
+    }
+
+    private void getContents(HttpExchange exchange, FakeRepository repository, String filePath,
+                             Map<String, String> query) throws IOException {
+        Map<String, String> tree = repository.branchTree(query.getOrDefault("ref", DEFAULT_BRANCH));
+        if (tree == null) {
+            send(exchange, 404, message("No commit found for the ref"));
+            return;
+        }
+
+        String sha = tree.get(filePath);
+        if (sha != null) {
+            send(exchange, 200, contentEntry(filePath, "file", sha));
+            return;
+        }
+
+        // Directory listing: direct children only, subdirectories reported once
+        String prefix = filePath.isEmpty() ? "" : filePath + "/";
+        Map<String, JsonObject> children = new TreeMap<>();
+        tree.forEach((path, blobSha) -> {
+            if (path.startsWith(prefix)) {
+                String rest = path.substring(prefix.length());
+                int separator = rest.indexOf('/');
+                String name = separator < 0 ? rest : rest.substring(0, separator);
+                children.put(name, separator < 0
+                        ? contentEntry(prefix + name, "file", blobSha)
+                        : contentEntry(prefix + name, "dir", nextSha()));
+            }
+        });
+
+        if (children.isEmpty() && !filePath.isEmpty()) {
+            send(exchange, 404, message("Not Found"));
+            return;
+        }
+
+        JsonArray body = new JsonArray();
+        children.values().forEach(body::add);
+        send(exchange, 200, body);
+    }
+
+    private void putContents(HttpExchange exchange, FakeRepository repository, String filePath, JsonObject request)
+            throws IOException {
+        String branch = request.get("branch").getAsString();
+        Map<String, String> tree = repository.branchTree(branch);
+        if (tree == null) {
+            send(exchange, 404, message("Branch not found"));
+            return;
+        }
+
+        String existingSha = tree.get(filePath);
+        if (existingSha != null && (!request.has("sha") || !request.get("sha").getAsString().equals(existingSha))) {
+            send(exchange, 409, message(filePath + " does not match " + existingSha));
+            return;
+        }
+
+        String blobSha = FileHelper.gitBlobSha(decode(request.get("content").getAsString()));
+        Map<String, String> newTree = new HashMap<>(tree);
+        newTree.put(filePath, blobSha);
+
+        String commitSha = nextSha();
+        repository.commitTrees.put(commitSha, repository.addTree(nextSha(), newTree));
+        repository.branches.put(branch, commitSha);
+
+        JsonObject body = new JsonObject();
+        body.add("content", contentEntry(filePath, "file", blobSha));
+        body.add("commit", shaObject(commitSha));
+        send(exchange, existingSha == null ? 201 : 200, body);
+    }
+
+    private void listPullRequests(HttpExchange exchange, FakeRepository repository, Map<String, String> query)
+            throws IOException {
+        // Heads are given as "owner:branch"; every open pull request in the fake is from its own repository
+        String head = query.get("head");
+        String branch = head == null ? null : head.substring(head.indexOf(':') + 1);
+
+        JsonArray body = new JsonArray();
+        for (String pullRequestHead : repository.pullRequestHeads) {
+            if (branch == null || branch.equals(pullRequestHead)) {
+                JsonObject pullRequest = new JsonObject();
+                pullRequest.addProperty("state", "open");
+                body.add(pullRequest);
+            }
+        }
+        send(exchange, 200, body);
+    }
+
+    private void createPullRequest(HttpExchange exchange, FakeRepository repository, String repo, JsonObject request)
+            throws IOException {
+        String head = request.get("head").getAsString();
+        if (!repository.branches.containsKey(head)) {
+            send(exchange, 422, message("Validation Failed"));
+            return;
+        }
+
+        if (!repository.pullRequestHeads.add(head)) {
+            send(exchange, 422, message("A pull request already exists for " + head + "."));
+            return;
+        }
+
+        int number = repository.pullNumbers.incrementAndGet();
+        pullRequestCount.incrementAndGet();
+
+        JsonObject body = new JsonObject();
+        body.addProperty("number", number);
+        body.addProperty("html_url", "https://github.com/" + repo + "/pull/" + number);
+        send(exchange, 201, body);
+    }
+
+    private void simulateLatency() {
+        long latency = settings.latencyMillis;
+        if (settings.latencyJitterMillis > 0) {
+            latency += ThreadLocalRandom.current().nextLong(settings.latencyJitterMillis + 1);
+        }
+        if (latency <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes one request from the current rate limit window and sets the X-RateLimit-* headers.
+     * @return false if the window is exhausted.
+     */
+    private boolean acquireRateLimit(HttpExchange exchange) {
+        if (settings.rateLimit <= 0) {
+            return true;
+        }
+
+        int remaining;
+        long resetMillis;
+        boolean allowed;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now >= rateLimitResetMillis) {
+                rateLimitRemaining = settings.rateLimit;
+                rateLimitResetMillis = now + settings.rateLimitWindowMillis;
+            }
+
+            allowed = rateLimitRemaining > 0;
+            if (allowed) {
+                rateLimitRemaining--;
+            }
+            remaining = rateLimitRemaining;
+            resetMillis = rateLimitResetMillis;
+        }
+
+        exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(settings.rateLimit));
+        exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining));
+        exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf((resetMillis + 999) / 1000));
+        return allowed;
+    }
+
+    private String pageLink(int perPage, int page, String relation) {
+        return String.format("<%s/user/repos?per_page=%d&page=%d>; rel=\"%s\"", getBaseUrl(), perPage, page, relation);
+    }
+
+    private String nextSha() {
+        return String.format("%040x", shaSequence.incrementAndGet());
+    }
+
+    private static JsonObject ref(String branch, String sha) {
+        JsonObject object = shaObject(sha);
+        object.addProperty("type", "commit");
+
+        JsonObject ref = new JsonObject();
+        ref.addProperty("ref", "refs/heads/" + branch);
+        ref.add("object", object);
+        return ref;
+    }
+
+    private static JsonObject commit(String sha, String treeSha) {
+        JsonObject commit = shaObject(sha);
+        commit.add("tree", shaObject(treeSha));
+        return commit;
+    }
+
+    private static JsonObject shaObject(String sha) {
+        JsonObject object = new JsonObject();
+        object.addProperty("sha", sha);
+        return object;
+    }
+
+    private static JsonObject contentEntry(String path, String type, String sha) {
+        JsonObject entry = shaObject(sha);
+        entry.addProperty("name", path.substring(path.lastIndexOf('/') + 1));
+        entry.addProperty("path", path);
+        entry.addProperty("type", type);
+        return entry;
+    }
+
+    private static String decode(String base64) {
+        return new String(Base64.getMimeDecoder().decode(base64), StandardCharsets.UTF_8);
+    }
+
+    private static JsonObject message(String text) {
+        JsonObject object = new JsonObject();
+        object.addProperty("message", text);
+        return object;
+    }
+
+    private static JsonObject readJson(HttpExchange exchange) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        }
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return parameters;
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, JsonElement body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Behaviour of the fake server. All values default to a fast, error-free server without rate limiting.
+     */
+    public static class Settings {
+        private int repositoryCount = 10;
+        private long latencyMillis;
+        private long latencyJitterMillis;
+        private double errorRate;
+        private int rateLimit;
+        private long rateLimitWindowMillis = 60_000;
+
+        /**
+         * @param repositoryCount Number of repositories listed by /user/repos, each with a main branch.
+         */
+        public Settings repositoryCount(int repositoryCount) {
+            this.repositoryCount = repositoryCount;
+            return this;
+        }
+
+        /**
+         * @param latencyMillis Fixed delay before every response.
+         * @param jitterMillis Additional random delay of up to this many milliseconds.
+         */
+        public Settings latency(long latencyMillis, long jitterMillis) {
+            this.latencyMillis = latencyMillis;
+            this.latencyJitterMillis = jitterMillis;
+            return this;
+        }
+
+        /**
+         * @param errorRate Share of requests (0.0 - 1.0) answered with 502 without side effects.
+         */
+        public Settings errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * @param requests Requests allowed per window; 0 disables rate limiting.
+         * @param windowMillis Length of a rate limit window.
+         */
+        public Settings rateLimit(int requests, long windowMillis) {
+            this.rateLimit = requests;
+            this.rateLimitWindowMillis = windowMillis;
+            return this;
+        }
+    }
+
+    private static class FakeRepository {
+        private final int id;
+        private final Map<String, String> branches = new ConcurrentHashMap<>();
+        private final Map<String, String> commitTrees = new ConcurrentHashMap<>();
+        // Tree SHA -> file path -> blob SHA
+        private final Map<String, Map<String, String>> trees = new ConcurrentHashMap<>();
+        private final AtomicInteger pullNumbers = new AtomicInteger();
+        private final Set<String> pullRequestHeads = ConcurrentHashMap.newKeySet();
+
+        FakeRepository(int id, String headSha, String treeSha) {
+            this.id = id;
+            branches.put(DEFAULT_BRANCH, headSha);
+            commitTrees.put(headSha, addTree(treeSha, new HashMap<>()));
+        }
+
+        String addTree(String treeSha, Map<String, String> files) {
+            trees.put(treeSha, Collections.unmodifiableMap(files));
+            return treeSha;
+        }
+
+        /**
+         * @return Files of the branch head, or null if the branch does not exist.
+         */
+        Map<String, String> branchTree(String branch) {
+            String headSha = branches.get(branch);
+            return headSha == null ? null : trees.get(commitTrees.get(headSha));
+        }
+    }
+}
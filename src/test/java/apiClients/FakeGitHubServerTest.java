@@ -0,0 +1,93 @@
+package apiClients;
+
+import dataModels.FileDetails;
+import dataModels.Repository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FakeGitHubServerTest {
+
+    private FakeGitHubServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void testListRepositories_FollowsPagination() throws IOException {
+        GitHubApiClient client = start(new FakeGitHubServer.Settings().repositoryCount(250));
+
+        List<Repository> repositories = client.listRepositories();
+
+        assertEquals(250, repositories.size());
+        assertEquals("fake-org/repo-0001", repositories.get(0).getFullName());
+        assertEquals("fake-org/repo-0250", repositories.get(249).getFullName());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void testMergeRequestFlow_UpdatesBranchAndOpensPullRequest() throws IOException {
+        GitHubApiClient client = start(new FakeGitHubServer.Settings().repositoryCount(1));
+        String repo = "fake-org/repo-0001";
+
+        assertTrue(client.createBranch(repo, "feature"));
+        assertEquals("feature-1", client.resolveUniqueBranchName(repo, "feature"));
+        assertTrue(client.commitFiles(repo, "feature",
+                Collections.singletonList(new FileDetails("Hello.txt", "Hello world")), "Add Hello.txt"));
+        assertTrue(client.commitFile(repo, "feature", "Other.txt", "Other"));
+        assertTrue(client.createPullRequest(repo, "feature", "Title", "Body"));
+
+        assertNotEquals(server.getBranchHead(repo, "main"), server.getBranchHead(repo, "feature"));
+        assertEquals(1, server.getPullRequestCount());
+    }
+
+    @Test
+    void testRerun_OnlyReadsWhenContentIsInPlace() throws IOException {
+        GitHubApiClient client = start(new FakeGitHubServer.Settings().repositoryCount(1));
+        String repo = "fake-org/repo-0001";
+        List<FileDetails> files = Collections.singletonList(new FileDetails("docs/Hello.txt", "Hello world"));
+
+        assertEquals(files, client.filterChangedFiles(repo, "main", files));
+        assertTrue(client.commitFiles(repo, "main", files, "Add Hello.txt"));
+        String head = server.getBranchHead(repo, "main");
+
+        assertTrue(client.filterChangedFiles(repo, "main", files).isEmpty());
+        assertTrue(client.commitFile(repo, "main", "docs/Hello.txt", "Hello world"));
+        assertEquals(head, server.getBranchHead(repo, "main")); // No empty commit
+    }
+
+    @Test
+    void testErrorRate_FailsRequests() throws IOException {
+        GitHubApiClient client = start(new FakeGitHubServer.Settings().repositoryCount(1).errorRate(1.0));
+
+        assertThrows(IOException.class, () -> client.createBranch("fake-org/repo-0001", "feature"));
+        assertNull(server.getBranchHead("fake-org/repo-0001", "feature"));
+    }
+
+    @Test
+    void testRateLimit_ClientWaitsForReset() throws IOException {
+        GitHubApiClient client = start(new FakeGitHubServer.Settings().repositoryCount(1).rateLimit(3, 500));
+
+        // Different branches each time, since repeating the same read is served from the client's read cache
+        assertTrue(client.branchExists("fake-org/repo-0001", "main"));
+        for (int i = 0; i < 4; i++) {
+            assertFalse(client.branchExists("fake-org/repo-0001", "feature-" + i));
+        }
+
+        assertTrue(server.getRequestCount() > 5); // At least one request was rejected and retried
+    }
+
+    private GitHubApiClient start(FakeGitHubServer.Settings settings) throws IOException {
+        server = new FakeGitHubServer(settings);
+        return new GitHubApiClient("test_token", server.getBaseUrl());
+    }
+}
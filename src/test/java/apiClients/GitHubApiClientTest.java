@@ -0,0 +1,336 @@
+package apiClients;
+
+import dataModels.FileDetails;
+import dataModels.Repository;
+import helpers.FileHelper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubApiClientTest {
+
+    private MockWebServer server;
+    private GitHubApiClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new GitHubApiClient("test_token", server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void testCommitFilesAsync_ConstantRequestCount() throws Exception {
+        server.enqueue(json("{\"object\":{\"sha\":\"head\"}}"));
+        server.enqueue(json("{\"tree\":{\"sha\":\"base-tree\"}}"));
+        server.enqueue(json("{\"sha\":\"new-tree\"}"));
+        server.enqueue(json("{\"sha\":\"new-commit\"}"));
+        server.enqueue(json("{\"object\":{\"sha\":\"new-commit\"}}"));
+
+        List<FileDetails> files = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            files.add(new FileDetails("dir/file" + i + ".txt", "content " + i));
+        }
+
+        CompletableFuture<Boolean> result = client.commitFilesAsync("user/repo1", "feature", files, "Add files");
+
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+        assertEquals(5, server.getRequestCount());
+        assertEquals("GET /repos/user/repo1/git/ref/heads/feature", requestLine(server.takeRequest()));
+        assertEquals("GET /repos/user/repo1/git/commits/head", requestLine(server.takeRequest()));
+        RecordedRequest tree = server.takeRequest();
+        assertEquals("POST /repos/user/repo1/git/trees", requestLine(tree));
+        assertTrue(tree.getBody().readUtf8().contains("\"base_tree\":\"base-tree\""));
+        assertEquals("POST /repos/user/repo1/git/commits", requestLine(server.takeRequest()));
+        RecordedRequest ref = server.takeRequest();
+        assertEquals("PATCH /repos/user/repo1/git/refs/heads/feature", requestLine(ref));
+        assertEquals("{\"sha\":\"new-commit\"}", ref.getBody().readUtf8());
+    }
+
+    @Test
+    void testCommitFilesAsync_StreamsPathBackedFilesAsBlobs() throws Exception {
+        byte[] binary = {0, (byte) 0xFF, 0x10, 0x7F, (byte) 0x80};
+        Path asset = Files.createTempFile("asset", ".bin");
+        Files.write(asset, binary);
+
+        try {
+            server.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    String path = request.getPath();
+                    if (path.endsWith("/git/blobs")) return json("{\"sha\":\"blob-sha\"}");
+                    if (path.contains("/git/ref/")) return json("{\"object\":{\"sha\":\"head\"}}");
+                    if (path.contains("/git/commits/")) return json("{\"tree\":{\"sha\":\"base-tree\"}}");
+                    return json("{\"sha\":\"created\",\"object\":{\"sha\":\"created\"}}");
+                }
+            });
+
+            List<FileDetails> files = List.of(new FileDetails("Hello.txt", "Hello world"),
+                    FileDetails.fromPath("assets/logo.bin", asset));
+
+            assertTrue(client.commitFilesAsync("user/repo1", "feature", files, "Add files").get(5, TimeUnit.SECONDS));
+
+            RecordedRequest blob = null;
+            RecordedRequest tree = null;
+            for (int i = 0; i < server.getRequestCount(); i++) {
+                RecordedRequest request = server.takeRequest();
+                if (request.getPath().endsWith("/git/blobs")) blob = request;
+                if (request.getPath().endsWith("/git/trees")) tree = request;
+            }
+
+            assertNotNull(blob);
+            String encoded = Base64.getEncoder().encodeToString(binary);
+            assertEquals("{\"encoding\":\"base64\",\"content\":\"" + encoded + "\"}", blob.getBody().readUtf8());
+            assertEquals(String.valueOf(blob.getBodySize()), blob.getHeader("Content-Length"));
+            String treeBody = tree.getBody().readUtf8();
+            assertTrue(treeBody.contains("\"sha\":\"blob-sha\""));
+            assertTrue(treeBody.contains("\"content\":\"Hello world\""));
+        } finally {
+            Files.deleteIfExists(asset);
+        }
+    }
+
+    @Test
+    void testCommitFilesAsync_RetriesFailedBlobOnly() throws Exception {
+        GitHubApiClient retryingClient = new GitHubApiClient("test_token", server.url("").toString().replaceAll("/$", ""),
+                HttpTransport.defaultTransport(), new BlobUploader(4, Long.MAX_VALUE, 3, 0));
+        Path first = Files.createTempFile("first", ".bin");
+        Path second = Files.createTempFile("second", ".bin");
+        Files.write(first, new byte[]{1});
+        Files.write(second, new byte[]{2});
+
+        try {
+            AtomicInteger blobRequests = new AtomicInteger();
+            server.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    String path = request.getPath();
+                    if (path.endsWith("/git/blobs")) {
+                        // The second file's first upload fails
+                        boolean secondFile = request.getBody().readUtf8().contains("\"Ag==\"");
+                        if (secondFile && blobRequests.incrementAndGet() == 1) {
+                            return new MockResponse().setResponseCode(502);
+                        }
+                        return json("{\"sha\":\"blob-sha\"}");
+                    }
+                    if (path.contains("/git/ref/")) return json("{\"object\":{\"sha\":\"head\"}}");
+                    if (path.contains("/git/commits/")) return json("{\"tree\":{\"sha\":\"base-tree\"}}");
+                    return json("{\"sha\":\"created\",\"object\":{\"sha\":\"created\"}}");
+                }
+            });
+
+            List<FileDetails> files = List.of(FileDetails.fromPath("first.bin", first),
+                    FileDetails.fromPath("second.bin", second));
+
+            assertTrue(retryingClient.commitFilesAsync("user/repo1", "feature", files, "Add files")
+                    .get(5, TimeUnit.SECONDS));
+
+            int blobUploads = 0;
+            for (int i = server.getRequestCount(); i > 0; i--) {
+                if (server.takeRequest().getPath().endsWith("/git/blobs")) blobUploads++;
+            }
+            assertEquals(3, blobUploads); // Two files, one retry
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+
+    @Test
+    void testCreateBranchAsync_MissingBaseBranchFails() {
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> client.createBranchAsync("user/repo1", "feature").join());
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+
+    @Test
+    void testListRepositories_FollowsAllPages() throws IOException {
+        String last = server.url("/user/repos?per_page=100&page=3").toString();
+        // Pages 2 and 3 are requested concurrently, so answer by page number rather than arrival order
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String page = request.getRequestUrl().queryParameter("page");
+                MockResponse response = json("[{\"full_name\":\"user/repo" + page + "\"}]");
+                return "1".equals(page) ? response.setHeader("Link", "<" + last + ">; rel=\"last\"") : response;
+            }
+        });
+
+        List<String> names = new ArrayList<>();
+        client.listRepositories(repo -> names.add(repo.getFullName()));
+
+        assertEquals(List.of("user/repo1", "user/repo2", "user/repo3"), names);
+    }
+
+    @Test
+    void testListRepositories_RequestsPagesOnlyAsEarlierOnesAreEmitted() throws IOException {
+        String last = server.url("/user/repos?per_page=100&page=20").toString();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String page = request.getRequestUrl().queryParameter("page");
+                MockResponse response = json("[{\"full_name\":\"user/repo" + page + "\"}]");
+                return "1".equals(page) ? response.setHeader("Link", "<" + last + ">; rel=\"last\"") : response;
+            }
+        });
+
+        List<Integer> requestedBeforeEmit = new ArrayList<>();
+        client.listRepositories(repo -> requestedBeforeEmit.add(server.getRequestCount()));
+
+        assertEquals(20, requestedBeforeEmit.size());
+        for (int page = 1; page <= 20; page++) {
+            // Page n is emitted before page n + REPOSITORY_PAGES_IN_FLIGHT is requested
+            assertTrue(requestedBeforeEmit.get(page - 1) <= page + GitHubApiClient.REPOSITORY_PAGES_IN_FLIGHT - 1,
+                    "Too many pages requested ahead of page " + page);
+        }
+    }
+
+    @Test
+    void testFilterChangedFiles_OneListingPerDirectory() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().startsWith("/repos/user/repo1/contents?")) {
+                    return json("[{\"name\":\"README.md\",\"sha\":\"" + FileHelper.gitBlobSha("same")
+                            + "\",\"type\":\"file\"},{\"name\":\"old.txt\",\"sha\":\"x\",\"type\":\"file\"}]");
+                }
+                return new MockResponse().setResponseCode(404); // docs/ does not exist yet
+            }
+        });
+
+        FileDetails unchanged = new FileDetails("README.md", "same");
+        FileDetails modified = new FileDetails("old.txt", "new content");
+        FileDetails added = new FileDetails("docs/guide.md", "guide");
+
+        List<FileDetails> changed = client.filterChangedFiles("user/repo1", "main", List.of(unchanged, modified, added));
+
+        assertEquals(List.of(modified, added), changed);
+        assertEquals(2, server.getRequestCount());
+        List<String> paths = List.of(server.takeRequest().getPath(), server.takeRequest().getPath());
+        assertTrue(paths.contains("/repos/user/repo1/contents?ref=main"));
+        assertTrue(paths.contains("/repos/user/repo1/contents/docs?ref=main"));
+    }
+
+    @Test
+    void testCommitFile_SkipsWriteWhenContentIsUnchanged() throws Exception {
+        server.enqueue(json("{\"sha\":\"" + FileHelper.gitBlobSha("Hello world") + "\"}"));
+
+        assertTrue(client.commitFile("user/repo1", "feature", "Hello.txt", "Hello world"));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals("GET", server.takeRequest().getMethod());
+    }
+
+    @Test
+    void testListRepositoriesUpdatedSince_StopsAtFirstOlderRepository() throws Exception {
+        server.enqueue(json("[{\"id\":3,\"full_name\":\"user/repo3\",\"updated_at\":\"2024-01-05T00:00:00Z\"},"
+                + "{\"id\":1,\"full_name\":\"user/repo1\",\"updated_at\":\"2024-01-03T00:00:00Z\"},"
+                + "{\"id\":2,\"full_name\":\"user/repo2\",\"updated_at\":\"2024-01-02T00:00:00Z\"}]")
+                .setHeader("Link", "<" + server.url("/user/repos?page=2") + ">; rel=\"next\""));
+
+        List<Repository> updated = new ArrayList<>();
+        client.listRepositoriesUpdatedSince(Instant.parse("2024-01-02T00:00:00Z"), updated::add);
+
+        assertEquals(2, updated.size());
+        assertEquals("user/repo3", updated.get(0).getFullName());
+        assertEquals("user/repo1", updated.get(1).getFullName());
+        assertEquals(1, server.getRequestCount()); // The next page is never requested
+        assertEquals("/user/repos?per_page=100&sort=updated&direction=desc", server.takeRequest().getPath());
+    }
+
+    @Test
+    void testBranchExists_RepeatedReadsAreSentOnceUntilBranchIsWritten() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404)); // feature does not exist yet
+        server.enqueue(json("{\"object\":{\"sha\":\"main-sha\"}}")); // main head
+        server.enqueue(json("{\"ref\":\"refs/heads/feature\",\"object\":{\"sha\":\"main-sha\"}}"));
+        server.enqueue(new MockResponse()); // feature exists now
+
+        assertFalse(client.branchExists("user/repo1", "feature"));
+        assertFalse(client.branchExists("user/repo1", "feature"));
+        assertTrue(client.createBranch("user/repo1", "feature"));
+        assertTrue(client.branchExists("user/repo1", "feature"));
+        assertTrue(client.branchExists("user/repo1", "feature"));
+
+        assertEquals(4, server.getRequestCount());
+        assertEquals("HEAD /repos/user/repo1/git/ref/heads/feature", requestLine(server.takeRequest()));
+        assertEquals("GET /repos/user/repo1/git/ref/heads/main", requestLine(server.takeRequest()));
+        assertEquals("POST /repos/user/repo1/git/refs", requestLine(server.takeRequest()));
+        assertEquals("HEAD /repos/user/repo1/git/ref/heads/feature", requestLine(server.takeRequest()));
+    }
+
+    @Test
+    void testPullRequestExists_ListsOpenPullRequestsFromOwnersBranch() throws Exception {
+        server.enqueue(json("[{\"number\":3,\"state\":\"open\"}]"));
+        server.enqueue(json("[]"));
+
+        assertTrue(client.pullRequestExists("user/repo1", "feature"));
+        assertFalse(client.pullRequestExists("user/repo1", "other"));
+
+        assertEquals("GET /repos/user/repo1/pulls?state=open&head=user:feature&per_page=1",
+                requestLine(server.takeRequest()));
+    }
+
+    @Test
+    void testGetBranchSha_RevalidatedWithValidatorsFromEarlierRun() throws Exception {
+        server.enqueue(json("{\"object\":{\"sha\":\"main-sha\"}}").setHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        assertEquals("main-sha", client.getBranchShaAsync("user/repo1", "main").get(5, TimeUnit.SECONDS));
+        Path cacheFile = Files.createTempFile("http-cache", ".json");
+        client.getResponseCache().save(cacheFile);
+
+        GitHubApiClient nextRun = new GitHubApiClient("test_token", server.url("").toString().replaceAll("/$", ""));
+        nextRun.getResponseCache().load(cacheFile);
+        Files.delete(cacheFile);
+
+        assertEquals("main-sha", nextRun.getBranchShaAsync("user/repo1", "main").get(5, TimeUnit.SECONDS));
+        server.takeRequest();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    void testCreatePullRequest_ResponseBodyIsDiscardedAndConnectionReused() throws Exception {
+        // Not JSON: decoding the body would fail
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("<html>" + "x".repeat(100_000) + "</html>"));
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("<html></html>"));
+
+        assertTrue(client.createPullRequest("user/repo1", "feature", "Title", "Body"));
+        assertTrue(client.createPullRequest("user/repo2", "feature", "Title", "Body"));
+
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber()); // Same connection as the first request
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static String requestLine(RecordedRequest request) {
+        return request.getMethod() + " " + request.getPath();
+    }
+}
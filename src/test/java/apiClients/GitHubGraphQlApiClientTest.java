@@ -0,0 +1,196 @@
+package apiClients;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dataModels.FileDetails;
+import dataModels.RepositoryPreflight;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubGraphQlApiClientTest {
+
+    private MockWebServer server;
+    private GitHubGraphQlApiClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new GitHubGraphQlApiClient("test_token", server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void testMergeRequestFlow_FourRequestsForAnyNumberOfFiles() throws Exception {
+        server.enqueue(data("{\"repository\":{\"id\":\"R_1\",\"ref\":{\"target\":{\"oid\":\"main-head\"}}}}"));
+        server.enqueue(data("{\"createRef\":{\"ref\":{\"name\":\"feature\"}}}"));
+        server.enqueue(data("{\"createCommitOnBranch\":{\"commit\":{\"oid\":\"new-commit\"}}}"));
+        server.enqueue(data("{\"createPullRequest\":{\"pullRequest\":{\"url\":\"https://github.com/user/repo1/pull/1\"}}}"));
+
+        List<FileDetails> files = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            files.add(new FileDetails("file" + i + ".txt", "content " + i));
+        }
+
+        assertTrue(client.createBranch("user/repo1", "feature"));
+        assertTrue(client.commitFiles("user/repo1", "feature", files, "Add files"));
+        assertTrue(client.createPullRequest("user/repo1", "feature", "Title", "Body"));
+        assertEquals(4, server.getRequestCount());
+
+        server.takeRequest();
+        JsonObject createRef = input(server.takeRequest().getBody().readUtf8());
+        assertEquals("R_1", createRef.get("repositoryId").getAsString());
+        assertEquals("main-head", createRef.get("oid").getAsString());
+
+        JsonObject commit = input(server.takeRequest().getBody().readUtf8());
+        assertEquals("main-head", commit.get("expectedHeadOid").getAsString());
+        assertEquals(30, commit.getAsJsonObject("fileChanges").getAsJsonArray("additions").size());
+
+        JsonObject pullRequest = input(server.takeRequest().getBody().readUtf8());
+        assertEquals("R_1", pullRequest.get("repositoryId").getAsString());
+        assertEquals("feature", pullRequest.get("headRefName").getAsString());
+    }
+
+    @Test
+    void testGraphQlErrors_AreReportedAsIOException() {
+        server.enqueue(new MockResponse().setBody("{\"errors\":[{\"message\":\"Could not resolve to a Repository\"}]}"));
+
+        IOException e = assertThrows(IOException.class, () -> client.branchExists("user/missing", "main"));
+        assertTrue(e.getMessage().contains("Could not resolve"));
+    }
+
+    @Test
+    void testResolveUniqueBranchName() throws IOException {
+        server.enqueue(data("{\"repository\":{\"refs\":{\"nodes\":[{\"name\":\"feature\"},{\"name\":\"feature-1\"}],"
+                + "\"pageInfo\":{\"hasNextPage\":false,\"endCursor\":null}}}}"));
+
+        assertEquals("feature-2", client.resolveUniqueBranchName("user/repo1", "feature"));
+    }
+
+    @Test
+    void testPreflight_OneQueryPerHundredRepositories() throws Exception {
+        // repo-7 is missing, even repositories have the branch, every third one has the file
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                JsonObject variables = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject()
+                        .getAsJsonObject("variables");
+                JsonObject data = new JsonObject();
+                JsonArray errors = new JsonArray();
+                for (int i = 0; variables.has("n" + i); i++) {
+                    int number = Integer.parseInt(variables.get("n" + i).getAsString().substring("repo-".length()));
+                    if (number == 7) {
+                        data.add("r" + i, null);
+                        errors.add(JsonParser.parseString("{\"type\":\"NOT_FOUND\",\"path\":[\"r" + i + "\"],"
+                                + "\"message\":\"Could not resolve to a Repository\"}"));
+                        continue;
+                    }
+                    String branch = number % 2 == 0 ? "{\"target\":{\"oid\":\"feature-" + number + "\"}}" : "null";
+                    String file = number % 3 == 0 ? "{\"oid\":\"blob-" + number + "\"}" : "null";
+                    data.add("r" + i, JsonParser.parseString("{\"id\":\"R_" + number + "\","
+                            + "\"base\":{\"target\":{\"oid\":\"main-" + number + "\"}},"
+                            + "\"branch\":" + branch + ",\"f0\":" + file + "}"));
+                }
+
+                JsonObject body = new JsonObject();
+                body.add("data", data);
+                body.add("errors", errors);
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(body.toString());
+            }
+        });
+
+        List<String> repos = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            repos.add("user/repo-" + i);
+        }
+
+        Map<String, RepositoryPreflight> results = client.preflight(repos, "feature", List.of("Hello.txt"));
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(repos, new ArrayList<>(results.keySet()));
+        assertFalse(results.get("user/repo-7").isFound());
+
+        RepositoryPreflight repo6 = results.get("user/repo-6");
+        assertEquals("main-6", repo6.getBaseBranchSha());
+        assertEquals("feature-6", repo6.getBranchSha());
+        assertEquals("blob-6", repo6.getFileSha("Hello.txt"));
+
+        RepositoryPreflight repo143 = results.get("user/repo-143");
+        assertTrue(repo143.isFound());
+        assertFalse(repo143.branchExists());
+        assertFalse(repo143.fileExists("Hello.txt"));
+    }
+
+    @Test
+    void testPreflight_NoDataWhenEveryRepositoryIsMissing() throws IOException {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("{\"data\":null,"
+                + "\"errors\":[{\"type\":\"NOT_FOUND\",\"path\":[\"r0\"],\"message\":\"Could not resolve\"},"
+                + "{\"type\":\"NOT_FOUND\",\"path\":[\"r1\"],\"message\":\"Could not resolve\"}]}"));
+
+        Map<String, RepositoryPreflight> results = client.preflight(List.of("user/gone", "user/also-gone"), "feature",
+                List.of("Hello.txt"));
+
+        assertFalse(results.get("user/gone").isFound());
+        assertFalse(results.get("user/also-gone").isFound());
+    }
+
+    @Test
+    void testCreateBranch_AfterPreflightStartsFromPreflightedBaseHead() throws Exception {
+        server.enqueue(data("{\"r0\":{\"id\":\"R_1\",\"base\":{\"target\":{\"oid\":\"main-head\"}},"
+                + "\"branch\":null,\"f0\":null}}"));
+        server.enqueue(data("{\"createRef\":{\"ref\":{\"name\":\"feature\"}}}"));
+
+        client.preflight(List.of("user/repo1"), "feature", List.of("Hello.txt"));
+        assertTrue(client.createBranch("user/repo1", "feature"));
+
+        assertEquals(2, server.getRequestCount());
+        server.takeRequest();
+        JsonObject createRef = input(server.takeRequest().getBody().readUtf8());
+        assertEquals("R_1", createRef.get("repositoryId").getAsString());
+        assertEquals("main-head", createRef.get("oid").getAsString());
+    }
+
+    @Test
+    void testCommitFiles_AfterPreflightUsesCurrentBranchHead() throws Exception {
+        server.enqueue(data("{\"r0\":{\"id\":\"R_1\",\"base\":{\"target\":{\"oid\":\"main-head\"}},"
+                + "\"branch\":{\"target\":{\"oid\":\"feature-at-preflight\"}},\"f0\":null}}"));
+        server.enqueue(data("{\"repository\":{\"id\":\"R_1\",\"ref\":{\"target\":{\"oid\":\"feature-now\"}}}}"));
+        server.enqueue(data("{\"createCommitOnBranch\":{\"commit\":{\"oid\":\"new-commit\"}}}"));
+
+        client.preflight(List.of("user/repo1"), "feature", List.of("Hello.txt"));
+        // Someone pushes to the branch between the preflight and the commit
+        assertTrue(client.commitFiles("user/repo1", "feature", List.of(new FileDetails("Hello.txt", "Hi")), "Add"));
+
+        server.takeRequest();
+        server.takeRequest();
+        JsonObject commit = input(server.takeRequest().getBody().readUtf8());
+        assertEquals("feature-now", commit.get("expectedHeadOid").getAsString());
+    }
+
+    private static MockResponse data(String data) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody("{\"data\":" + data + "}");
+    }
+
+    private static JsonObject input(String requestBody) {
+        return JsonParser.parseString(requestBody).getAsJsonObject()
+                .getAsJsonObject("variables")
+                .getAsJsonObject("input");
+    }
+}
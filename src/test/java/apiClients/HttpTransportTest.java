@@ -0,0 +1,62 @@
+package apiClients;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTransportTest {
+
+    @Test
+    void testFromConfig_AppliesSettings() throws IOException {
+        Path config = Files.createTempFile("test-config", ".properties");
+        try {
+            Files.writeString(config, "HTTP_MAX_REQUESTS=10\nHTTP_MAX_REQUESTS_PER_HOST=7\nHTTP2_ENABLED=false\n");
+
+            OkHttpClient client = HttpTransport.fromConfig(config.toString()).client();
+
+            assertEquals(10, client.dispatcher().getMaxRequests());
+            assertEquals(7, client.dispatcher().getMaxRequestsPerHost());
+            assertEquals(Collections.singletonList(Protocol.HTTP_1_1), client.protocols());
+        } finally {
+            Files.deleteIfExists(config);
+        }
+    }
+
+    @Test
+    void testFromConfig_MissingFileUsesDefaults() {
+        OkHttpClient client = HttpTransport.fromConfig("does-not-exist.properties").client();
+
+        assertEquals(32, client.dispatcher().getMaxRequestsPerHost());
+        assertEquals(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1), client.protocols());
+    }
+
+    @Test
+    void testClientsOnSameTransport_ShareConnections() throws IOException {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse()); // branchExists sends HEAD, answered without a body
+            server.enqueue(new MockResponse());
+            server.start();
+            String baseUrl = server.url("").toString().replaceAll("/$", "");
+
+            HttpTransport transport = new HttpTransport(64, 32, 8, 300, 0, true);
+            GitHubApiClient first = new GitHubApiClient("test_token", baseUrl, transport);
+            GitHubApiClient second = new GitHubApiClient("test_token", baseUrl, transport);
+
+            assertTrue(first.branchExists("user/repo1", "main"));
+            assertTrue(second.branchExists("user/repo1", "main"));
+
+            assertEquals(0.0, first.getMetrics().getConnectionReuseRatio());
+            assertEquals(1.0, second.getMetrics().getConnectionReuseRatio()); // Connection opened by the first client
+        }
+    }
+}
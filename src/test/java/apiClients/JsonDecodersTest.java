@@ -0,0 +1,62 @@
+package apiClients;
+
+import com.google.gson.stream.JsonReader;
+import dataModels.Repository;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonDecodersTest {
+
+    @Test
+    void testRepositories_KeepsOnlyUsedFields() throws IOException {
+        String page = "[{\"id\":1,\"name\":\"repo1\",\"full_name\":\"user/repo1\","
+                + "\"owner\":{\"login\":\"user\",\"id\":7},\"topics\":[\"a\",\"b\"],\"updated_at\":\"2024-01-01T00:00:00Z\"},"
+                + "{\"id\":2,\"full_name\":\"user/repo2\",\"updated_at\":null}]";
+
+        List<Repository> repositories = JsonDecoders.REPOSITORIES.decode(reader(page));
+
+        assertEquals(2, repositories.size());
+        assertEquals(1, repositories.get(0).getId());
+        assertEquals("user/repo1", repositories.get(0).getFullName());
+        assertEquals("2024-01-01T00:00:00Z", repositories.get(0).getUpdatedAt());
+        assertNull(repositories.get(1).getUpdatedAt());
+    }
+
+    @Test
+    void testObjectSha_NestedField() throws IOException {
+        String ref = "{\"ref\":\"refs/heads/main\",\"node_id\":\"x\",\"object\":{\"type\":\"commit\",\"sha\":\"abc\"}}";
+
+        assertEquals("abc", JsonDecoders.OBJECT_SHA.decode(reader(ref)));
+    }
+
+    @Test
+    void testSha_IgnoresNestedFieldsWithSameName() throws IOException {
+        String tree = "{\"tree\":[{\"path\":\"a\",\"sha\":\"nested\"}],\"sha\":\"top\"}";
+
+        assertEquals("top", JsonDecoders.SHA.decode(reader(tree)));
+    }
+
+    @Test
+    void testStringAt_MissingPath() throws IOException {
+        assertNull(JsonDecoders.TREE_SHA.decode(reader("{\"message\":\"Not Found\"}")));
+    }
+
+    @Test
+    void testFileShas_OnlyFilesOfDirectoryListing() throws IOException {
+        String listing = "[{\"name\":\"a.txt\",\"path\":\"dir/a.txt\",\"sha\":\"s1\",\"size\":3,\"type\":\"file\"},"
+                + "{\"name\":\"sub\",\"path\":\"dir/sub\",\"sha\":\"s2\",\"type\":\"dir\"}]";
+
+        assertEquals(Map.of("a.txt", "s1"), JsonDecoders.FILE_SHAS.decode(reader(listing)));
+        assertTrue(JsonDecoders.FILE_SHAS.decode(reader("{\"type\":\"file\",\"sha\":\"s1\"}")).isEmpty());
+    }
+
+    private static JsonReader reader(String json) {
+        return new JsonReader(new StringReader(json));
+    }
+}
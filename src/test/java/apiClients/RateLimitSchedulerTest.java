@@ -0,0 +1,126 @@
+package apiClients;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitSchedulerTest {
+
+    private MockWebServer server;
+    private RecordingScheduler scheduler;
+    private OkHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        scheduler = new RecordingScheduler();
+        client = new OkHttpClient.Builder().addInterceptor(scheduler).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void testSecondaryRateLimit_RetriesAfterRetryAfter() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(403).setHeader("Retry-After", "3")
+                .setBody("{\"message\":\"You have exceeded a secondary rate limit.\"}"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+
+        try (Response response = execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(2, server.getRequestCount());
+        assertEquals(List.of(3000L), scheduler.sleeps);
+    }
+
+    @Test
+    void testSecondaryRateLimit_ExponentialBackoffWithoutRetryAfter() throws IOException {
+        String body = "{\"message\":\"You have exceeded a secondary rate limit.\"}";
+        server.enqueue(new MockResponse().setResponseCode(403).setBody(body));
+        server.enqueue(new MockResponse().setResponseCode(403).setBody(body));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+
+        try (Response response = execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(List.of(100L, 200L), scheduler.sleeps);
+    }
+
+    @Test
+    void testPrimaryRateLimitExhausted_WaitsForReset() throws IOException {
+        long reset = TimeUnit.MILLISECONDS.toSeconds(scheduler.now()) + 10;
+        server.enqueue(new MockResponse().setResponseCode(403)
+                .setHeader("X-RateLimit-Limit", "5000")
+                .setHeader("X-RateLimit-Remaining", "0")
+                .setHeader("X-RateLimit-Reset", String.valueOf(reset)));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+
+        try (Response response = execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(1, scheduler.sleeps.size());
+        assertTrue(scheduler.sleeps.get(0) >= 10_000L, "Retry should wait until the window resets.");
+    }
+
+    @Test
+    void testPlainForbidden_IsNotRetried() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(403).setBody("{\"message\":\"Resource not accessible\"}"));
+
+        try (Response response = execute()) {
+            assertEquals(403, response.code());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertTrue(scheduler.sleeps.isEmpty());
+    }
+
+    @Test
+    void testPacing_OnlyWhenBudgetRunsLow() throws IOException {
+        long reset = TimeUnit.MILLISECONDS.toSeconds(scheduler.now()) + 100;
+        server.enqueue(new MockResponse().setResponseCode(200)
+                .setHeader("X-RateLimit-Limit", "5000")
+                .setHeader("X-RateLimit-Remaining", "4000")
+                .setHeader("X-RateLimit-Reset", String.valueOf(reset)));
+        execute().close();
+        assertEquals(0, scheduler.pacingIntervalMillis(scheduler.now()));
+
+        server.enqueue(new MockResponse().setResponseCode(200)
+                .setHeader("X-RateLimit-Limit", "5000")
+                .setHeader("X-RateLimit-Remaining", "100")
+                .setHeader("X-RateLimit-Reset", String.valueOf(reset)));
+        execute().close();
+        long interval = scheduler.pacingIntervalMillis(scheduler.now());
+        assertTrue(interval > 900 && interval <= 1000, "100 requests over ~100 seconds should be ~1s apart.");
+    }
+
+    private Response execute() throws IOException {
+        return client.newCall(new Request.Builder().url(server.url("/user/repos")).build()).execute();
+    }
+
+    private static class RecordingScheduler extends RateLimitScheduler {
+        private final List<Long> sleeps = new ArrayList<>();
+
+        RecordingScheduler() {
+            super(3, 100);
+        }
+
+        @Override
+        void sleep(long millis) {
+            sleeps.add(millis);
+        }
+    }
+}
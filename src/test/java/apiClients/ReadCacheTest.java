@@ -0,0 +1,91 @@
+package apiClients;
+
+import dataModels.TypedApiResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadCacheTest {
+
+    @Test
+    void testGet_ConcurrentReadsShareOneRequest() {
+        ReadCache cache = new ReadCache();
+        AtomicInteger requests = new AtomicInteger();
+        CompletableFuture<TypedApiResponse<String>> inFlight = new CompletableFuture<>();
+
+        CompletableFuture<TypedApiResponse<String>> first = cache.get("/a", JsonDecoders.SHA, () -> {
+            requests.incrementAndGet();
+            return inFlight;
+        });
+        CompletableFuture<TypedApiResponse<String>> second = cache.get("/a", JsonDecoders.SHA, () -> {
+            requests.incrementAndGet();
+            return inFlight;
+        });
+        first.cancel(false); // Does not affect the other caller
+        inFlight.complete(response("sha", 200));
+
+        assertEquals(1, requests.get());
+        assertEquals("sha", second.join().getValue());
+        assertEquals("sha", cache.get("/a", JsonDecoders.SHA, () -> {
+            throw new AssertionError("Served from the cache");
+        }).join().getValue());
+    }
+
+    @Test
+    void testGet_FailuresAndServerErrorsAreNotKept() {
+        ReadCache cache = new ReadCache();
+
+        CompletableFuture<TypedApiResponse<String>> failed = cache.get("/a", JsonDecoders.SHA,
+                () -> CompletableFuture.failedFuture(new IOException("Connection reset")));
+        assertThrows(CompletionException.class, failed::join);
+        cache.get("/b", JsonDecoders.SHA, () -> CompletableFuture.completedFuture(response(null, 502))).join();
+        cache.get("/c", JsonDecoders.SHA, () -> CompletableFuture.completedFuture(response(null, 404))).join();
+
+        assertEquals(1, cache.size()); // Only the 404
+    }
+
+    @Test
+    void testGet_EvictsLeastRecentlyUsedAndExpires() {
+        ReadCache cache = new ReadCache(2, 60_000);
+        cache.get("/a", JsonDecoders.SHA, () -> CompletableFuture.completedFuture(response("a", 200)));
+        cache.get("/b", JsonDecoders.SHA, () -> CompletableFuture.completedFuture(response("b", 200)));
+        cache.get("/a", JsonDecoders.SHA, () -> CompletableFuture.completedFuture(response("stale", 200)));
+        cache.get("/c", JsonDecoders.SHA, () -> CompletableFuture.completedFuture(response("c", 200)));
+
+        AtomicInteger requests = new AtomicInteger();
+        cache.get("/a", JsonDecoders.SHA, () -> countRequest(requests));
+        cache.get("/b", JsonDecoders.SHA, () -> countRequest(requests));
+        assertEquals(1, requests.get()); // Only "/b" was evicted
+
+        ReadCache expiring = new ReadCache(10, 0);
+        expiring.get("/a", JsonDecoders.SHA, () -> countRequest(requests));
+        expiring.get("/a", JsonDecoders.SHA, () -> countRequest(requests));
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void testInvalidate_DropsMatchingEntries() {
+        ReadCache cache = new ReadCache();
+        cache.get("/repos/a/x", JsonDecoders.SHA, () -> CompletableFuture.completedFuture(response("x", 200)));
+        cache.get("/repos/b/y", JsonDecoders.SHA, () -> CompletableFuture.completedFuture(response("y", 200)));
+
+        cache.invalidate(url -> url.startsWith("/repos/a/"));
+
+        assertEquals(1, cache.size());
+    }
+
+    private static CompletableFuture<TypedApiResponse<String>> countRequest(AtomicInteger requests) {
+        requests.incrementAndGet();
+        return CompletableFuture.completedFuture(response("fresh", 200));
+    }
+
+    private static TypedApiResponse<String> response(String value, int statusCode) {
+        return new TypedApiResponse<>(value, statusCode, Headers.of());
+    }
+}
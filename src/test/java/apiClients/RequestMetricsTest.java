@@ -0,0 +1,116 @@
+package apiClients;
+
+import com.google.gson.JsonObject;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestMetricsTest {
+
+    private static final String BRANCH_ENDPOINT = "HEAD /repos/{owner}/{repo}/git/ref/heads/{branch}";
+
+    private MockWebServer server;
+    private GitHubApiClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new GitHubApiClient("test_token", server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void testEndpointTemplate_ReplacesIdentifiers() {
+        assertEquals(BRANCH_ENDPOINT, template("HEAD", "/repos/octo/hello/git/ref/heads/feature/nested"));
+        assertEquals("GET /repos/{owner}/{repo}/git/commits/{sha}",
+                template("GET", "/repos/octo/hello/git/commits/9fb037999f264ba9a7fc6274d15fa3ae2ab98312"));
+        assertEquals("PUT /repos/{owner}/{repo}/contents/{path}", template("PUT", "/repos/octo/hello/contents/a/b.txt"));
+        assertEquals("GET /repos/{owner}/{repo}/pulls/{number}", template("GET", "/repos/octo/hello/pulls/42"));
+        assertEquals("GET /user/repos", template("GET", "/user/repos?per_page=100&page=3"));
+        assertEquals("POST /graphql", template("POST", "/graphql"));
+    }
+
+    @Test
+    void testCalls_RecordedPerEndpoint() throws IOException {
+        server.enqueue(new MockResponse()); // branchExists sends HEAD, answered without a body
+        server.enqueue(new MockResponse());
+
+        assertTrue(client.branchExists("user/repo1", "main"));
+        assertTrue(client.branchExists("user/repo2", "feature"));
+
+        RequestMetrics metrics = client.getMetrics();
+        assertEquals(2, metrics.getRequestCount(BRANCH_ENDPOINT));
+        assertEquals(0.5, metrics.getConnectionReuseRatio(), 0.001); // Second call reuses the first connection
+
+        JsonObject endpoint = metrics.toJson().getAsJsonObject("endpoints").getAsJsonObject(BRANCH_ENDPOINT);
+        assertTrue(endpoint.get("bytesSent").getAsLong() > 0);
+        assertTrue(endpoint.get("bytesReceived").getAsLong() > 0);
+        assertEquals(2, endpoint.getAsJsonObject("latency").getAsJsonObject(RequestMetrics.TOTAL)
+                .get("count").getAsLong());
+        assertEquals(2, endpoint.getAsJsonObject("latency").getAsJsonObject(RequestMetrics.FIRST_BYTE)
+                .get("count").getAsLong());
+    }
+
+    @Test
+    void testWarmUp_UnauthenticatedAndNotRecorded() throws Exception {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse()); // branchExists sends HEAD, answered without a body
+
+        client.warmUp().get();
+        assertTrue(client.branchExists("user/repo1", "main"));
+
+        assertNull(server.takeRequest().getHeader("Authorization"));
+        assertEquals(0, client.getMetrics().getRequestCount("HEAD /"));
+        assertEquals(1, client.getMetrics().getRequestCount(BRANCH_ENDPOINT));
+        assertEquals(1.0, client.getMetrics().getConnectionReuseRatio(), 0.001); // Served on the warmed connection
+    }
+
+    @Test
+    void testRateLimitRetry_CountedAsRetry() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse()); // branchExists sends HEAD, answered without a body
+
+        assertTrue(client.branchExists("user/repo1", "main"));
+
+        JsonObject endpoint = client.getMetrics().toJson().getAsJsonObject("endpoints")
+                .getAsJsonObject(BRANCH_ENDPOINT);
+        assertEquals(1, endpoint.get("requests").getAsLong());
+        assertEquals(1, endpoint.get("retries").getAsLong());
+    }
+
+    @Test
+    void testExport_WritesPrometheusAndJson() throws IOException {
+        server.enqueue(new MockResponse()); // branchExists sends HEAD, answered without a body
+        assertTrue(client.branchExists("user/repo1", "main"));
+
+        Path directory = Files.createTempDirectory("metrics");
+        Path prometheus = directory.resolve("metrics.prom");
+        Path json = directory.resolve("metrics.json");
+        client.getMetrics().export(prometheus);
+        client.getMetrics().export(json);
+
+        String text = Files.readString(prometheus);
+        assertTrue(text.contains("api_client_request_duration_seconds_count{endpoint=\"" + BRANCH_ENDPOINT
+                + "\",phase=\"total\"} 1"));
+        assertTrue(text.contains("api_client_requests_total{endpoint=\"" + BRANCH_ENDPOINT + "\"} 1"));
+        assertTrue(Files.readString(json).contains("\"reuseRatio\""));
+    }
+
+    private static String template(String method, String path) {
+        return RequestMetrics.endpointTemplate(method, HttpUrl.get("https://api.github.com" + path));
+    }
+}
@@ -0,0 +1,142 @@
+package apiClients;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import dataModels.Repository;
+import dataModels.TypedApiResponse;
+import interfaces.ResponseDecoder;
+import okhttp3.Headers;
+import okhttp3.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private static final String URL = "/repos/user/repo1/git/ref/heads/main";
+    private static final String ETAG = "W/\"abc123\"";
+
+    private ResponseCache cache;
+    private Path tempCacheFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new ResponseCache();
+        tempCacheFile = Files.createTempFile("test-cache", ".json");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(tempCacheFile);
+    }
+
+    @Test
+    void testAddValidators_CachedEntry() {
+        cache.put(URL, ResponseDecoder.JSON_TREE, response(Headers.of("ETag", ETAG)));
+
+        Request.Builder builder = new Request.Builder().url("https://api.github.com" + URL);
+        TypedApiResponse<JsonElement> cached = cache.addValidators(URL, ResponseDecoder.JSON_TREE, builder);
+
+        assertNotNull(cached);
+        assertEquals(ETAG, builder.build().header("If-None-Match"));
+    }
+
+    @Test
+    void testPut_WithoutValidatorsIsNotCached() {
+        cache.put(URL, ResponseDecoder.JSON_TREE, response(Headers.of()));
+
+        Request.Builder builder = new Request.Builder().url("https://api.github.com" + URL);
+
+        assertNull(cache.addValidators(URL, ResponseDecoder.JSON_TREE, builder));
+        assertNull(builder.build().header("If-None-Match"));
+    }
+
+    @Test
+    void testEviction_LeastRecentlyUsed() {
+        ResponseCache smallCache = new ResponseCache(2);
+        smallCache.put("/a", ResponseDecoder.JSON_TREE, response(Headers.of("ETag", "\"a\"")));
+        smallCache.put("/b", ResponseDecoder.JSON_TREE, response(Headers.of("ETag", "\"b\"")));
+        smallCache.addValidators("/a", ResponseDecoder.JSON_TREE, new Request.Builder().url("https://api.github.com/a")); // touch /a
+        smallCache.put("/c", ResponseDecoder.JSON_TREE, response(Headers.of("ETag", "\"c\"")));
+
+        assertEquals(2, smallCache.size());
+        assertNull(smallCache.addValidators("/b", ResponseDecoder.JSON_TREE, new Request.Builder().url("https://api.github.com/b")));
+    }
+
+    @Test
+    void testSaveAndLoad_RoundTrip() throws IOException {
+        cache.put(URL, ResponseDecoder.JSON_TREE, response(Headers.of("ETag", ETAG, "X-Unrelated", "ignored")));
+        cache.save(tempCacheFile);
+
+        ResponseCache reloaded = new ResponseCache();
+        reloaded.load(tempCacheFile);
+        TypedApiResponse<JsonElement> cached = reloaded.addValidators(URL, ResponseDecoder.JSON_TREE, new Request.Builder().url("https://api.github.com" + URL));
+
+        assertNotNull(cached);
+        assertEquals(ETAG, cached.getHeader("ETag"));
+        assertNull(cached.getHeader("X-Unrelated"), "Only validator and paging headers should be persisted.");
+        assertEquals("abc", cached.getValue().getAsJsonObject().get("sha").getAsString());
+    }
+
+    @Test
+    void testSaveAndLoad_TypedEntriesRoundTrip() throws IOException {
+        Headers headers = Headers.of("ETag", ETAG);
+        cache.put(URL, JsonDecoders.OBJECT_SHA, new TypedApiResponse<>("head-sha", 200, headers));
+        cache.put(URL, ResponseDecoder.STATUS_ONLY, new TypedApiResponse<>(null, 200, headers));
+        cache.put("/user/repos", JsonDecoders.REPOSITORIES,
+                new TypedApiResponse<>(List.of(new Repository(7, "user/repo1", null)), 200, headers));
+        cache.put("/repos/user/repo1/contents?ref=main", JsonDecoders.FILE_SHAS,
+                new TypedApiResponse<>(Map.of("README.md", "blob-sha"), 200, headers));
+        cache.save(tempCacheFile);
+
+        ResponseCache reloaded = new ResponseCache();
+        reloaded.load(tempCacheFile);
+
+        assertEquals(4, reloaded.size());
+        assertEquals("head-sha", reloaded.addValidators(URL, JsonDecoders.OBJECT_SHA, request(URL)).getValue());
+        assertEquals(200, reloaded.addValidators(URL, ResponseDecoder.STATUS_ONLY, request(URL)).getStatusCode());
+        Repository repository = reloaded.addValidators("/user/repos", JsonDecoders.REPOSITORIES,
+                request("/user/repos")).getValue().get(0);
+        assertEquals(7, repository.getId());
+        assertEquals("user/repo1", repository.getFullName());
+        assertEquals(Map.of("README.md", "blob-sha"), reloaded.addValidators("/repos/user/repo1/contents?ref=main",
+                JsonDecoders.FILE_SHAS, request("/repos/user/repo1/contents?ref=main")).getValue());
+    }
+
+    @Test
+    void testEntries_KeyedByDecoder() {
+        cache.put(URL, ResponseDecoder.JSON_TREE, response(Headers.of("ETag", ETAG)));
+
+        Request.Builder builder = new Request.Builder().url("https://api.github.com" + URL);
+
+        assertNull(cache.addValidators(URL, JsonDecoders.OBJECT_SHA, builder),
+                "A tree entry must not be served to a typed decoder.");
+    }
+
+    @Test
+    void testLoad_CorruptFileLeavesCacheEmpty() throws IOException {
+        Files.writeString(tempCacheFile, "not json");
+
+        cache.load(tempCacheFile);
+
+        assertEquals(0, cache.size());
+    }
+
+    private static Request.Builder request(String url) {
+        return new Request.Builder().url("https://api.github.com" + url);
+    }
+
+    private TypedApiResponse<JsonElement> response(Headers headers) {
+        JsonObject body = new JsonObject();
+        body.addProperty("sha", "abc");
+        return new TypedApiResponse<>(body, 200, headers);
+    }
+}
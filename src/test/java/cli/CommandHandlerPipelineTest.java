@@ -0,0 +1,149 @@
+package cli;
+
+import apiClients.ApiClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CommandHandlerPipelineTest {
+
+    @Test
+    void handlePipelined_DownstreamStartsBeforeUpstreamFinishes() throws InterruptedException {
+        CountDownLatch firstConsumed = new CountDownLatch(1);
+        List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+
+        CommandHandler source = new StreamingHandler() {
+            @Override
+            protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+                    throws InterruptedException {
+                output.put("user/repo1");
+                // Only continues once the next handler has seen the first repository
+                assertTrue(firstConsumed.await(5, TimeUnit.SECONDS));
+                output.put("user/repo2");
+            }
+        };
+        CommandHandler sink = new StreamingHandler() {
+            @Override
+            protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+                    throws InterruptedException {
+                String repo;
+                while ((repo = input.take()) != null) {
+                    consumed.add(repo);
+                    firstConsumed.countDown();
+                }
+            }
+        };
+        source.setNext(sink);
+
+        source.handlePipelined(new CommandContext(mock(ApiClient.class)), 10);
+
+        assertEquals(List.of("user/repo1", "user/repo2"), consumed);
+    }
+
+    @Test
+    void handlePipelined_FullPipeBlocksProducer() {
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+
+        CommandHandler source = new StreamingHandler() {
+            @Override
+            protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+                    throws InterruptedException {
+                for (int i = 0; i < 50; i++) {
+                    output.put("user/repo" + i);
+                    produced.incrementAndGet();
+                }
+            }
+        };
+        CommandHandler slowSink = new StreamingHandler() {
+            @Override
+            protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+                    throws InterruptedException {
+                int consumed = 0;
+                while (input.take() != null) {
+                    consumed++;
+                    maxAhead.accumulateAndGet(produced.get() - consumed, Math::max);
+                    Thread.sleep(2);
+                }
+            }
+        };
+        source.setNext(slowSink);
+
+        source.handlePipelined(new CommandContext(mock(ApiClient.class)), 4);
+
+        assertEquals(50, produced.get());
+        assertTrue(maxAhead.get() <= 4 + 1, "Producer ran " + maxAhead.get() + " repositories ahead");
+    }
+
+    @Test
+    void handlePipelined_NonStreamingHandlerGetsCompleteRepositoryMap() {
+        List<Map<Integer, String>> maps = new ArrayList<>();
+
+        CommandHandler source = new StreamingHandler() {
+            @Override
+            protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+                    throws InterruptedException {
+                output.put("user/repo1");
+                output.put("user/repo2");
+            }
+        };
+        CommandHandler classic = new CommandHandler() {
+            @Override
+            protected boolean process(CommandContext context) {
+                maps.add(context.getRepositoryMap());
+                return true;
+            }
+        };
+        source.setNext(classic);
+
+        source.handlePipelined(new CommandContext(mock(ApiClient.class)), 1);
+
+        assertEquals(List.of(Map.of(1, "user/repo1", 2, "user/repo2")), maps);
+    }
+
+    @Test
+    void handlePipelined_StoppedConsumerReleasesProducer() {
+        AtomicInteger produced = new AtomicInteger();
+
+        CommandHandler source = new StreamingHandler() {
+            @Override
+            protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+                    throws InterruptedException {
+                for (int i = 0; i < 100; i++) {
+                    output.put("user/repo" + i);
+                    produced.incrementAndGet();
+                }
+            }
+        };
+        CommandHandler failing = new StreamingHandler() {
+            @Override
+            protected void processStream(CommandContext context, HandlerPipe input, HandlerPipe output)
+                    throws InterruptedException {
+                input.take();
+                throw new IllegalStateException("Stopped after the first repository");
+            }
+        };
+        source.setNext(failing);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> source.handlePipelined(new CommandContext(mock(ApiClient.class)), 2));
+        assertEquals(100, produced.get());
+    }
+
+    private abstract static class StreamingHandler extends CommandHandler {
+        @Override
+        protected boolean process(CommandContext context) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -3,15 +3,20 @@ package cli;
 import apiClients.ApiClient;
 import dataModels.FileDetails;
 import dataModels.MergeRequestParameters;
+import helpers.FileHelper;
+import helpers.MergeRequestJournal;
 import interfaces.RepositorySelector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
@@ -25,13 +30,17 @@ class CreateMergeRequestHandlerTest {
     private RepositorySelector mockRepositorySelector;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         mockContext = mock(CommandContext.class);
         mockApiClient = mock(ApiClient.class);
         mockParameters = mock(MergeRequestParameters.class);
         mockRepositorySelector = mock(RepositorySelector.class);
 
         when(mockContext.getApiClient()).thenReturn(mockApiClient);
+        when(mockParameters.getFiles()).thenReturn(List.of(new FileDetails("Hello.txt", "Hello world")));
+        // Every file differs from the remote unless a test says otherwise
+        when(mockApiClient.filterChangedFiles(anyString(), anyString(), anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
 
         handler = new CreateMergeRequestHandler(mockParameters, mockRepositorySelector);
     }
@@ -69,7 +78,7 @@ class CreateMergeRequestHandlerTest {
         when(mockRepositorySelector.matchRepositoryIndexToName(repoMap)).thenReturn(repo);
 
         when(mockParameters.getBranchName()).thenReturn("feature-branch");
-        when(mockApiClient.branchExists(repo, "feature-branch")).thenReturn(false);
+        when(mockApiClient.resolveUniqueBranchName(repo, "feature-branch")).thenReturn("feature-branch");
         when(mockApiClient.createBranch(repo, "feature-branch")).thenReturn(false);
 
         boolean result = handler.process(mockContext);
@@ -78,6 +87,26 @@ class CreateMergeRequestHandlerTest {
         verify(mockApiClient).createBranch(repo, "feature-branch");
     }
 
+    @Test
+    void process_BranchNameTaken_UsesResolvedName() throws IOException {
+        Map<Integer, String> repoMap = new HashMap<>();
+        repoMap.put(1, "repo1");
+        String repo = "repo1";
+
+        when(mockContext.getRepositoryMap()).thenReturn(repoMap);
+        when(mockRepositorySelector.matchRepositoryIndexToName(repoMap)).thenReturn(repo);
+
+        when(mockParameters.getBranchName()).thenReturn("feature-branch");
+        when(mockApiClient.resolveUniqueBranchName(repo, "feature-branch")).thenReturn("feature-branch-3");
+        when(mockApiClient.createBranch(repo, "feature-branch-3")).thenReturn(false);
+
+        boolean result = handler.process(mockContext);
+
+        assertFalse(result);
+        verify(mockApiClient).createBranch(repo, "feature-branch-3");
+        verify(mockApiClient, never()).branchExists(anyString(), anyString());
+    }
+
     @Test
     void process_CommitFilesFails_ReturnsFalse() throws IOException {
         Map<Integer, String> repoMap = new HashMap<>();
@@ -88,18 +117,20 @@ class CreateMergeRequestHandlerTest {
         when(mockRepositorySelector.matchRepositoryIndexToName(repoMap)).thenReturn(repo);
 
         when(mockParameters.getBranchName()).thenReturn("feature-branch");
-        when(mockApiClient.branchExists(repo, "feature-branch")).thenReturn(false);
+        when(mockApiClient.resolveUniqueBranchName(repo, "feature-branch")).thenReturn("feature-branch");
         when(mockApiClient.createBranch(repo, "feature-branch")).thenReturn(true);
 
         FileDetails mockFile = mock(FileDetails.class);
-        when(mockParameters.getFiles()).thenReturn(List.of(mockFile));
-        when(mockFile.getFilePath()).thenReturn("/path/to/file.txt");
-        when(mockApiClient.commitFile(repo, "feature-branch", "/path/to/file.txt", mockFile.getFileContent())).thenReturn(false);
+        List<FileDetails> files = List.of(mockFile);
+        when(mockParameters.getFiles()).thenReturn(files);
+        when(mockParameters.getPullRequestTitle()).thenReturn("Add feature");
+        when(mockApiClient.commitFiles(repo, "feature-branch", files, "Add feature")).thenReturn(false);
 
         boolean result = handler.process(mockContext);
 
         assertFalse(result);
-        verify(mockApiClient).commitFile(repo, "feature-branch", "/path/to/file.txt", mockFile.getFileContent());
+        verify(mockApiClient).commitFiles(repo, "feature-branch", files, "Add feature");
+        verify(mockApiClient, never()).createPullRequest(anyString(), anyString(), anyString(), anyString());
     }
 
     @Test
@@ -112,15 +143,15 @@ class CreateMergeRequestHandlerTest {
         when(mockRepositorySelector.matchRepositoryIndexToName(repoMap)).thenReturn(repo);
 
         when(mockParameters.getBranchName()).thenReturn("feature-branch");
-        when(mockApiClient.branchExists(repo, "feature-branch")).thenReturn(false);
+        when(mockApiClient.resolveUniqueBranchName(repo, "feature-branch")).thenReturn("feature-branch");
         when(mockApiClient.createBranch(repo, "feature-branch")).thenReturn(true);
 
         FileDetails mockFile = mock(FileDetails.class);
-        when(mockParameters.getFiles()).thenReturn(List.of(mockFile));
-        when(mockFile.getFilePath()).thenReturn("/path/to/file.txt");
-        when(mockApiClient.commitFile(repo, "feature-branch", "/path/to/file.txt", mockFile.getFileContent())).thenReturn(true);
-
+        List<FileDetails> files = List.of(mockFile);
+        when(mockParameters.getFiles()).thenReturn(files);
         when(mockParameters.getPullRequestTitle()).thenReturn("Add feature");
+        when(mockApiClient.commitFiles(repo, "feature-branch", files, "Add feature")).thenReturn(true);
+
         when(mockParameters.getPullRequestBody()).thenReturn("This is a test pull request.");
         when(mockApiClient.createPullRequest(repo, "feature-branch", "Add feature", "This is a test pull request.")).thenReturn(false);
 
@@ -140,15 +171,15 @@ class CreateMergeRequestHandlerTest {
         when(mockRepositorySelector.matchRepositoryIndexToName(repoMap)).thenReturn(repo);
 
         when(mockParameters.getBranchName()).thenReturn("feature-branch");
-        when(mockApiClient.branchExists(repo, "feature-branch")).thenReturn(false);
+        when(mockApiClient.resolveUniqueBranchName(repo, "feature-branch")).thenReturn("feature-branch");
         when(mockApiClient.createBranch(repo, "feature-branch")).thenReturn(true);
 
         FileDetails mockFile = mock(FileDetails.class);
-        when(mockParameters.getFiles()).thenReturn(List.of(mockFile));
-        when(mockFile.getFilePath()).thenReturn("/path/to/file.txt");
-        when(mockApiClient.commitFile(repo, "feature-branch", "/path/to/file.txt", mockFile.getFileContent())).thenReturn(true);
-
+        List<FileDetails> files = List.of(mockFile);
+        when(mockParameters.getFiles()).thenReturn(files);
         when(mockParameters.getPullRequestTitle()).thenReturn("Add feature");
+        when(mockApiClient.commitFiles(repo, "feature-branch", files, "Add feature")).thenReturn(true);
+
         when(mockParameters.getPullRequestBody()).thenReturn("This is a test pull request.");
         when(mockApiClient.createPullRequest(repo, "feature-branch", "Add feature", "This is a test pull request.")).thenReturn(true);
 
@@ -156,4 +187,147 @@ class CreateMergeRequestHandlerTest {
 
         assertTrue(result);
     }
+
+    @Test
+    void createMergeRequest_AllFilesUpToDate_SkipsWrites() throws IOException {
+        when(mockApiClient.filterChangedFiles(eq("repo1"), eq("main"), anyList())).thenReturn(List.of());
+
+        boolean result = handler.createMergeRequest(mockApiClient, "repo1");
+
+        assertTrue(result);
+        verify(mockApiClient, never()).resolveUniqueBranchName(anyString(), anyString());
+        verify(mockApiClient, never()).createBranch(anyString(), anyString());
+        verify(mockApiClient, never()).createPullRequest(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void createMergeRequest_ChangesAlreadyOnPreferredBranch_SkipsWrites() throws IOException {
+        when(mockParameters.getBranchName()).thenReturn("feature-branch");
+        when(mockApiClient.resolveUniqueBranchName("repo1", "feature-branch")).thenReturn("feature-branch-1");
+        when(mockApiClient.filterChangedFiles(eq("repo1"), eq("feature-branch"), anyList())).thenReturn(List.of());
+        when(mockApiClient.pullRequestExists("repo1", "feature-branch")).thenReturn(true);
+
+        boolean result = handler.createMergeRequest(mockApiClient, "repo1");
+
+        assertTrue(result);
+        verify(mockApiClient, never()).createBranch(anyString(), anyString());
+        verify(mockApiClient, never()).createPullRequest(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void createMergeRequest_ChangesAlreadyOnPreferredBranchWithoutPullRequest_OpensIt() throws IOException {
+        when(mockParameters.getBranchName()).thenReturn("feature-branch");
+        when(mockParameters.getPullRequestTitle()).thenReturn("Add feature");
+        when(mockParameters.getPullRequestBody()).thenReturn("Body");
+        when(mockApiClient.resolveUniqueBranchName("repo1", "feature-branch")).thenReturn("feature-branch-1");
+        when(mockApiClient.filterChangedFiles(eq("repo1"), eq("feature-branch"), anyList())).thenReturn(List.of());
+        when(mockApiClient.createPullRequest("repo1", "feature-branch", "Add feature", "Body")).thenReturn(true);
+
+        boolean result = handler.createMergeRequest(mockApiClient, "repo1");
+
+        assertTrue(result);
+        verify(mockApiClient, never()).createBranch(anyString(), anyString());
+        verify(mockApiClient).createPullRequest("repo1", "feature-branch", "Add feature", "Body");
+    }
+
+    @Test
+    void createMergeRequest_CommitsOnlyChangedFiles() throws IOException {
+        FileDetails unchanged = new FileDetails("a.txt", "a");
+        FileDetails changed = new FileDetails("b.txt", "b");
+        when(mockParameters.getFiles()).thenReturn(List.of(unchanged, changed));
+        when(mockParameters.getBranchName()).thenReturn("feature-branch");
+        when(mockParameters.getPullRequestTitle()).thenReturn("Add feature");
+        when(mockApiClient.filterChangedFiles(eq("repo1"), eq("main"), anyList())).thenReturn(List.of(changed));
+        when(mockApiClient.resolveUniqueBranchName("repo1", "feature-branch")).thenReturn("feature-branch");
+        when(mockApiClient.createBranch("repo1", "feature-branch")).thenReturn(true);
+        when(mockApiClient.commitFiles("repo1", "feature-branch", List.of(changed), "Add feature")).thenReturn(true);
+
+        handler.createMergeRequest(mockApiClient, "repo1");
+
+        verify(mockApiClient).commitFiles("repo1", "feature-branch", List.of(changed), "Add feature");
+    }
+
+    @Test
+    void createMergeRequest_WithJournal_ResumesAfterCrashOnSameBranch(@TempDir Path tempDir) throws IOException {
+        when(mockParameters.getBranchName()).thenReturn("feature-branch");
+        when(mockParameters.getPullRequestTitle()).thenReturn("Add feature");
+        when(mockParameters.getPullRequestBody()).thenReturn("Body");
+        when(mockApiClient.resolveUniqueBranchName("repo1", "feature-branch")).thenReturn("feature-branch");
+        when(mockApiClient.createBranch("repo1", "feature-branch")).thenReturn(true);
+        when(mockApiClient.commitFiles(eq("repo1"), eq("feature-branch"), anyList(), eq("Add feature")))
+                .thenThrow(new IOException("Connection reset"))
+                .thenReturn(true);
+        when(mockApiClient.createPullRequest("repo1", "feature-branch", "Add feature", "Body")).thenReturn(true);
+
+        Path journalFile = tempDir.resolve("merge-requests.journal");
+        try (MergeRequestJournal journal = MergeRequestJournal.open(journalFile)) {
+            handler = new CreateMergeRequestHandler(mockParameters, mockRepositorySelector, journal);
+            assertFalse(handler.createMergeRequest(mockApiClient, "repo1")); // Dies after the branch was created
+        }
+
+        // The next run picks up where the first stopped instead of creating "feature-branch-1"
+        try (MergeRequestJournal journal = MergeRequestJournal.open(journalFile)) {
+            handler = new CreateMergeRequestHandler(mockParameters, mockRepositorySelector, journal);
+            assertTrue(handler.createMergeRequest(mockApiClient, "repo1"));
+            assertEquals(MergeRequestJournal.Step.PULL_REQUEST_CREATED, journal.get("repo1", "feature-branch").getStep());
+        }
+
+        verify(mockApiClient, times(1)).resolveUniqueBranchName(anyString(), anyString());
+        verify(mockApiClient, times(1)).createBranch(anyString(), anyString());
+        verify(mockApiClient, times(2)).commitFiles(eq("repo1"), eq("feature-branch"), anyList(), eq("Add feature"));
+        verify(mockApiClient, times(1)).createPullRequest(anyString(), anyString(), anyString(), anyString());
+
+        // A finished merge request is not repeated
+        try (MergeRequestJournal journal = MergeRequestJournal.open(journalFile)) {
+            handler = new CreateMergeRequestHandler(mockParameters, mockRepositorySelector, journal);
+            assertTrue(handler.createMergeRequest(mockApiClient, "repo1"));
+        }
+        verify(mockApiClient, times(1)).createPullRequest(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void createMergeRequest_WithJournal_ChecksReservedBranchBeforeCreating(@TempDir Path tempDir) throws IOException {
+        when(mockParameters.getBranchName()).thenReturn("feature-branch");
+        when(mockParameters.getPullRequestTitle()).thenReturn("Add feature");
+        when(mockParameters.getPullRequestBody()).thenReturn("Body");
+        when(mockApiClient.branchExists("repo1", "feature-branch-2")).thenReturn(true);
+        when(mockApiClient.commitFiles(eq("repo1"), eq("feature-branch-2"), anyList(), eq("Add feature"))).thenReturn(true);
+        when(mockApiClient.createPullRequest("repo1", "feature-branch-2", "Add feature", "Body")).thenReturn(true);
+
+        try (MergeRequestJournal journal = MergeRequestJournal.open(tempDir.resolve("merge-requests.journal"))) {
+            // The earlier run crashed between reserving the name and recording the created branch
+            journal.branchReserved("repo1", "feature-branch", "feature-branch-2", "outdated");
+            handler = new CreateMergeRequestHandler(mockParameters, mockRepositorySelector, journal);
+
+            assertTrue(handler.createMergeRequest(mockApiClient, "repo1"));
+        }
+
+        verify(mockApiClient, never()).createBranch(anyString(), anyString());
+        verify(mockApiClient, never()).resolveUniqueBranchName(anyString(), anyString());
+        verify(mockApiClient).createPullRequest("repo1", "feature-branch-2", "Add feature", "Body");
+    }
+
+    @Test
+    void createMergeRequest_WithJournal_PullRequestOpenedBeforeCrashIsNotOpenedAgain(@TempDir Path tempDir)
+            throws IOException {
+        when(mockParameters.getBranchName()).thenReturn("feature-branch");
+        when(mockParameters.getPullRequestTitle()).thenReturn("Add feature");
+        when(mockApiClient.pullRequestExists("repo1", "feature-branch")).thenReturn(true);
+        Map<String, String> shas = Map.of("Hello.txt", FileHelper.gitBlobSha(new FileDetails("Hello.txt", "Hello world")));
+
+        try (MergeRequestJournal journal = MergeRequestJournal.open(tempDir.resolve("merge-requests.journal"))) {
+            // The earlier run opened the pull request but died before recording it
+            journal.branchReserved("repo1", "feature-branch", "feature-branch",
+                    MergeRequestJournal.fingerprint(shas, "Add feature"));
+            journal.branchCreated("repo1", "feature-branch");
+            journal.filesCommitted("repo1", "feature-branch", shas);
+            handler = new CreateMergeRequestHandler(mockParameters, mockRepositorySelector, journal);
+
+            assertTrue(handler.createMergeRequest(mockApiClient, "repo1"));
+            assertEquals(MergeRequestJournal.Step.PULL_REQUEST_CREATED, journal.get("repo1", "feature-branch").getStep());
+        }
+
+        verify(mockApiClient, never()).commitFiles(anyString(), anyString(), anyList(), anyString());
+        verify(mockApiClient, never()).createPullRequest(anyString(), anyString(), anyString(), anyString());
+    }
 }
@@ -0,0 +1,137 @@
+package cli;
+
+import apiClients.ApiClient;
+import interfaces.RepositorySetSelector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class FanOutMergeRequestHandlerTest {
+
+    private CommandContext mockContext;
+    private ApiClient mockApiClient;
+    private CreateMergeRequestHandler mockMergeRequestHandler;
+    private RepositorySetSelector mockSelector;
+    private FanOutMergeRequestHandler handler;
+    private Map<Integer, String> repoMap;
+
+    @BeforeEach
+    void setUp() {
+        mockContext = mock(CommandContext.class);
+        mockApiClient = mock(ApiClient.class);
+        mockMergeRequestHandler = mock(CreateMergeRequestHandler.class);
+        mockSelector = mock(RepositorySetSelector.class);
+
+        repoMap = new HashMap<>();
+        repoMap.put(1, "user/repo1");
+        repoMap.put(2, "user/repo2");
+        repoMap.put(3, "user/repo3");
+
+        when(mockContext.getApiClient()).thenReturn(mockApiClient);
+        when(mockContext.getRepositoryMap()).thenReturn(repoMap);
+
+        handler = new FanOutMergeRequestHandler(mockMergeRequestHandler, mockSelector, 2);
+    }
+
+    @Test
+    void process_NoRepositories_ReturnsFalse() {
+        when(mockContext.getRepositoryMap()).thenReturn(null);
+
+        assertFalse(handler.process(mockContext));
+        verifyNoInteractions(mockSelector, mockMergeRequestHandler);
+    }
+
+    @Test
+    void process_SelectionCancelled_ReturnsFalse() {
+        when(mockSelector.selectRepositories(repoMap)).thenReturn(null);
+
+        assertFalse(handler.process(mockContext));
+        verifyNoInteractions(mockMergeRequestHandler);
+    }
+
+    @Test
+    void process_AllSucceed_ReturnsTrue() {
+        when(mockSelector.selectRepositories(repoMap)).thenReturn(List.of("user/repo1", "user/repo2", "user/repo3"));
+        when(mockMergeRequestHandler.createMergeRequest(eq(mockApiClient), anyString())).thenReturn(true);
+
+        assertTrue(handler.process(mockContext));
+        verify(mockMergeRequestHandler).createMergeRequest(mockApiClient, "user/repo1");
+        verify(mockMergeRequestHandler).createMergeRequest(mockApiClient, "user/repo2");
+        verify(mockMergeRequestHandler).createMergeRequest(mockApiClient, "user/repo3");
+    }
+
+    @Test
+    void process_ZeroConcurrency_RunsOneAtATime() {
+        handler = new FanOutMergeRequestHandler(mockMergeRequestHandler, mockSelector, 0);
+        when(mockSelector.selectRepositories(repoMap)).thenReturn(List.of("user/repo1", "user/repo2"));
+        when(mockMergeRequestHandler.createMergeRequest(eq(mockApiClient), anyString())).thenReturn(true);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertTrue(handler.process(mockContext)));
+        verify(mockMergeRequestHandler, times(2)).createMergeRequest(eq(mockApiClient), anyString());
+    }
+
+    @Test
+    void process_OneFails_OthersStillRun() {
+        when(mockSelector.selectRepositories(repoMap)).thenReturn(List.of("user/repo1", "user/repo2", "user/repo3"));
+        when(mockMergeRequestHandler.createMergeRequest(eq(mockApiClient), anyString())).thenReturn(true);
+        when(mockMergeRequestHandler.createMergeRequest(mockApiClient, "user/repo2"))
+                .thenThrow(new IllegalStateException("boom"));
+
+        assertFalse(handler.process(mockContext));
+        verify(mockMergeRequestHandler).createMergeRequest(mockApiClient, "user/repo1");
+        verify(mockMergeRequestHandler).createMergeRequest(mockApiClient, "user/repo3");
+    }
+
+    @Test
+    void process_Selection_SkipsSelector() {
+        FanOutMergeRequestHandler selecting = new FanOutMergeRequestHandler(
+                mockMergeRequestHandler, mockSelector, 2, repo -> !repo.endsWith("2"));
+        when(mockMergeRequestHandler.createMergeRequest(eq(mockApiClient), anyString())).thenReturn(true);
+
+        assertTrue(selecting.process(mockContext));
+        verifyNoInteractions(mockSelector);
+        verify(mockMergeRequestHandler).createMergeRequest(mockApiClient, "user/repo1");
+        verify(mockMergeRequestHandler).createMergeRequest(mockApiClient, "user/repo3");
+        verify(mockMergeRequestHandler, never()).createMergeRequest(mockApiClient, "user/repo2");
+    }
+
+    @Test
+    void processStream_Selection_StartsBeforeInputEnds() throws InterruptedException {
+        FanOutMergeRequestHandler selecting = new FanOutMergeRequestHandler(
+                mockMergeRequestHandler, mockSelector, 2, repo -> !repo.endsWith("2"));
+        when(mockMergeRequestHandler.createMergeRequest(eq(mockApiClient), anyString())).thenReturn(true);
+        HandlerPipe input = new HandlerPipe(10);
+        input.put("user/repo1");
+
+        Thread stage = new Thread(() -> {
+            try {
+                selecting.processStream(mockContext, input, HandlerPipe.discarding());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stage.start();
+
+        // The first repository is handled while the input is still open
+        verify(mockMergeRequestHandler, timeout(5000)).createMergeRequest(mockApiClient, "user/repo1");
+        input.put("user/repo2");
+        input.put("user/repo3");
+        input.close();
+        stage.join(5000);
+
+        assertFalse(stage.isAlive());
+        verify(mockMergeRequestHandler).createMergeRequest(mockApiClient, "user/repo3");
+        verify(mockMergeRequestHandler, never()).createMergeRequest(mockApiClient, "user/repo2");
+        assertEquals(2, mockingDetails(mockMergeRequestHandler).getInvocations().size());
+    }
+}
@@ -1,15 +1,21 @@
 package cli;
 
 import apiClients.ApiClient;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import dataModels.Repository;
+import helpers.RepositoryIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -34,17 +40,11 @@ public class ListRepositoriesHandlerTest {
     @Test
     public void testProcessWithRepositories() throws IOException {
         // Mock the API response with repositories
-        JsonArray mockRepos = new JsonArray();
+        List<Repository> mockRepos = new ArrayList<>();
+        mockRepos.add(new Repository(1, "user/repo1", "2024-01-01T00:00:00Z"));
+        mockRepos.add(new Repository(2, "user/repo2", "2024-01-02T00:00:00Z"));
 
-        JsonObject repo1 = new JsonObject();
-        repo1.addProperty("full_name", "user/repo1");
-        mockRepos.add(repo1);
-
-        JsonObject repo2 = new JsonObject();
-        repo2.addProperty("full_name", "user/repo2");
-        mockRepos.add(repo2);
-
-        when(mockApiClient.listRepositories()).thenReturn(mockRepos);
+        stubListRepositories(mockRepos);
 
         // Execute the handler
         boolean result = handler.process(mockContext);
@@ -67,8 +67,8 @@ public class ListRepositoriesHandlerTest {
     @Test
     public void testProcessWithNoRepositories() throws IOException {
         // Mock the API response with no repositories
-        JsonArray mockRepos = new JsonArray();
-        when(mockApiClient.listRepositories()).thenReturn(mockRepos);
+        List<Repository> mockRepos = new ArrayList<>();
+        stubListRepositories(mockRepos);
 
         // Execute the handler
         boolean result = handler.process(mockContext);
@@ -81,7 +81,7 @@ public class ListRepositoriesHandlerTest {
     @Test
     public void testProcessWithIOException() throws IOException {
         // Mock the API throwing an IOException
-        when(mockApiClient.listRepositories()).thenThrow(new IOException("API error"));
+        doThrow(new IOException("API error")).when(mockApiClient).listRepositories(any(Consumer.class));
 
         // Execute the handler
         boolean result = handler.process(mockContext);
@@ -90,4 +90,69 @@ public class ListRepositoriesHandlerTest {
         assertFalse(result); // Should return false
         verify(mockContext, never()).setRepositoryMap(any(Map.class)); // No map should be set
     }
+
+    @Test
+    public void testProcessWithIndex_FirstRunSavesIndexAndNextRunOnlyFetchesUpdates(@TempDir Path tempDir) throws IOException {
+        Path indexFile = tempDir.resolve("repositories.idx");
+        ListRepositoriesHandler indexedHandler = new ListRepositoriesHandler(indexFile);
+
+        List<Repository> mockRepos = new ArrayList<>();
+        mockRepos.add(new Repository(1, "user/repo1", "2024-01-01T00:00:00Z"));
+        mockRepos.add(new Repository(2, "user/repo2", "2024-01-02T00:00:00Z"));
+        stubListRepositories(mockRepos);
+
+        assertFalse(indexedHandler.process(mockContext));
+        assertNotNull(RepositoryIndex.load(indexFile));
+
+        // Second run: one renamed and one new repository since the newest known updated_at
+        List<Repository> updates = new ArrayList<>();
+        updates.add(new Repository(3, "user/repo3", "2024-01-04T00:00:00Z"));
+        updates.add(new Repository(1, "user/renamed", "2024-01-03T00:00:00Z"));
+        doAnswer(invocation -> {
+            Consumer<Repository> consumer = invocation.getArgument(1);
+            updates.forEach(consumer);
+            return null;
+        }).when(mockApiClient).listRepositoriesUpdatedSince(eq(Instant.parse("2024-01-02T00:00:00Z")), any(Consumer.class));
+
+        assertFalse(indexedHandler.process(mockContext));
+
+        verify(mockApiClient, times(1)).listRepositories(any(Consumer.class));
+        ArgumentCaptor<Map<Integer, String>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(mockContext, times(2)).setRepositoryMap(captor.capture());
+
+        Map<Integer, String> repoMap = captor.getValue();
+        assertEquals(3, repoMap.size());
+        assertEquals("user/renamed", repoMap.get(1));
+        assertEquals("user/repo2", repoMap.get(2));
+        assertEquals("user/repo3", repoMap.get(3));
+    }
+
+    @Test
+    public void testProcessWithIndex_RefreshErrorKeepsCachedList(@TempDir Path tempDir) throws IOException {
+        Path indexFile = tempDir.resolve("repositories.idx");
+        ListRepositoriesHandler indexedHandler = new ListRepositoriesHandler(indexFile);
+
+        List<Repository> mockRepos = new ArrayList<>();
+        mockRepos.add(new Repository(1, "user/repo1", "2024-01-01T00:00:00Z"));
+        stubListRepositories(mockRepos);
+        indexedHandler.process(mockContext);
+
+        doThrow(new IOException("API error")).when(mockApiClient)
+                .listRepositoriesUpdatedSince(any(Instant.class), any(Consumer.class));
+
+        assertFalse(indexedHandler.process(mockContext));
+
+        ArgumentCaptor<Map<Integer, String>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(mockContext, times(2)).setRepositoryMap(captor.capture());
+        assertEquals("user/repo1", captor.getValue().get(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubListRepositories(List<Repository> repos) throws IOException {
+        doAnswer(invocation -> {
+            Consumer<Repository> consumer = invocation.getArgument(0);
+            repos.forEach(consumer);
+            return null;
+        }).when(mockApiClient).listRepositories(any(Consumer.class));
+    }
 }
@@ -0,0 +1,223 @@
+package cli;
+
+import apiClients.FakeGitHubServer;
+import apiClients.GitHubApiClient;
+import apiClients.HttpTransport;
+import dataModels.FileDetails;
+import dataModels.MergeRequestParameters;
+import dataModels.Repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Drives the full merge request flow (unique branch name, branch, commit, pull request) concurrently
+ * against a {@link FakeGitHubServer} and reports throughput and latency percentiles.
+ * <p>
+ * Runs a fixed number of merge requests, or keeps going for a fixed time when a duration is given (soak test):
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.cleanupDaemonThreads=false -Dexec.mainClass=cli.LoadTestDriver \
+ *     -Dexec.args="--requests 500 --concurrency 32 --latency 50 --jitter 100 --error-rate 0.01"
+ * </pre>
+ */
+public class LoadTestDriver {
+    private final FakeGitHubServer.Settings serverSettings;
+    private final int requests;
+    private final int concurrency;
+    private final long durationMillis;
+    private final int filesPerMergeRequest;
+    private final HttpTransport transport;
+
+    /**
+     * @param serverSettings Behaviour of the fake server.
+     * @param requests Number of merge requests to create; ignored if a duration is set.
+     * @param concurrency Number of merge requests in progress at the same time.
+     * @param durationMillis Keep creating merge requests for this long; 0 to stop after {@code requests}.
+     * @param filesPerMergeRequest Number of files committed in each merge request.
+     * @param transport HTTP transport the client runs on.
+     */
+    public LoadTestDriver(FakeGitHubServer.Settings serverSettings, int requests, int concurrency,
+                          long durationMillis, int filesPerMergeRequest, HttpTransport transport) {
+        this.serverSettings = serverSettings;
+        this.requests = requests;
+        this.concurrency = concurrency;
+        this.durationMillis = durationMillis;
+        this.filesPerMergeRequest = filesPerMergeRequest;
+        this.transport = transport;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        FakeGitHubServer.Settings settings = new FakeGitHubServer.Settings()
+                .repositoryCount(intOption(options, "repositories", 50))
+                .latency(intOption(options, "latency", 20), intOption(options, "jitter", 20))
+                .errorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")))
+                .rateLimit(intOption(options, "rate-limit", 0), intOption(options, "rate-limit-window", 60_000));
+
+        LoadTestDriver driver = new LoadTestDriver(settings,
+                intOption(options, "requests", 200),
+                intOption(options, "concurrency", 16),
+                TimeUnit.SECONDS.toMillis(intOption(options, "duration", 0)),
+                intOption(options, "files", 3),
+                new HttpTransport(64, intOption(options, "max-requests-per-host", 32), 8, 300, 0, false));
+
+        System.out.println(driver.run());
+    }
+
+    /**
+     * Starts a fake server, runs the load and shuts the server down again.
+     * Console output of the handlers is suppressed while the load runs.
+     * @return Summary of the run.
+     */
+    public Report run() throws IOException, InterruptedException {
+        try (FakeGitHubServer server = new FakeGitHubServer(serverSettings)) {
+            GitHubApiClient apiClient = new GitHubApiClient("load_test_token", server.getBaseUrl(), transport);
+            CreateMergeRequestHandler handler = new CreateMergeRequestHandler(mergeRequestParameters(), null);
+            List<String> repositories = apiClient.listRepositories().stream()
+                    .map(Repository::getFullName)
+                    .collect(Collectors.toList());
+
+            PrintStream out = System.out;
+            PrintStream err = System.err;
+            PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+            System.setOut(discard);
+            System.setErr(discard);
+            try {
+                return runLoad(server, apiClient, handler, repositories);
+            } finally {
+                System.setOut(out);
+                System.setErr(err);
+            }
+        }
+    }
+
+    private Report runLoad(FakeGitHubServer server, GitHubApiClient apiClient, CreateMergeRequestHandler handler,
+                           List<String> repositories) throws InterruptedException {
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        int requestsBefore = server.getRequestCount();
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (true) {
+                    int index = started.getAndIncrement();
+                    boolean more = durationMillis > 0 ? System.nanoTime() < deadline : index < requests;
+                    if (!more) {
+                        return;
+                    }
+
+                    String repo = repositories.get(index % repositories.size());
+                    long requestStart = System.nanoTime();
+                    if (handler.createMergeRequest(apiClient, repo)) {
+                        succeeded.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - requestStart);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        long elapsedNanos = System.nanoTime() - start;
+        return new Report(latencies, succeeded.get(), elapsedNanos, server.getRequestCount() - requestsBefore);
+    }
+
+    private MergeRequestParameters mergeRequestParameters() {
+        List<FileDetails> files = new ArrayList<>();
+        for (int i = 0; i < filesPerMergeRequest; i++) {
+            files.add(new FileDetails("load-test/file" + i + ".txt", "Load test content " + i));
+        }
+        return new MergeRequestParameters("load-test", files, "Load test", "Created by the load test driver.");
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    /**
+     * Outcome of a load test run.
+     */
+    public static class Report {
+        private final int total;
+        private final int succeeded;
+        private final long elapsedNanos;
+        private final int httpRequests;
+        private final long[] sortedLatencies;
+
+        Report(List<Long> latencies, int succeeded, long elapsedNanos, int httpRequests) {
+            this.total = latencies.size();
+            this.succeeded = succeeded;
+            this.elapsedNanos = elapsedNanos;
+            this.httpRequests = httpRequests;
+            this.sortedLatencies = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sortedLatencies);
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public int getHttpRequests() {
+            return httpRequests;
+        }
+
+        public double getMergeRequestsPerSecond() {
+            return elapsedNanos == 0 ? 0 : succeeded / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * @param percentile Percentile between 0 and 100.
+         * @return Merge request latency at that percentile in milliseconds, or 0 if nothing ran.
+         */
+        public double getLatencyMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Merge requests: %d succeeded, %d failed in %.1f s (%d HTTP requests)%n"
+                            + "Throughput:     %.1f merge requests/s%n"
+                            + "Latency (ms):   p50 %.1f, p90 %.1f, p99 %.1f, max %.1f",
+                    succeeded, total - succeeded, elapsedNanos / 1e9, httpRequests,
+                    getMergeRequestsPerSecond(),
+                    getLatencyMillis(50), getLatencyMillis(90), getLatencyMillis(99), getLatencyMillis(100));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package cli;
+
+import apiClients.FakeGitHubServer;
+import apiClients.HttpTransport;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadTestDriverTest {
+
+    @Test
+    void testRun_ReportsEveryMergeRequest() throws Exception {
+        FakeGitHubServer.Settings settings = new FakeGitHubServer.Settings().repositoryCount(20).latency(1, 2);
+
+        LoadTestDriver.Report report = new LoadTestDriver(settings, 20, 4, 0, 2, HttpTransport.defaultTransport()).run();
+
+        assertEquals(20, report.getTotal());
+        assertEquals(20, report.getSucceeded());
+        assertEquals(20 * 10, report.getHttpRequests()); // Contents, matching-refs, 2 branch calls, 5 commit calls, pull
+        assertTrue(report.getMergeRequestsPerSecond() > 0);
+        assertTrue(report.getLatencyMillis(50) <= report.getLatencyMillis(99));
+    }
+}
@@ -0,0 +1,153 @@
+package cli;
+
+import apiClients.FakeGitHubServer;
+import apiClients.GitHubApiClient;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MergeRequestDaemonTest {
+
+    private final OkHttpClient http = new OkHttpClient();
+    private FakeGitHubServer github;
+    private MergeRequestDaemon daemon;
+    private String baseUrl;
+    private String secret;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        github = new FakeGitHubServer(new FakeGitHubServer.Settings().repositoryCount(5).latency(20, 0));
+        GitHubApiClient apiClient = new GitHubApiClient("test_token", github.getBaseUrl());
+        secret = MergeRequestDaemon.loadOrCreateSecret(directory.resolve("daemon.secret"));
+        Files.createDirectory(directory.resolve("sources"));
+        daemon = new MergeRequestDaemon(apiClient, new ListRepositoriesHandler(), null, 4, secret,
+                directory.resolve("sources"));
+        baseUrl = "http://localhost:" + daemon.start(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        daemon.stop(5);
+        github.close();
+    }
+
+    @Test
+    void testJob_SelectedRepositoriesGetPullRequests() throws Exception {
+        JsonObject submitted = post("/jobs", "{\"select\":\"/repo-000[1-3]$/\",\"branch\":\"add-hello\","
+                + "\"title\":\"Add Hello.txt\",\"body\":\"From the daemon\","
+                + "\"files\":[{\"path\":\"Hello.txt\",\"content\":\"Hello world\"}]}", 202);
+        assertEquals(3, submitted.get("repositories").getAsInt());
+
+        JsonObject job = awaitJob(submitted.get("id").getAsInt());
+
+        assertEquals("SUCCEEDED", job.get("status").getAsString());
+        assertEquals(3, job.getAsJsonArray("results").size());
+        assertEquals(3, github.getPullRequestCount());
+        assertNotNull(github.getBranchHead("fake-org/repo-0002", "add-hello"));
+        assertNull(github.getBranchHead("fake-org/repo-0004", "add-hello"));
+    }
+
+    @Test
+    void testJob_InvalidRequestsAreRejected() throws Exception {
+        post("/jobs", "{\"repository\":\"fake-org/repo-0001\",\"title\":\"No branch\",\"files\":[]}", 400);
+        post("/jobs", "{\"select\":\"nothing/*\",\"branch\":\"b\",\"title\":\"t\","
+                + "\"files\":[{\"path\":\"a.txt\",\"content\":\"a\"}]}", 400);
+        post("/jobs", "not json", 400);
+
+        try (Response response = http.newCall(authorized("/jobs/42").build()).execute()) {
+            assertEquals(404, response.code());
+        }
+        assertEquals(0, github.getPullRequestCount());
+    }
+
+    @Test
+    void testJob_SameBranchInSameRepositoryIsRejectedWhileInFlight() throws Exception {
+        String job = "{\"repository\":\"fake-org/repo-0001\",\"branch\":\"add-hello\",\"title\":\"Add Hello.txt\","
+                + "\"files\":[{\"path\":\"Hello.txt\",\"content\":\"Hello world\"}]}";
+
+        JsonObject first = post("/jobs", job, 202);
+        post("/jobs", job, 409);
+        post("/jobs", job.replace("add-hello", "other-branch"), 202);
+
+        assertEquals("SUCCEEDED", awaitJob(first.get("id").getAsInt()).get("status").getAsString());
+        post("/jobs", job, 202); // Free again once the first job is done
+    }
+
+    @Test
+    void testRequests_WithoutSecretFromBrowsersOrOutsideLimitsAreRejected() throws Exception {
+        String job = "{\"repository\":\"fake-org/repo-0001\",\"branch\":\"b\",\"title\":\"t\","
+                + "\"files\":[{\"path\":\"a.txt\",\"content\":\"a\"}]}";
+        RequestBody json = RequestBody.create(job, MediaType.parse("application/json"));
+
+        assertEquals(401, status(new Request.Builder().url(baseUrl + "/jobs").post(json)));
+        assertEquals(401, status(new Request.Builder().url(baseUrl + "/jobs").header("Authorization", "Bearer wrong")
+                .post(json)));
+        assertEquals(403, status(authorized("/jobs").header("Origin", "https://example.com").post(json)));
+        assertEquals(415, status(authorized("/jobs").post(RequestBody.create(job, MediaType.parse("text/plain")))));
+
+        Path outside = Files.writeString(directory.resolve("id_rsa"), "private key");
+        post("/jobs", job.replace("fake-org/repo-0001", "someone-else/repo"), 400);
+        post("/jobs", job.replace("\"content\":\"a\"", "\"source\":\"" + outside + "\""), 400);
+        post("/jobs", job.replace("\"content\":\"a\"", "\"source\":\"../id_rsa\""), 400);
+
+        assertEquals(0, github.getPullRequestCount());
+        if (Files.getFileStore(directory).supportsFileAttributeView("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(
+                    Files.getPosixFilePermissions(directory.resolve("daemon.secret"))));
+        }
+    }
+
+    private JsonObject awaitJob(int id) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try (Response response = http.newCall(authorized("/jobs/" + id).build()).execute()) {
+                JsonObject job = JsonParser.parseString(response.body().string()).getAsJsonObject();
+                String status = job.get("status").getAsString();
+                if (!status.equals("QUEUED") && !status.equals("RUNNING")) {
+                    return job;
+                }
+            }
+            assertTrue(System.nanoTime() < deadline, "Job did not finish");
+            Thread.sleep(20);
+        }
+    }
+
+    private JsonObject post(String path, String body, int expectedStatus) throws IOException {
+        Request request = authorized(path)
+                .post(RequestBody.create(body, MediaType.parse("application/json")))
+                .build();
+        try (Response response = http.newCall(request).execute()) {
+            assertEquals(expectedStatus, response.code());
+            return JsonParser.parseString(response.body().string()).getAsJsonObject();
+        }
+    }
+
+    private int status(Request.Builder request) throws IOException {
+        try (Response response = http.newCall(request.build()).execute()) {
+            return response.code();
+        }
+    }
+
+    private Request.Builder authorized(String path) {
+        return new Request.Builder().url(baseUrl + path).header("Authorization", "Bearer " + secret);
+    }
+}
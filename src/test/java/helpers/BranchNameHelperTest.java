@@ -0,0 +1,29 @@
+package helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BranchNameHelperTest {
+
+    @Test
+    void testNextFreeBranchName_BaseFree() {
+        assertEquals("add-hello-file",
+                BranchNameHelper.nextFreeBranchName("add-hello-file", List.of("add-hello-file-old")));
+    }
+
+    @Test
+    void testNextFreeBranchName_FirstGapInSuffixes() {
+        List<String> existing = List.of("add-hello-file", "add-hello-file-1", "add-hello-file-2",
+                "add-hello-file-4", "add-hello-file-old");
+
+        assertEquals("add-hello-file-3", BranchNameHelper.nextFreeBranchName("add-hello-file", existing));
+    }
+
+    @Test
+    void testNextFreeBranchName_NoBranches() {
+        assertEquals("add-hello-file", BranchNameHelper.nextFreeBranchName("add-hello-file", List.of()));
+    }
+}
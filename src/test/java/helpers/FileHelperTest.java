@@ -0,0 +1,72 @@
+package helpers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileHelperTest {
+
+    private Path tempFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempFile = Files.createTempFile("test-file", ".bin");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    void testEncodeTo_BinaryFileMatchesBase64() throws IOException {
+        byte[] content = new byte[200_001]; // Not a multiple of 3, so padding is exercised
+        new Random(42).nextBytes(content);
+        Files.write(tempFile, content);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FileHelper.encodeTo(tempFile, out);
+
+        String expected = Base64.getEncoder().encodeToString(content);
+        assertEquals(expected, out.toString(StandardCharsets.US_ASCII));
+        assertEquals(expected.length(), FileHelper.encodedLength(content.length));
+    }
+
+    @Test
+    void testEncodeTo_EmptyFile() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FileHelper.encodeTo(tempFile, out);
+
+        assertEquals(0, out.size());
+        assertEquals(0, FileHelper.encodedLength(0));
+    }
+
+    @Test
+    void testGitBlobSha_MatchesGitHashObject() throws IOException {
+        // Expected values from "git hash-object"
+        assertEquals("3b18e512dba79e4c8300dd08aeb37f8e728b8dad", FileHelper.gitBlobSha("hello world\n"));
+        assertEquals("e69de29bb2d1d6434b8b29ae775ad8c2e48c5391", FileHelper.gitBlobSha(""));
+
+        Files.writeString(tempFile, "hello world\n");
+        assertEquals("3b18e512dba79e4c8300dd08aeb37f8e728b8dad", FileHelper.gitBlobSha(tempFile));
+    }
+
+    @Test
+    void testEncodeContent_UsesUtf8LikeGitBlobSha() throws IOException {
+        String content = "Grüße, 世界\n";
+        Files.writeString(tempFile, content); // UTF-8
+
+        assertEquals(Base64.getEncoder().encodeToString(Files.readAllBytes(tempFile)), FileHelper.encodeContent(content));
+        assertEquals(FileHelper.gitBlobSha(tempFile), FileHelper.gitBlobSha(content));
+    }
+}
@@ -0,0 +1,40 @@
+package helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkHeaderHelperTest {
+
+    private static final String GITHUB_LINK_HEADER =
+            "<https://api.github.com/user/repos?per_page=100&page=2>; rel=\"next\", "
+                    + "<https://api.github.com/user/repos?per_page=100&page=120>; rel=\"last\"";
+
+    @Test
+    void testParse_GitHubHeader() {
+        Map<String, String> links = LinkHeaderHelper.parse(GITHUB_LINK_HEADER);
+
+        assertEquals(2, links.size());
+        assertEquals("https://api.github.com/user/repos?per_page=100&page=2", links.get("next"));
+        assertEquals("https://api.github.com/user/repos?per_page=100&page=120", links.get("last"));
+    }
+
+    @Test
+    void testParse_NullHeader() {
+        assertTrue(LinkHeaderHelper.parse(null).isEmpty(), "A missing header should yield no links.");
+    }
+
+    @Test
+    void testPageNumber() {
+        assertEquals(120, LinkHeaderHelper.pageNumber("https://api.github.com/user/repos?per_page=100&page=120"));
+        assertEquals(3, LinkHeaderHelper.pageNumber("https://api.github.com/user/repos?page=3&per_page=100"));
+    }
+
+    @Test
+    void testPageNumber_NoPageParameter() {
+        assertEquals(-1, LinkHeaderHelper.pageNumber("https://api.github.com/user/repos?per_page=100"));
+        assertEquals(-1, LinkHeaderHelper.pageNumber(null));
+    }
+}
@@ -0,0 +1,84 @@
+package helpers;
+
+import helpers.MergeRequestJournal.Step;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MergeRequestJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testOpen_ReplaysLatestStepPerRepository() throws IOException {
+        Path file = tempDir.resolve("cache").resolve("merge-requests.journal");
+        try (MergeRequestJournal journal = MergeRequestJournal.open(file)) {
+            journal.branchReserved("user/repo1", "feature", "feature-1", "abc");
+            journal.branchCreated("user/repo1", "feature");
+            journal.filesCommitted("user/repo1", "feature", Map.of("Hello.txt", "sha1"));
+            journal.branchReserved("user/repo2", "feature", "feature", "abc");
+        }
+
+        MergeRequestJournal reopened = MergeRequestJournal.open(file);
+        MergeRequestJournal.Entry repo1 = reopened.get("user/repo1", "feature");
+        assertEquals(Step.FILES_COMMITTED, repo1.getStep());
+        assertEquals("feature-1", repo1.getBranch());
+        assertEquals("abc", repo1.getFingerprint());
+        assertEquals(Map.of("Hello.txt", "sha1"), repo1.getFileShas());
+        assertTrue(repo1.hasCompleted(Step.BRANCH_CREATED));
+        assertFalse(repo1.hasCompleted(Step.PULL_REQUEST_CREATED));
+        assertEquals(Step.BRANCH_RESERVED, reopened.get("user/repo2", "feature").getStep());
+        assertNull(reopened.get("user/repo1", "other"));
+    }
+
+    @Test
+    void testOpen_DropsTornLineAndKeepsAppending() throws IOException {
+        Path file = tempDir.resolve("merge-requests.journal");
+        try (MergeRequestJournal journal = MergeRequestJournal.open(file)) {
+            journal.branchReserved("user/repo1", "feature", "feature", "abc");
+        }
+        Files.write(file, "{\"repo\":\"user/repo1\",\"baseBra".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (MergeRequestJournal journal = MergeRequestJournal.open(file)) {
+            assertEquals(Step.BRANCH_RESERVED, journal.get("user/repo1", "feature").getStep());
+            journal.branchCreated("user/repo1", "feature");
+        }
+
+        assertEquals(Step.BRANCH_CREATED, MergeRequestJournal.open(file).get("user/repo1", "feature").getStep());
+    }
+
+    @Test
+    void testOpen_CompactsLongJournal() throws IOException {
+        Path file = tempDir.resolve("merge-requests.journal");
+        try (MergeRequestJournal journal = MergeRequestJournal.open(file)) {
+            for (int run = 0; run < 3; run++) {
+                journal.branchReserved("user/repo1", "feature", "feature", "run" + run);
+                journal.branchCreated("user/repo1", "feature");
+                journal.pullRequestCreated("user/repo1", "feature");
+            }
+        }
+
+        MergeRequestJournal reopened = MergeRequestJournal.open(file);
+
+        assertEquals(1, Files.readAllLines(file).size());
+        assertEquals("run2", reopened.get("user/repo1", "feature").getFingerprint());
+        assertEquals(Step.PULL_REQUEST_CREATED, reopened.get("user/repo1", "feature").getStep());
+    }
+
+    @Test
+    void testFingerprint_IgnoresFileOrder() {
+        assertEquals(MergeRequestJournal.fingerprint(Map.of("a", "1", "b", "2"), "Title"),
+                MergeRequestJournal.fingerprint(Map.of("b", "2", "a", "1"), "Title"));
+        assertNotEquals(MergeRequestJournal.fingerprint(Map.of("a", "1"), "Title"),
+                MergeRequestJournal.fingerprint(Map.of("a", "2"), "Title"));
+    }
+}
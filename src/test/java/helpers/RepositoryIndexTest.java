@@ -0,0 +1,152 @@
+package helpers;
+
+import dataModels.Repository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSaveAndLoad_RoundTrip() throws IOException {
+        RepositoryIndex index = RepositoryIndex.of(Arrays.asList(
+                new Repository(1, "user/repo1", "2024-01-01T00:00:00Z"),
+                new Repository(2, "user/répo2", "2024-01-02T00:00:00Z")), 1000L);
+        Path file = tempDir.resolve("cache").resolve("repositories.idx");
+
+        index.save(file);
+        RepositoryIndex loaded = RepositoryIndex.load(file);
+
+        assertNotNull(loaded);
+        assertEquals(2, loaded.size());
+        assertEquals(1L, loaded.getId(0));
+        assertEquals("user/repo1", loaded.getName(0));
+        assertEquals("user/répo2", loaded.getName(1));
+        assertEquals(Instant.parse("2024-01-02T00:00:00Z"), loaded.getNewestUpdatedAt());
+        assertFalse(loaded.isFullSyncDue(Duration.ofHours(1), 1000L + 1));
+        assertTrue(loaded.isFullSyncDue(Duration.ofHours(1), 1000L + Duration.ofHours(2).toMillis()));
+    }
+
+    @Test
+    void testMerge_UpdatesKnownIdsInPlaceAndAppendsNewOnes() {
+        RepositoryIndex index = RepositoryIndex.of(Arrays.asList(
+                new Repository(1, "user/repo1", "2024-01-01T00:00:00Z"),
+                new Repository(2, "user/repo2", "2024-01-02T00:00:00Z")), 1000L);
+
+        RepositoryIndex merged = index.merge(Arrays.asList(
+                new Repository(3, "user/repo3", "2024-01-04T00:00:00Z"),
+                new Repository(1, "user/renamed", "2024-01-03T00:00:00Z")));
+
+        assertEquals(3, merged.size());
+        assertEquals("user/renamed", merged.getName(0));
+        assertEquals("user/repo2", merged.getName(1));
+        assertEquals("user/repo3", merged.getName(2));
+        assertEquals(Instant.parse("2024-01-04T00:00:00Z"), merged.getNewestUpdatedAt());
+        assertFalse(merged.isFullSyncDue(Duration.ofHours(1), 1000L + 1)); // Incremental updates keep the full sync time
+        assertSame(index, index.merge(Collections.emptyList()));
+    }
+
+    @Test
+    void testAsRepositoryMap_UsesOneBasedNumbers() {
+        RepositoryIndex index = RepositoryIndex.of(Arrays.asList(
+                new Repository(1, "user/repo1", null),
+                new Repository(2, "user/repo2", null)), 0L);
+
+        Map<Integer, String> map = index.asRepositoryMap();
+
+        assertEquals(2, map.size());
+        assertEquals("user/repo1", map.get(1));
+        assertEquals("user/repo2", map.get(2));
+        assertNull(map.get(0));
+        assertNull(map.get(3));
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), map.keySet());
+        assertNull(index.getNewestUpdatedAt());
+    }
+
+    @Test
+    void testLoad_MissingOrInvalidFileReturnsNull() throws IOException {
+        Path file = tempDir.resolve("repositories.idx");
+        assertNull(RepositoryIndex.load(file));
+
+        Files.write(tempDir.resolve("repositories.idx.1"), "not an index file, just some text".getBytes());
+        assertNull(RepositoryIndex.load(file));
+    }
+
+    @Test
+    void testLoad_NameOutsideFileReturnsNull() throws IOException {
+        Path file = tempDir.resolve("repositories.idx");
+        RepositoryIndex.of(Collections.singletonList(new Repository(1, "user/repo1", null)), 0L).save(file);
+
+        // Name length of the first record, which starts right after the 28-byte header
+        Path generation = tempDir.resolve("repositories.idx.1");
+        byte[] content = Files.readAllBytes(generation);
+        ByteBuffer.wrap(content).putInt(28 + 20, 1_000);
+        Files.write(generation, content);
+
+        assertNull(RepositoryIndex.load(file));
+    }
+
+    @Test
+    void testSave_WritesNewGenerationWhileOldOneIsMapped() throws IOException {
+        Path file = tempDir.resolve("repositories.idx");
+        RepositoryIndex.of(Collections.singletonList(new Repository(1, "user/repo1", null)), 0L).save(file);
+        RepositoryIndex mapped = RepositoryIndex.load(file);
+
+        mapped.merge(Collections.singletonList(new Repository(2, "user/repo2", null))).save(file);
+        RepositoryIndex reloaded = RepositoryIndex.load(file);
+
+        assertEquals(2, reloaded.size());
+        assertEquals("user/repo1", mapped.getName(0));
+        assertTrue(Files.exists(tempDir.resolve("repositories.idx.2")));
+        assertFalse(Files.exists(tempDir.resolve("repositories.idx.1")));
+    }
+
+    @Test
+    void testSave_ConcurrentSavesEachWriteACompleteFile() throws Exception {
+        Path file = tempDir.resolve("repositories.idx");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> saves = new ArrayList<>();
+            for (int i = 1; i <= 8; i++) {
+                RepositoryIndex index = RepositoryIndex.of(Collections.nCopies(i, new Repository(i, "user/repo" + i, null)), 0L);
+                saves.add(executor.submit(() -> {
+                    index.save(file);
+                    return null;
+                }));
+            }
+            for (Future<?> save : saves) {
+                save.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        RepositoryIndex loaded = RepositoryIndex.load(file);
+        assertNotNull(loaded);
+        assertEquals("user/repo" + loaded.size(), loaded.getName(loaded.size() - 1));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+}
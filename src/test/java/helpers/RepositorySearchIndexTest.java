@@ -0,0 +1,83 @@
+package helpers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositorySearchIndexTest {
+
+    private RepositorySearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Map<Integer, String> repoMap = new HashMap<>();
+        repoMap.put(1, "acme/api-service");
+        repoMap.put(2, "acme/web-service");
+        repoMap.put(3, "acme/api");
+        repoMap.put(4, "other/Payments-API");
+        repoMap.put(5, "user/dotfiles");
+        index = new RepositorySearchIndex(repoMap);
+    }
+
+    @Test
+    void testSearch_ExactNameRanksFirst() {
+        List<Integer> matches = index.search("api", 10);
+
+        assertEquals(3, matches.get(0)); // "acme/api" is an exact repository name
+        assertEquals(1, matches.get(1)); // Then prefixes of the repository name
+        assertTrue(matches.contains(4)); // And names containing the term, case-insensitively
+        assertFalse(matches.contains(5));
+    }
+
+    @Test
+    void testSearch_OwnerPrefix() {
+        assertEquals(List.of(3, 1, 2), index.search("acme/", 10));
+    }
+
+    @Test
+    void testSearch_ToleratesTypos() {
+        assertEquals(List.of(5), index.search("dotfiels", 10));
+    }
+
+    @Test
+    void testSearch_RespectsLimit() {
+        assertEquals(2, index.search("a", 2).size());
+        assertTrue(index.search("zzz", 10).isEmpty());
+    }
+
+    @Test
+    void testMatchGlob() {
+        assertEquals(List.of(1, 2), index.matchGlob("acme/*-service"));
+        assertEquals(List.of(1, 3), index.matchGlob("acme/api*"));
+        assertEquals(List.of(4), index.matchGlob("*/payments-ap?"));
+        assertTrue(index.matchGlob("acme/unknown*").isEmpty());
+    }
+
+    @Test
+    void testMatchRegex() {
+        assertEquals(List.of(1, 3, 4), index.matchRegex(Pattern.compile("api($|-)")));
+    }
+
+    @Test
+    void testSearch_LargeListStaysFast() {
+        Map<Integer, String> repoMap = new HashMap<>();
+        for (int i = 1; i <= 100_000; i++) {
+            repoMap.put(i, "org" + (i % 50) + "/service-" + i);
+        }
+        RepositorySearchIndex large = new RepositorySearchIndex(repoMap);
+
+        large.search("service-4242", 10); // Warm-up
+        long start = System.nanoTime();
+        List<Integer> matches = large.search("service-4242", 10);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(4242, matches.get(0));
+        assertTrue(elapsedMillis < 500, "Search took " + elapsedMillis + " ms");
+    }
+}
@@ -0,0 +1,89 @@
+package helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositorySearchSelectorTest {
+
+    private static final Map<Integer, String> REPO_MAP = Map.of(
+            1, "acme/api-service",
+            2, "acme/web-service",
+            3, "acme/api",
+            4, "user/dotfiles");
+
+    @Test
+    void testMatchRepositoryIndexToName_ByNumber() {
+        assertEquals("acme/web-service", selector("2").matchRepositoryIndexToName(REPO_MAP));
+        assertNull(selector("9").matchRepositoryIndexToName(REPO_MAP));
+    }
+
+    @Test
+    void testMatchRepositoryIndexToName_NumberTooLargeForIntIsRejected() {
+        assertNull(selector("99999999999").matchRepositoryIndexToName(REPO_MAP));
+    }
+
+    @Test
+    void testMatchRepositoryIndexToName_ByName() {
+        assertEquals("acme/api", selector("API").matchRepositoryIndexToName(REPO_MAP));
+        assertEquals("user/dotfiles", selector("dotf").matchRepositoryIndexToName(REPO_MAP));
+    }
+
+    @Test
+    void testMatchRepositoryIndexToName_AmbiguousTermAsksAgain() {
+        assertEquals("acme/web-service", selector("service", "2").matchRepositoryIndexToName(REPO_MAP));
+        assertEquals("acme/web-service", selector("service", "web").matchRepositoryIndexToName(REPO_MAP));
+        assertNull(selector("service", "").matchRepositoryIndexToName(REPO_MAP));
+    }
+
+    @Test
+    void testSelectRepositories_MixesNumbersRangesAndGlobs() {
+        List<String> repos = selector("4,acme/*-service,1-2").selectRepositories(REPO_MAP);
+
+        assertEquals(List.of("user/dotfiles", "acme/api-service", "acme/web-service"), repos);
+    }
+
+    @Test
+    void testSelectRepositories_Regex() {
+        assertEquals(List.of("acme/api-service", "acme/api"), selector("/^acme/api/").selectRepositories(REPO_MAP));
+        assertNull(selector("/[/").selectRepositories(REPO_MAP));
+    }
+
+    @Test
+    void testSelectRepositories_InvalidInput() {
+        assertNull(selector("dotfiles").selectRepositories(REPO_MAP));
+        assertNull(selector("nothing*").selectRepositories(REPO_MAP));
+        assertEquals(4, selector("all").selectRepositories(REPO_MAP).size());
+    }
+
+    @Test
+    void testSelectRepositories_RangeOutsideListIsRejectedBeforeExpanding() {
+        assertNull(selector("1-2147483647").selectRepositories(REPO_MAP));
+        assertNull(selector("0-2").selectRepositories(REPO_MAP));
+        assertNull(selector("3-2").selectRepositories(REPO_MAP));
+        assertEquals(List.of("acme/api", "user/dotfiles"), selector("3-4").selectRepositories(REPO_MAP));
+    }
+
+    @Test
+    void testNamePredicate_GlobsRegexAndAll() {
+        Predicate<String> globs = RepositorySearchSelector.namePredicate("acme/*-service, user/dotfiles");
+        assertTrue(globs.test("acme/api-service"));
+        assertTrue(globs.test("user/dotfiles"));
+        assertFalse(globs.test("acme/api"));
+
+        assertTrue(RepositorySearchSelector.namePredicate("/API$/").test("acme/api"));
+        assertTrue(RepositorySearchSelector.namePredicate("all").test("anything/at-all"));
+    }
+
+    private static RepositorySearchSelector selector(String... lines) {
+        Deque<String> input = new ArrayDeque<>(Arrays.asList(lines));
+        return new RepositorySearchSelector(input::poll);
+    }
+}